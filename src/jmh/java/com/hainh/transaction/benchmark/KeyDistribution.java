@@ -0,0 +1,61 @@
+package com.hainh.transaction.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * KeyDistribution - Cách chọn account cho mỗi transfer trong benchmark
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public enum KeyDistribution {
+
+    /** Mọi account có xác suất như nhau - ít tranh chấp lock */
+    UNIFORM {
+        @Override
+        int next(ThreadLocalRandom random, int accounts) {
+            return random.nextInt(accounts);
+        }
+    },
+
+    /**
+     * {@value #HOT_PROBABILITY} số lần chọn rơi vào {@value #HOT_ACCOUNTS} hot accounts
+     * (merchant, ví tổng...) - phần lớn transfers tranh cùng vài row locks và stripes
+     */
+    SKEWED {
+        @Override
+        int next(ThreadLocalRandom random, int accounts) {
+            return random.nextDouble() < HOT_PROBABILITY ? random.nextInt(Math.min(HOT_ACCOUNTS, accounts))
+                                                         : random.nextInt(accounts);
+        }
+    };
+
+    static final int HOT_ACCOUNTS = 4;
+    static final double HOT_PROBABILITY = 0.8;
+
+    /**
+     * Index của account tiếp theo
+     *
+     * @param random Random của thread hiện tại
+     * @param accounts Tổng số accounts
+     * @return Index trong [0, accounts)
+     */
+    abstract int next(ThreadLocalRandom random, int accounts);
+
+    /**
+     * Index của account khác {@code other} - transfer cần hai accounts khác nhau
+     *
+     * @param random Random của thread hiện tại
+     * @param accounts Tổng số accounts (ít nhất 2)
+     * @param other Index cần tránh
+     * @return Index trong [0, accounts), khác other
+     */
+    int nextOther(ThreadLocalRandom random, int accounts, int other) {
+        int index;
+        do {
+            index = next(random, accounts);
+        } while (index == other);
+        return index;
+    }
+}
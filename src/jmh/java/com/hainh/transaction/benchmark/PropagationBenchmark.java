@@ -0,0 +1,73 @@
+package com.hainh.transaction.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hainh.transaction.propagation.PropagationDemoService;
+
+/**
+ * PropagationBenchmark - Chi phí của REQUIRED, REQUIRES_NEW và NESTED bên trong một transaction cha
+ *
+ * <p>Cả ba gọi method {@code PropagationDemoService} cùng thân (đọc account, cộng số dư) từ
+ * một TransactionTemplate; chỉ propagation khác nhau:</p>
+ * <ul>
+ *   <li>REQUIRED - join transaction cha, UPDATE flush khi cha commit</li>
+ *   <li>REQUIRES_NEW - suspend cha, lấy connection thứ hai, begin/commit riêng</li>
+ *   <li>NESTED - savepoint trên connection của cha, release khi method xong</li>
+ * </ul>
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="PropagationBenchmark"
+ * </pre>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropagationBenchmark {
+
+    private PropagationDemoService propagationDemoService;
+    private TransactionTemplate outer;
+    private Long accountId;
+
+    @Setup(Level.Trial)
+    public void setUp(SpringContext context) {
+        propagationDemoService = context.bean(PropagationDemoService.class);
+        outer = new TransactionTemplate(context.bean(PlatformTransactionManager.class));
+        accountId = context.createAccounts("bench-propagation", 1, 1_000.0)[0];
+    }
+
+    @Benchmark
+    public String required() {
+        return outer.execute(status -> propagationDemoService.demonstrateRequired(accountId, 1.0));
+    }
+
+    @Benchmark
+    public String requiresNew() {
+        return outer.execute(status -> propagationDemoService.demonstrateRequiresNew(accountId, 1.0));
+    }
+
+    @Benchmark
+    public String nested() {
+        return outer.execute(status -> propagationDemoService.demonstrateNested(accountId, 1.0));
+    }
+}
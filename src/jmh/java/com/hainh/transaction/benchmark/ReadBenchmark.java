@@ -0,0 +1,92 @@
+package com.hainh.transaction.benchmark;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hainh.transaction.core.Account;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * ReadBenchmark - Cùng một query đọc entities trong transaction readOnly vs read-write
+ *
+ * <p>Read-write: Hibernate giữ snapshot từng entity để dirty checking và flush khi commit.
+ * readOnly: session read-only, flush mode MANUAL, connection {@code setReadOnly(true)}.
+ * {@code rows} là số entities mỗi transaction - chi phí snapshot/dirty checking tăng theo rows,
+ * chi phí begin/commit thì không.</p>
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="ReadBenchmark -p rows=100"
+ * </pre>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReadBenchmark {
+
+    private static final String QUERY = "SELECT a FROM Account a WHERE a.id >= :fromId ORDER BY a.id";
+
+    @Param({ "1", "100" })
+    public int rows;
+
+    @Param({ "1000" })
+    public int accounts;
+
+    private EntityManager entityManager;
+    private TransactionTemplate readWrite;
+    private TransactionTemplate readOnly;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp(SpringContext context) {
+        entityManager = SharedEntityManagerCreator.createSharedEntityManager(context.bean(EntityManagerFactory.class));
+        PlatformTransactionManager transactionManager = context.bean(PlatformTransactionManager.class);
+        readWrite = new TransactionTemplate(transactionManager);
+        readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        ids = context.createAccounts("bench-read", Math.max(accounts, rows), 100.0);
+    }
+
+    @Benchmark
+    public List<Account> readWrite() {
+        return readWrite.execute(status -> read());
+    }
+
+    @Benchmark
+    public List<Account> readOnly() {
+        return readOnly.execute(status -> read());
+    }
+
+    private List<Account> read() {
+        long fromId = ids[ThreadLocalRandom.current().nextInt(ids.length - rows + 1)];
+        return entityManager.createQuery(QUERY, Account.class)
+            .setParameter("fromId", fromId)
+            .setMaxResults(rows)
+            .getResultList();
+    }
+}
@@ -0,0 +1,77 @@
+package com.hainh.transaction.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.hainh.Main;
+import com.hainh.transaction.core.Account;
+import com.hainh.transaction.core.AccountService;
+
+/**
+ * SpringContext - Spring context thật (H2 in-memory) dùng chung cho các benchmarks trong một fork
+ *
+ * <p>Cấu hình giống khi chạy app, trừ:</p>
+ * <ul>
+ *   <li>Không khởi động web server</li>
+ *   <li>{@code com.hainh} log ở WARN - log INFO mỗi transfer sẽ lấn át thời gian đo</li>
+ * </ul>
+ * <p>Các properties khác override bằng system properties của fork, ví dụ
+ * {@code -jvmArgsAppend -Dspring.datasource.hikari.maximum-pool-size=64}.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@State(Scope.Benchmark)
+public class SpringContext {
+
+    private ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(Main.class)
+            .web(WebApplicationType.NONE)
+            .properties("logging.level.com.hainh=WARN")
+            .run();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Bean trong context
+     *
+     * @param type Kiểu bean
+     * @return Bean duy nhất của kiểu đó
+     */
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Seed accounts qua {@link AccountService#createAccounts(List)} (một transaction, JDBC batch)
+     *
+     * @param owner Prefix tên owner
+     * @param count Số accounts
+     * @param balance Số dư ban đầu của mỗi account
+     * @return IDs của các accounts, tăng dần
+     */
+    public long[] createAccounts(String owner, int count, double balance) {
+        List<Account> accounts = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            accounts.add(new Account(owner + "-" + i, balance));
+        }
+        return bean(AccountService.class).createAccounts(accounts).stream().mapToLong(Long::longValue).toArray();
+    }
+}
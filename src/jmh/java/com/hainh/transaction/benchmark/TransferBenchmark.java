@@ -0,0 +1,111 @@
+package com.hainh.transaction.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.hainh.transaction.core.AccountService;
+
+/**
+ * TransferBenchmark - Throughput của {@code AccountService.transfer} theo số threads và phân bố accounts
+ *
+ * <p>Mỗi benchmark method là một mức concurrency (JMH cố định số threads theo method);
+ * {@code distribution} chọn accounts đều hoặc dồn vào vài hot accounts. Transfer lỗi
+ * (lock timeout, optimistic conflict hết retry...) không dừng benchmark mà được đếm ở
+ * counter {@code failures}, để throughput cao nhờ fail nhanh không bị đọc nhầm.</p>
+ *
+ * <pre>
+ * mvn -Pjmh test-compile exec:exec -Djmh.args="TransferBenchmark"
+ * </pre>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TransferBenchmark {
+
+    @Param({ "UNIFORM", "SKEWED" })
+    public KeyDistribution distribution;
+
+    @Param({ "1000" })
+    public int accounts;
+
+    private AccountService accountService;
+    private long[] ids;
+
+    /**
+     * Transfers lỗi của một thread trong iteration
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Failures {
+        public long failures;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            failures = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp(SpringContext context) {
+        accountService = context.bean(AccountService.class);
+        // Số dư đủ lớn để không transfer nào hụt tiền trong suốt trial
+        ids = context.createAccounts("bench-transfer", accounts, 1_000_000_000.0);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void threads01(Failures failures) {
+        transfer(failures);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void threads04(Failures failures) {
+        transfer(failures);
+    }
+
+    @Benchmark
+    @Threads(16)
+    public void threads16(Failures failures) {
+        transfer(failures);
+    }
+
+    @Benchmark
+    @Threads(64)
+    public void threads64(Failures failures) {
+        transfer(failures);
+    }
+
+    private void transfer(Failures failures) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int from = distribution.next(random, accounts);
+        int to = distribution.nextOther(random, accounts, from);
+        try {
+            accountService.transfer(ids[from], ids[to], 1.0);
+        } catch (RuntimeException e) {
+            failures.failures++;
+        }
+    }
+}
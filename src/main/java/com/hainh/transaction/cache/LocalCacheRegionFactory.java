@@ -0,0 +1,140 @@
+package com.hainh.transaction.cache;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.hibernate.boot.spi.SessionFactoryOptions;
+import org.hibernate.cache.cfg.spi.DomainDataRegionBuildingContext;
+import org.hibernate.cache.cfg.spi.DomainDataRegionConfig;
+import org.hibernate.cache.spi.access.SoftLock;
+import org.hibernate.cache.spi.support.DomainDataStorageAccess;
+import org.hibernate.cache.spi.support.RegionFactoryTemplate;
+import org.hibernate.cache.spi.support.StorageAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+/**
+ * LocalCacheRegionFactory - Hibernate second-level cache provider trong JVM
+ *
+ * <p>Mỗi region (entity, query results, update timestamps) là một ConcurrentHashMap.
+ * Hibernate lo toàn bộ semantics của access strategy (READ_WRITE dùng soft locks,
+ * query cache kiểm tra update timestamps của bảng) qua {@link RegionFactoryTemplate};
+ * class này chỉ cung cấp storage.</p>
+ *
+ * <p>Hibernate tự khởi tạo class này; {@link SecondLevelCacheConfig} đăng ký nó và truyền
+ * {@code account.cache.second-level.max-entries} (số entries tối đa mỗi region, mặc định 10000)
+ * qua Hibernate properties. Region update timestamps không bị giới hạn: mất một timestamp sẽ làm query cache trả
+ * kết quả cũ, và region này chỉ có một entry cho mỗi bảng.</p>
+ *
+ * <p><strong>Lưu ý:</strong> Chỉ đúng khi chạy một instance - các instances khác không
+ * được báo khi account thay đổi.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public class LocalCacheRegionFactory extends RegionFactoryTemplate {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Hibernate property chứa số entries tối đa mỗi region - set bởi {@link SecondLevelCacheConfig}
+     */
+    public static final String MAX_ENTRIES = "hibernate.cache.local.max_entries";
+
+    private static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private int maxEntries = DEFAULT_MAX_ENTRIES;
+
+    @Override
+    protected void prepareForUse(SessionFactoryOptions settings, Map<String, Object> configValues) {
+        Object configured = configValues.get(MAX_ENTRIES);
+        if (configured != null) {
+            maxEntries = Integer.parseInt(configured.toString());
+        }
+    }
+
+    @Override
+    protected void releaseFromUse() {
+        // Storage của từng region được release qua StorageAccess.release()
+    }
+
+    @Override
+    protected DomainDataStorageAccess createDomainDataStorageAccess(DomainDataRegionConfig regionConfig,
+                                                                   DomainDataRegionBuildingContext buildingContext) {
+        return new MapStorageAccess(maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createQueryResultsRegionStorageAccess(String regionName,
+                                                                  SessionFactoryImplementor sessionFactory) {
+        return new MapStorageAccess(maxEntries);
+    }
+
+    @Override
+    protected StorageAccess createTimestampsRegionStorageAccess(String regionName,
+                                                                SessionFactoryImplementor sessionFactory) {
+        return new MapStorageAccess(0);
+    }
+
+    /**
+     * Storage của một region - ConcurrentHashMap, giới hạn kích thước nếu maxEntries &gt; 0
+     */
+    static final class MapStorageAccess implements DomainDataStorageAccess {
+
+        private final ConcurrentHashMap<Object, Object> entries = new ConcurrentHashMap<>();
+        private final int maxEntries;
+
+        MapStorageAccess(int maxEntries) {
+            this.maxEntries = maxEntries;
+        }
+
+        @Override
+        public Object getFromCache(Object key, SharedSessionContractImplementor session) {
+            return entries.get(key);
+        }
+
+        @Override
+        public void putIntoCache(Object key, Object value, SharedSessionContractImplementor session) {
+            entries.put(key, value);
+            if (maxEntries > 0 && entries.size() > maxEntries) {
+                evictDownTo(maxEntries * 9 / 10, key);
+            }
+        }
+
+        /**
+         * Bỏ entries (theo thứ tự duyệt của map) cho đến còn target. Soft locks của các
+         * updates đang chạy không bị bỏ: mất lock, một reader chậm có thể put lại dữ liệu cũ.
+         */
+        private void evictDownTo(int target, Object justPut) {
+            Iterator<Map.Entry<Object, Object>> it = entries.entrySet().iterator();
+            while (entries.size() > target && it.hasNext()) {
+                Map.Entry<Object, Object> e = it.next();
+                if (!(e.getValue() instanceof SoftLock) && !e.getKey().equals(justPut)) {
+                    it.remove();
+                }
+            }
+        }
+
+        @Override
+        public boolean contains(Object key) {
+            return entries.containsKey(key);
+        }
+
+        @Override
+        public void evictData() {
+            entries.clear();
+        }
+
+        @Override
+        public void evictData(Object key) {
+            entries.remove(key);
+        }
+
+        @Override
+        public void release() {
+            entries.clear();
+        }
+    }
+}
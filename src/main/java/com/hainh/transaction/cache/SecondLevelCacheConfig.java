@@ -0,0 +1,38 @@
+package com.hainh.transaction.cache;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SecondLevelCacheConfig - Gắn {@link LocalCacheRegionFactory} vào Hibernate
+ *
+ * <p>Region factory do Hibernate khởi tạo, không phải Spring bean, nên không nhận được
+ * {@code @Value}. Customizer này đọc tunable như các cấu hình khác của app và đưa vào
+ * Hibernate properties trước khi EntityManagerFactory được build. Bật/tắt second-level
+ * cache và query cache vẫn nằm trong {@code spring.jpa.properties.*}.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    /**
+     * Đăng ký region factory và giới hạn số entries mỗi region
+     *
+     * @param maxEntries Giá trị của {@code account.cache.second-level.max-entries} (&lt;= 0 = không giới hạn)
+     * @return Customizer cho Hibernate properties
+     */
+    @Bean
+    public HibernatePropertiesCustomizer localCacheRegionFactoryCustomizer(
+            @Value("${account.cache.second-level.max-entries:10000}") int maxEntries) {
+        return properties -> {
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, LocalCacheRegionFactory.class.getName());
+            properties.put(LocalCacheRegionFactory.MAX_ENTRIES, maxEntries);
+        };
+    }
+}
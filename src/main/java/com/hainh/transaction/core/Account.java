@@ -1,11 +1,22 @@
 package com.hainh.transaction.core;
 
+import java.util.Locale;
+
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
+
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * Account Entity - Đại diện cho một tài khoản ngân hàng trong hệ thống
@@ -27,18 +38,63 @@ import jakarta.persistence.Table;
  * @since 2025-06-27
  */
 @Entity
-@Table(name = "account") // Explicit table name để rõ ràng
+@Table(name = "account", indexes = { // Explicit table name để rõ ràng
+    @Index(name = "idx_account_owner", columnList = "owner"),             // findByOwner, countByOwner, prefix range
+    @Index(name = "idx_account_owner_upper", columnList = "owner_upper"), // findByOwnerIgnoreCase
+    @Index(name = "idx_account_balance", columnList = "balance")          // balance range queries, leaderboard reload
+})
+@EntityListeners({
+    AccountCacheInvalidator.class,   // Invalidate AccountCache sau khi commit
+    AccountStatisticsListener.class  // Aggregates số dư toàn hệ thống
+})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Account.CACHE_REGION) // Hibernate second-level cache
 public class Account {
+
+    /**
+     * Second-level cache region của Account entity (xem {@link com.hainh.transaction.cache.LocalCacheRegionFactory})
+     */
+    public static final String CACHE_REGION = "account";
+
+    /**
+     * Query cache region của các account queries được cache trong {@link AccountRepository}
+     */
+    public static final String QUERY_CACHE_REGION = "account-queries";
+
+    /**
+     * Query space khai báo cho native balance UPDATEs trong {@link AccountRepository} - không
+     * trùng query space {@code account} của entity, nên Hibernate không xóa cả region
+     * {@value #CACHE_REGION} sau mỗi UPDATE (xem {@link SecondLevelCacheEvictor})
+     */
+    public static final String BALANCE_UPDATE_SPACE = "account_balance_update";
+
+    /**
+     * Sequence cấp account IDs
+     */
+    public static final String ID_SEQUENCE = "account_seq";
+
+    /**
+     * Số IDs mỗi lần gọi sequence - bằng {@code hibernate.jdbc.batch_size}: một batch
+     * INSERT đầy cần đúng một lần gọi sequence
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
     
     /**
      * Primary Key - ID duy nhất cho mỗi tài khoản
      * 
-     * <p>Sử dụng IDENTITY strategy để database tự động generate ID.
-     * Điều này đảm bảo mỗi tài khoản có ID unique và không bị conflict
-     * trong môi trường concurrent.</p>
+     * <p>Lấy từ database sequence {@value #ID_SEQUENCE} với pooled optimizer: mỗi lần gọi
+     * sequence (INCREMENT BY {@value #ID_ALLOCATION_SIZE}) cấp một khối
+     * {@value #ID_ALLOCATION_SIZE} IDs, Hibernate phát IDs trong khối mà không chạm database
+     * (pooled là optimizer mặc định khi allocationSize &gt; 1). ID có ngay lúc persist, nên
+     * INSERTs được hoãn đến flush và gom thành JDBC batch - IDENTITY buộc INSERT ngay từng
+     * row để đọc ID và tắt batching.</p>
+     * 
+     * <p>SQL thuần INSERT vào bảng này phải lấy ID bằng {@code NEXT VALUE FOR account_seq}:
+     * mỗi giá trị là cận trên của một khối Hibernate không bao giờ dùng tới, nên không trùng.</p>
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "account_id")
+    @SequenceGenerator(name = "account_id", sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "id")
     private Long id;
 
@@ -51,6 +107,19 @@ public class Account {
      */
     @Column(name = "owner", nullable = false, length = 100)
     private String owner;
+
+    /**
+     * Owner đã chuẩn hóa chữ hoa - Dùng cho lookup không phân biệt hoa thường
+     * 
+     * <p>{@code UPPER(owner) = UPPER(:owner)} không dùng được index trên owner, nên mỗi lookup
+     * quét cả bảng. Cột này luôn được {@link #setOwner(String)} ghi cùng owner
+     * ({@link #normalizeOwner(String)}), và có index riêng.</p>
+     * 
+     * <p>Nullable chỉ để {@code ddl-auto=update} thêm được cột vào bảng đã có dữ liệu;
+     * {@link OwnerUpperMigration} điền giá trị cho các rows cũ lúc khởi động.</p>
+     */
+    @Column(name = "owner_upper", length = 100)
+    private String ownerUpper;
     
     /**
      * Số dư tài khoản
@@ -66,6 +135,73 @@ public class Account {
     @Column(name = "balance", nullable = false)
     private Double balance;
 
+    /**
+     * Số dư dạng long minor units (cent) - Nguồn sự thật cho số dư của account row
+     * 
+     * <p>Mọi thay đổi số dư (qua {@link #setBalance(Double)} hoặc conditional UPDATE trong
+     * {@link AccountRepository}) đều ghi cột này, còn {@code balance} chỉ là bản sao
+     * = balanceMinor / 100 để các query và API cũ vẫn chạy. Số dư vì vậy không bị
+     * trôi do làm tròn Double qua nhiều transfers.</p>
+     * 
+     * <p>Nullable chỉ để {@code ddl-auto=update} thêm được cột vào bảng đã có dữ liệu;
+     * {@link BalanceMinorUnitMigration} điền giá trị cho các rows cũ lúc khởi động.</p>
+     * 
+     * @see Money
+     */
+    @Column(name = "balance_minor")
+    private Long balanceMinor;
+
+    /**
+     * Version cho optimistic locking
+     * 
+     * <p>Hibernate tự tăng version mỗi lần UPDATE và thêm {@code WHERE version = ?}
+     * vào câu UPDATE. Nếu transaction khác đã update row trước (version đã đổi),
+     * UPDATE không match row nào và Hibernate ném
+     * {@code ObjectOptimisticLockingFailureException} thay vì ghi đè (lost update).</p>
+     * 
+     * <p>Không giữ row lock trong suốt transaction như pessimistic locking, nên
+     * throughput cao hơn khi contention thấp. Xem {@link OptimisticRetryExecutor}.</p>
+     */
+    @Version
+    @Column(name = "version")
+    private Long version;
+
+    /**
+     * Số sub-ledger shards của account (null hoặc 0 = không shard)
+     * 
+     * <p>Với account nhận rất nhiều credits đồng thời (ví dụ merchant settlement),
+     * mọi transfer đều UPDATE cùng một row và phải chờ row lock của nhau. Khi bật
+     * sharding, phần lớn số dư nằm trong các {@link AccountShard} rows, credits được
+     * rải ngẫu nhiên vào các shards. Số dư thật = balance + tổng balance các shards.</p>
+     * 
+     * @see AccountShardService
+     */
+    @Column(name = "shard_count")
+    private Integer shardCount;
+
+    /**
+     * Account có dùng append-only ledger không (null hoặc false = không)
+     * 
+     * <p>Khi bật, số dư không còn được UPDATE tại chỗ: mỗi transfer INSERT các
+     * {@link LedgerEntry}, số dư thật = balance + snapshot + tail của ledger.</p>
+     * 
+     * @see LedgerService
+     */
+    @Column(name = "ledger_mode")
+    private Boolean ledgerMode;
+
+    /**
+     * Số dư row và owner như trong database lần gần nhất (load, INSERT, UPDATE)
+     * 
+     * <p>Không persist. {@link AccountStatisticsListener} dùng để tính phần chênh lệch
+     * của mỗi UPDATE - JPA callbacks không cho biết giá trị cũ.</p>
+     */
+    @Transient
+    private long persistedBalanceMinor;
+
+    @Transient
+    private String persistedOwner;
+
     /**
      * Default constructor - Bắt buộc cho JPA
      * 
@@ -83,8 +219,8 @@ public class Account {
      * @param balance Số dư ban đầu
      */
     public Account(String owner, Double balance) {
-        this.owner = owner;
-        this.balance = balance;
+        setOwner(owner);
+        setBalance(balance);
     }
 
     // Getter và Setter methods với JavaDoc
@@ -119,6 +255,16 @@ public class Account {
      */
     public void setOwner(String owner) { 
         this.owner = owner; 
+        this.ownerUpper = normalizeOwner(owner);
+    }
+
+    /**
+     * Chuẩn hóa owner cho lookup không phân biệt hoa thường - dùng chung khi ghi và khi query
+     * @param owner Tên chủ tài khoản
+     * @return Owner viết hoa (Locale.ROOT), null nếu owner null
+     */
+    public static String normalizeOwner(String owner) {
+        return owner != null ? owner.toUpperCase(Locale.ROOT) : null;
     }
 
     /**
@@ -142,7 +288,144 @@ public class Account {
      * @param balance Số dư mới
      */
     public void setBalance(Double balance) { 
-        this.balance = balance; 
+        if (balance == null) {
+            this.balance = null;
+            this.balanceMinor = null;
+            return;
+        }
+        // Làm tròn về cent - kết quả của các phép tính Double không mang drift vào database
+        setBalanceMinor(Money.toMinor(balance));
+    }
+    
+    /**
+     * Lấy số dư dạng minor units
+     * @return Số dư tính bằng cent, null nếu row cũ chưa được migrate
+     */
+    public Long getBalanceMinor() {
+        return balanceMinor;
+    }
+    
+    /**
+     * Set số dư dạng minor units - Cập nhật luôn bản sao Double
+     * @param balanceMinor Số dư tính bằng cent
+     */
+    public void setBalanceMinor(long balanceMinor) {
+        this.balanceMinor = balanceMinor;
+        this.balance = Money.toMajor(balanceMinor);
+    }
+    
+    /**
+     * Lấy version hiện tại (optimistic locking)
+     * @return Version, null nếu account chưa được persist
+     */
+    public Long getVersion() {
+        return version;
+    }
+    
+    /**
+     * Set version - Chỉ JPA/Jackson dùng, không nên set thủ công
+     * @param version Version mới
+     */
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+    
+    /**
+     * Lấy số shards của account
+     * @return Số shards, null hoặc 0 nếu account không được shard
+     */
+    public Integer getShardCount() {
+        return shardCount;
+    }
+    
+    /**
+     * Set số shards - Chỉ {@link AccountShardService} nên gọi
+     * @param shardCount Số shards mới
+     */
+    public void setShardCount(Integer shardCount) {
+        this.shardCount = shardCount;
+    }
+    
+    /**
+     * Kiểm tra account có đang dùng sharded sub-balances không
+     * @return true nếu account có shards
+     */
+    public boolean hasShards() {
+        return shardCount != null && shardCount > 0;
+    }
+    
+    /**
+     * Lấy cờ ledger mode
+     * @return true nếu account dùng ledger, null hoặc false nếu không
+     */
+    public Boolean getLedgerMode() {
+        return ledgerMode;
+    }
+    
+    /**
+     * Set ledger mode - Chỉ {@link LedgerService} nên gọi
+     * @param ledgerMode Cờ ledger mode mới
+     */
+    public void setLedgerMode(Boolean ledgerMode) {
+        this.ledgerMode = ledgerMode;
+    }
+    
+    /**
+     * Kiểm tra account có đang dùng append-only ledger không
+     * @return true nếu account ở ledger mode
+     */
+    public boolean usesLedger() {
+        return Boolean.TRUE.equals(ledgerMode);
+    }
+    
+    /**
+     * Số dư của account row theo minor units, kể cả row cũ chưa được migrate
+     * @return balanceMinor, hoặc balance làm tròn về cent nếu balanceMinor null
+     */
+    long rowBalanceMinor() {
+        return rowBalanceMinor(balanceMinor, balance);
+    }
+    
+    /**
+     * Cùng quy tắc với {@link #rowBalanceMinor()} cho giá trị đọc bằng projection
+     * @param balanceMinor Cột balance_minor
+     * @param balance Cột balance
+     * @return Số dư tính bằng cent
+     */
+    static long rowBalanceMinor(Long balanceMinor, Double balance) {
+        if (balanceMinor != null) {
+            return balanceMinor;
+        }
+        return balance != null ? Money.toMinor(balance) : 0L;
+    }
+    
+    long getPersistedBalanceMinor() {
+        return persistedBalanceMinor;
+    }
+    
+    String getPersistedOwner() {
+        return persistedOwner;
+    }
+    
+    /**
+     * Ghi nhận trạng thái hiện tại là trạng thái trong database
+     */
+    void markPersisted() {
+        this.persistedBalanceMinor = rowBalanceMinor();
+        this.persistedOwner = owner;
+    }
+    
+    /**
+     * Bản copy detached - Dùng cho account views và {@link AccountCache}
+     * @return Account mới với cùng giá trị các fields
+     */
+    Account copy() {
+        Account copy = new Account(owner, balance);
+        copy.setId(id);
+        copy.setVersion(version);
+        copy.setShardCount(shardCount);
+        copy.setLedgerMode(ledgerMode);
+        return copy;
     }
     
     /**
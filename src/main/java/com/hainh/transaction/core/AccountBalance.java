@@ -0,0 +1,25 @@
+package com.hainh.transaction.core;
+
+/**
+ * AccountBalance - Projection số dư của account row cho balance checks
+ *
+ * <p>Với account thường, {@code balanceMinor} là số dư thật. Account đã shard hoặc ở
+ * ledger mode có thêm số dư ngoài account row - caller phải tính tổng.</p>
+ *
+ * @param balanceMinor Số dư của account row (minor units)
+ * @param shardCount Số shards, null nếu chưa shard
+ * @param ledgerMode true nếu account ở ledger mode
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public record AccountBalance(Long balanceMinor, Integer shardCount, Boolean ledgerMode) {
+
+    /**
+     * @return true nếu số dư nằm hoàn toàn trong account row
+     */
+    public boolean isRowBalanceTotal() {
+        return (shardCount == null || shardCount <= 0) && !Boolean.TRUE.equals(ledgerMode);
+    }
+}
@@ -0,0 +1,182 @@
+package com.hainh.transaction.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * AccountCache - Read-through cache cho account lookups và balance checks
+ *
+ * <p>Hai caches {@link BoundedTtlCache}:</p>
+ * <ul>
+ *   <li><strong>accounts</strong>: account ID → account view (balance = tổng số dư thật)</li>
+ *   <li><strong>owners</strong>: owner → danh sách account IDs; accounts được resolve qua
+ *       cache accounts, nên transfer chỉ cần invalidate theo ID</li>
+ * </ul>
+ *
+ * <h3>Không bao giờ thấy số dư chưa commit:</h3>
+ * <ul>
+ *   <li>Cache chỉ được đọc/ghi NGOÀI transaction. Trong transaction (kể cả isolation demos
+ *       với READ_UNCOMMITTED), caller đọc thẳng database với semantics của transaction đó.</li>
+ *   <li>Mọi thay đổi account (entity listener {@link AccountCacheInvalidator}, conditional
+ *       UPDATE, shard/ledger entries) đăng ký invalidation qua
+ *       {@link TransactionSynchronization#afterCommit()}: transfer bị rollback không chạm
+ *       vào cache, transfer đã commit luôn xóa giá trị cũ.</li>
+ * </ul>
+ *
+ * <p>Các thành phần khác cần biết account nào vừa thay đổi (ví dụ {@link AccountLeaderboard})
+ * đăng ký qua {@link #addChangeListener(Consumer)} thay vì hook lại từng chỗ ghi.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class AccountCache {
+
+    private final boolean enabled;
+    private final BoundedTtlCache<Long, Account> accounts;
+    private final BoundedTtlCache<String, List<Long>> owners;
+    private final List<Consumer<Long>> changeListeners = new CopyOnWriteArrayList<>();
+
+    public AccountCache(
+            @Value("${account.cache.enabled:true}") boolean enabled,
+            @Value("${account.cache.max-size:10000}") int maxSize,
+            @Value("${account.cache.ttl-ms:30000}") long ttlMs) {
+        this.enabled = enabled;
+        this.accounts = new BoundedTtlCache<>(maxSize, ttlMs);
+        this.owners = new BoundedTtlCache<>(maxSize, ttlMs);
+    }
+
+    /**
+     * Lấy account qua cache
+     *
+     * @param id Account ID
+     * @param loader Load account view từ database (null nếu không tồn tại)
+     * @return Bản copy của account view - caller sửa thoải mái không ảnh hưởng cache
+     */
+    public Optional<Account> getAccount(Long id, Function<Long, Account> loader) {
+        if (bypass()) {
+            return Optional.ofNullable(loader.apply(id));
+        }
+        return Optional.ofNullable(accounts.get(id, loader)).map(Account::copy);
+    }
+
+    /**
+     * Số dư (minor units, tổng số dư thật) của account nếu view đang có trong cache
+     *
+     * <p>Không load khi miss - caller đọc số dư bằng query rẻ hơn việc load cả account view.</p>
+     *
+     * @param id Account ID
+     * @return Số dư nếu cache hit, empty nếu miss hoặc cache bị bypass
+     */
+    public Optional<Long> getCachedBalanceMinor(Long id) {
+        if (bypass()) {
+            return Optional.empty();
+        }
+        Account cached = accounts.getIfPresent(id);
+        return cached == null ? Optional.empty() : Optional.ofNullable(cached.getBalanceMinor());
+    }
+
+    /**
+     * Lấy accounts của owner qua cache
+     *
+     * @param owner Tên chủ tài khoản
+     * @param idLoader Load danh sách account IDs của owner từ database
+     * @param accountLoader Load account view theo ID
+     * @return Bản copy của các account views
+     */
+    public List<Account> getAccountsByOwner(String owner, Function<String, List<Long>> idLoader,
+                                            Function<Long, Account> accountLoader) {
+        List<Long> ids = bypass() ? idLoader.apply(owner) : owners.get(owner, o -> List.copyOf(idLoader.apply(o)));
+        List<Account> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            // Account đã đổi owner sau khi danh sách được cache thì bị lọc bỏ
+            getAccount(id, accountLoader)
+                .filter(account -> owner.equals(account.getOwner()))
+                .ifPresent(result::add);
+        }
+        return result;
+    }
+
+    /**
+     * Invalidate account (và danh sách của owner nếu biết) sau khi transaction commit
+     *
+     * <p>Ngoài transaction (auto-commit) thì invalidate ngay.</p>
+     *
+     * @param id Account ID
+     * @param owner Owner của account, null nếu chỉ số dư thay đổi
+     */
+    public void evictAfterCommit(Long id, String owner) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evict(id, owner);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evict(id, owner);
+            }
+        });
+    }
+
+    /**
+     * Invalidate account sau khi transaction commit - khi chỉ số dư thay đổi
+     *
+     * @param id Account ID
+     */
+    public void evictAfterCommit(Long id) {
+        evictAfterCommit(id, null);
+    }
+
+    /**
+     * Đăng ký nhận account IDs đã thay đổi - gọi cùng lúc với invalidation (sau commit)
+     *
+     * <p>Listener chạy trên thread vừa commit, ngay sau khi cache đã bỏ giá trị cũ: phải
+     * nhanh và không được throw (ví dụ chỉ đánh dấu ID để xử lý sau).</p>
+     *
+     * @param listener Nhận account ID đã thay đổi
+     */
+    public void addChangeListener(Consumer<Long> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void evict(Long id, String owner) {
+        if (id != null) {
+            accounts.invalidate(id);
+            for (Consumer<Long> listener : changeListeners) {
+                listener.accept(id);
+            }
+        }
+        if (owner != null) {
+            owners.invalidate(owner);
+        }
+    }
+
+    private boolean bypass() {
+        return !enabled || TransactionSynchronizationManager.isActualTransactionActive();
+    }
+
+    /**
+     * Metrics của hai caches
+     *
+     * @return enabled và metrics theo cache
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("accounts", accounts.snapshot());
+        result.put("owners", owners.snapshot());
+        return result;
+    }
+}
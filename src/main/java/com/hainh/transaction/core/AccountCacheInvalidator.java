@@ -0,0 +1,37 @@
+package com.hainh.transaction.core;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * AccountCacheInvalidator - JPA entity listener của {@link Account}
+ *
+ * <p>Mọi INSERT/UPDATE/DELETE account qua Hibernate (transfer, updateAccount, batch,
+ * các demo services gọi thẳng repository) đều đi qua đây, nên không cần nhớ invalidate
+ * ở từng chỗ ghi. Chỉ conditional UPDATE bằng JPQL bỏ qua entity lifecycle - các chỗ đó
+ * tự gọi {@link AccountCache#evictAfterCommit(Long)}.</p>
+ *
+ * <p>Spring Boot cấu hình Hibernate dùng Spring làm bean container, nên listener được
+ * tạo bởi Spring và inject được {@link AccountCache}.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class AccountCacheInvalidator {
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    void onAccountChanged(Account account) {
+        accountCache.evictAfterCommit(account.getId(), account.getOwner());
+    }
+}
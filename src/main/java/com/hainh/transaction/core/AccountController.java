@@ -1,11 +1,30 @@
 package com.hainh.transaction.core;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.RejectedExecutionException;
+
+import jakarta.servlet.http.HttpServletResponse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -14,6 +33,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -60,6 +80,11 @@ public class AccountController {
     
     private static final Logger logger = LoggerFactory.getLogger(AccountController.class);
     
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int EXPORT_BUFFER_BYTES = 64 * 1024;
+    private static final int MAX_BULK_CREATE = 100_000;
+    
     /**
      * Service layer dependency để handle business logic
      * 
@@ -69,6 +94,66 @@ public class AccountController {
     @Autowired
     private AccountService accountService;
 
+    /**
+     * Chọn strategy chuyển tiền cho từng request (xem {@link TransferStrategy})
+     */
+    @Autowired
+    private TransferExecutor transferExecutor;
+
+    @Autowired
+    private TransferMetrics transferMetrics;
+
+    /**
+     * Retry khi optimistic lock conflict (xem {@link Account#getVersion()})
+     */
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+
+    /**
+     * Striped in-JVM locks - serialize requests trên cùng account trước khi lấy DB connection
+     */
+    @Autowired
+    private AccountLockManager lockManager;
+
+    /**
+     * Idempotency-Key store - request gửi lại trả response đã lưu thay vì chuyển tiền lần nữa
+     */
+    @Autowired
+    private IdempotencyStore idempotencyStore;
+
+    /**
+     * Bounded queue + worker pool cho async transfers
+     */
+    @Autowired
+    private AsyncTransferService asyncTransferService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    /**
+     * Hibernate second-level cache và query cache metrics
+     */
+    @Autowired
+    private SecondLevelCacheStatistics secondLevelCacheStatistics;
+
+    /**
+     * Top accounts theo số dư, giữ trong memory
+     */
+    @Autowired
+    private AccountLeaderboard accountLeaderboard;
+
+    /**
+     * Aggregates số dư toàn hệ thống, cập nhật sau mỗi commit
+     */
+    @Autowired
+    private AccountStatistics accountStatistics;
+
+    /**
+     * Jackson ObjectMapper của Spring MVC - serialize accounts khi export NDJSON
+     */
+    @Autowired
+    private ObjectMapper objectMapper;
+
     /**
      * Tạo tài khoản mới
      * 
@@ -122,6 +207,52 @@ public class AccountController {
         }
     }
 
+    /**
+     * Tạo nhiều tài khoản trong một request - BULK CREATE ENDPOINT
+     * 
+     * <p>Tất cả accounts được tạo trong một transaction với JDBC batch INSERTs, thay vì một
+     * HTTP call + một INSERT round trip cho mỗi account. Một account không hợp lệ thì
+     * không account nào được tạo.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/accounts/bulk
+     * Content-Type: application/json
+     * 
+     * [
+     *   {"owner": "Nguyen Van A", "balance": 1000.0},
+     *   {"owner": "Tran Thi B", "balance": 500.0}
+     * ]
+     * </pre>
+     * 
+     * <h4>Response Example:</h4>
+     * <pre>
+     * HTTP 200 OK
+     * {"created": 2, "ids": [51, 52]}
+     * </pre>
+     * 
+     * @param accounts Danh sách accounts (JSON array, tối đa 100000)
+     * @return Số accounts và IDs theo thứ tự request, hoặc 400 nếu danh sách không hợp lệ
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<Map<String, Object>> createAccounts(@RequestBody List<Account> accounts) {
+        logger.info("Received bulk create request: {} accounts", accounts == null ? 0 : accounts.size());
+        
+        if (accounts != null && accounts.size() > MAX_BULK_CREATE) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            List<Long> ids = accountService.createAccounts(accounts);
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("created", ids.size());
+            body.put("ids", ids);
+            return ResponseEntity.ok(body);
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid bulk create request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build(); // 400 Bad Request
+        }
+    }
+
     /**
      * Lấy thông tin tài khoản theo ID
      * 
@@ -169,19 +300,21 @@ public class AccountController {
     }
 
     /**
-     * Lấy danh sách tất cả tài khoản
+     * Lấy danh sách tài khoản theo trang (keyset pagination)
      * 
-     * <p>HTTP GET endpoint để retrieve tất cả accounts trong hệ thống.
-     * Trong production, nên implement pagination để tránh load quá nhiều data.</p>
+     * <p>HTTP GET endpoint trả về tối đa {@code limit} accounts có ID lớn hơn {@code afterId},
+     * theo ID tăng dần. Khi trang đầy, header {@code Link: <...>; rel="next"} chứa URL của
+     * trang tiếp theo. Để lấy toàn bộ bảng, dùng {@code GET /api/accounts/export}.</p>
      * 
      * <h4>Request Example:</h4>
      * <pre>
-     * GET /api/accounts
+     * GET /api/accounts?afterId=0&amp;limit=2
      * </pre>
      * 
      * <h4>Response Example:</h4>
      * <pre>
      * HTTP 200 OK
+     * Link: &lt;/api/accounts?afterId=2&amp;limit=2&gt;; rel="next"
      * [
      *   {
      *     "id": 1,
@@ -196,16 +329,234 @@ public class AccountController {
      * ]
      * </pre>
      * 
-     * @return List của tất cả accounts (Spring tự động serialize thành JSON array)
+     * @param afterId ID cuối cùng của trang trước (bỏ trống cho trang đầu)
+     * @param limit Số accounts tối đa (1..1000, mặc định 100)
+     * @return Trang accounts, hoặc 400 nếu limit không hợp lệ
      */
     @GetMapping
-    public List<Account> getAllAccounts() {
-        logger.debug("Received request to get all accounts");
+    public ResponseEntity<List<Account>> getAllAccounts(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        logger.debug("Received request to get accounts after ID {} (limit {})", afterId, limit);
         
-        List<Account> accounts = accountService.getAllAccounts();
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<Account> accounts = accountService.getAccountsPage(afterId, limit);
         logger.debug("Returning {} accounts", accounts.size());
         
-        return accounts; // Spring tự động wrap trong ResponseEntity và serialize thành JSON
+        if (accounts.size() < limit) {
+            return ResponseEntity.ok(accounts); // Trang cuối
+        }
+        Long lastId = accounts.get(accounts.size() - 1).getId();
+        return ResponseEntity.ok()
+            .header(HttpHeaders.LINK, "</api/accounts?afterId=" + lastId + "&limit=" + limit + ">; rel=\"next\"")
+            .body(accounts);
+    }
+
+    /**
+     * Lấy tài khoản theo range số dư, theo trang
+     * 
+     * <p>Range scan trên index của cột balance, không đếm cả range. Khi còn trang sau,
+     * header {@code Link: <...>; rel="next"} chứa URL của trang tiếp theo.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/balance-range?min=100&amp;max=5000&amp;page=0&amp;size=50
+     * </pre>
+     * 
+     * @param min Số dư tối thiểu
+     * @param max Số dư tối đa
+     * @param page Số trang (0-based, mặc định 0)
+     * @param size Kích thước trang (1..1000, mặc định 100)
+     * @return Trang accounts theo số dư tăng dần, hoặc 400 nếu tham số không hợp lệ
+     */
+    @GetMapping("/balance-range")
+    public ResponseEntity<List<Account>> getAccountsByBalanceRange(
+            @RequestParam Double min,
+            @RequestParam Double max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE || min > max) {
+            return ResponseEntity.badRequest().build();
+        }
+        Slice<Account> slice = accountService.getAccountsByBalanceRange(min, max, page, size);
+        return pageResponse(slice, "/api/accounts/balance-range?min=" + min + "&max=" + max, page, size);
+    }
+
+    /**
+     * Lấy tài khoản có số dư lớn hơn hoặc bằng min, theo trang (số dư giảm dần)
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/balance-at-least?min=10000&amp;size=20
+     * </pre>
+     * 
+     * @param min Số dư tối thiểu
+     * @param page Số trang (0-based, mặc định 0)
+     * @param size Kích thước trang (1..1000, mặc định 100)
+     * @return Trang accounts, hoặc 400 nếu tham số không hợp lệ
+     */
+    @GetMapping("/balance-at-least")
+    public ResponseEntity<List<Account>> getAccountsWithBalanceAtLeast(
+            @RequestParam Double min,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().build();
+        }
+        Slice<Account> slice = accountService.getAccountsWithBalanceAtLeast(min, page, size);
+        return pageResponse(slice, "/api/accounts/balance-at-least?min=" + min, page, size);
+    }
+
+    private static ResponseEntity<List<Account>> pageResponse(Slice<Account> slice, String baseUrl, int page, int size) {
+        if (!slice.hasNext()) {
+            return ResponseEntity.ok(slice.getContent()); // Trang cuối
+        }
+        return ResponseEntity.ok()
+            .header(HttpHeaders.LINK, "<" + baseUrl + "&page=" + (page + 1) + "&size=" + size + ">; rel=\"next\"")
+            .body(slice.getContent());
+    }
+
+    /**
+     * Top accounts có số dư cao nhất (tổng số dư thật, kể cả shards và ledger)
+     * 
+     * <p>Đọc từ {@link AccountLeaderboard} trong memory - phản ánh mọi transfer đã commit,
+     * không chạy query sắp xếp trên database mỗi lần poll.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/leaderboard?limit=3
+     * </pre>
+     * 
+     * <h4>Response Example:</h4>
+     * <pre>
+     * HTTP 200 OK
+     * [
+     *   {"accountId": 7, "owner": "Merchant", "balanceMinor": 125000000, "balance": 1250000.0},
+     *   {"accountId": 1, "owner": "Nguyen Van A", "balanceMinor": 100000, "balance": 1000.0},
+     *   {"accountId": 2, "owner": "Tran Thi B", "balanceMinor": 50000, "balance": 500.0}
+     * ]
+     * </pre>
+     * 
+     * @param limit Số accounts (1..capacity, mặc định 10)
+     * @return Top accounts theo số dư giảm dần, hoặc 400 nếu limit không hợp lệ
+     */
+    @GetMapping("/leaderboard")
+    public ResponseEntity<List<LeaderboardEntry>> getLeaderboard(@RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > accountLeaderboard.getCapacity()) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(accountLeaderboard.top(limit));
+    }
+
+    /**
+     * Metrics của leaderboard
+     * 
+     * <p>Kích thước board, cận trên số dư của các accounts ngoài board, số lần đọc,
+     * refresh (đọc lại accounts vừa thay đổi) và load lại từ database.</p>
+     * 
+     * @return Metrics của leaderboard
+     */
+    @GetMapping("/leaderboard/metrics")
+    public Map<String, Object> getLeaderboardMetrics() {
+        return accountLeaderboard.snapshot();
+    }
+
+    /**
+     * Thống kê số dư toàn hệ thống
+     * 
+     * <p>Đọc từ {@link AccountStatistics} - aggregates được cập nhật sau mỗi create, update,
+     * delete và transfer đã commit, không quét bảng. {@code conservation.conserved = false}
+     * nghĩa là có transaction đã commit làm thay đổi tổng tiền mà không phải create/delete/update.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/stats
+     * GET /api/accounts/stats?owner=Nguyen%20Van%20A
+     * GET /api/accounts/stats?verify=true
+     * </pre>
+     * 
+     * <h4>Response Example:</h4>
+     * <pre>
+     * HTTP 200 OK
+     * {
+     *   "ready": true,
+     *   "accounts": 2,
+     *   "totalBalance": 1500.0,
+     *   "minBalance": 500.0,
+     *   "maxBalance": 1000.0,
+     *   "averageBalance": 750.0,
+     *   "owners": 2,
+     *   "conservation": {"conserved": true, "transactions": 12, "violations": 0, ...}
+     * }
+     * </pre>
+     * 
+     * @param owner Chỉ trả về aggregates của owner này (optional)
+     * @param verify true để đối chiếu thêm với tổng tính từ database (quét cả bảng)
+     * @return Aggregates toàn hệ thống hoặc của owner
+     */
+    @GetMapping("/stats")
+    public Map<String, Object> getAccountStats(
+            @RequestParam(required = false) String owner,
+            @RequestParam(defaultValue = "false") boolean verify) {
+        if (owner != null) {
+            return accountStatistics.ownerSnapshot(owner);
+        }
+        Map<String, Object> stats = accountStatistics.snapshot();
+        if (verify) {
+            stats.put("verification", accountStatistics.verify());
+        }
+        return stats;
+    }
+
+    /**
+     * Export tất cả tài khoản dạng NDJSON (một JSON object mỗi dòng)
+     * 
+     * <p>Accounts được đọc qua một database cursor trong read-only transaction và ghi
+     * thẳng ra response ngay khi đọc - memory của server không phụ thuộc số accounts.
+     * Chạy trên request thread (không dùng async), nên không bị async request timeout.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/export
+     * </pre>
+     * 
+     * <h4>Response Example:</h4>
+     * <pre>
+     * HTTP 200 OK
+     * Content-Type: application/x-ndjson
+     * {"id":1,"owner":"Nguyen Van A","balance":1000.0,...}
+     * {"id":2,"owner":"Tran Thi B","balance":500.0,...}
+     * </pre>
+     * 
+     * @param response HTTP response để ghi từng dòng
+     * @throws IOException nếu client ngắt kết nối
+     */
+    @GetMapping(value = "/export", produces = NDJSON)
+    public void exportAccounts(HttpServletResponse response) throws IOException {
+        logger.info("Received request to export all accounts");
+        response.setContentType(NDJSON);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        
+        // Không đóng/flush response sau mỗi account - BufferedOutputStream quyết định khi nào ghi
+        ObjectWriter writer = objectMapper.writerFor(Account.class)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        OutputStream out = new BufferedOutputStream(response.getOutputStream(), EXPORT_BUFFER_BYTES);
+        try {
+            accountService.exportAccounts(account -> {
+                try {
+                    writer.writeValue(out, account);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            out.flush();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
     }
 
     /**
@@ -225,6 +576,9 @@ public class AccountController {
      * }
      * </pre>
      * 
+     * <p>Nếu account bị transaction khác update đồng thời (optimistic lock conflict),
+     * update được chạy lại với retry budget; hết budget thì trả về 409 Conflict.</p>
+     * 
      * @param id Account ID từ URL path
      * @param account Updated account data từ request body
      * @return ResponseEntity với updated account
@@ -235,11 +589,17 @@ public class AccountController {
         logger.info("Received request to update account ID: {} with data: {}", id, account);
         
         try {
-            Account updatedAccount = accountService.updateAccount(id, account.getOwner(), account.getBalance());
+            // Lock theo từng lần thử: không giữ stripe trong lúc backoff giữa các lần retry
+            Account updatedAccount = retryExecutor.execute("updateAccount", () -> lockManager.withLock(id,
+                    () -> accountService.updateAccount(id, account.getOwner(), account.getBalance())));
             
             logger.info("Successfully updated account ID: {}", id);
             return ResponseEntity.ok(updatedAccount);
             
+        } catch (ConcurrencyFailureException e) {
+            logger.warn("Update conflict for account ID: {}, error: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT).build(); // 409 Conflict
+            
         } catch (RuntimeException e) {
             logger.warn("Failed to update account ID: {}, error: {}", id, e.getMessage());
             throw e; // Spring sẽ convert thành appropriate HTTP error status
@@ -299,6 +659,9 @@ public class AccountController {
      * 
      * // Failed transfer (insufficient balance):
      * POST /api/accounts/transfer?fromId=2&toId=1&amount=10000
+     * 
+     * // Chọn strategy (mặc định ENTITY):
+     * POST /api/accounts/transfer?fromId=1&toId=2&amount=200&strategy=CONDITIONAL_UPDATE
      * </pre>
      * 
      * <h4>Response Examples:</h4>
@@ -314,30 +677,55 @@ public class AccountController {
      * 
      * <h4>Error Scenarios:</h4>
      * <ul>
+     *   <li>Lock wait timeout / concurrency conflict → 409 Conflict</li>
      *   <li>Source account không tồn tại → 400 Bad Request</li>
      *   <li>Destination account không tồn tại → 400 Bad Request</li>
      *   <li>Insufficient balance → 400 Bad Request</li>
      *   <li>Invalid amount (≤ 0) → 400 Bad Request</li>
      *   <li>Same fromId và toId → 400 Bad Request</li>
+     *   <li>Idempotency-Key đang được xử lý bởi request khác → 409 Conflict</li>
+     *   <li>Idempotency-Key đã dùng với tham số khác → 422 Unprocessable Entity</li>
      * </ul>
      * 
      * @param fromId ID của tài khoản nguồn (query parameter)
      * @param toId ID của tài khoản đích (query parameter)
      * @param amount Số tiền cần chuyển (query parameter)
+     * @param strategy Strategy chuyển tiền (query parameter, mặc định ENTITY)
+     * @param idempotencyKey Header Idempotency-Key (tùy chọn) - gửi lại cùng key không chuyển tiền lần nữa
      * @return ResponseEntity với success message hoặc error message
      */
     @PostMapping("/transfer")
     public ResponseEntity<String> transfer(
             @RequestParam Long fromId, 
             @RequestParam Long toId, 
-            @RequestParam Double amount) {
+            @RequestParam Double amount,
+            @RequestParam(defaultValue = "ENTITY") TransferStrategy strategy,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         
-        logger.info("Received transfer request: {} -> {}, amount: {}", fromId, toId, amount);
+        if (idempotencyKey == null) {
+            return executeTransfer(fromId, toId, amount, strategy);
+        }
+        
+        // Retry cùng key trả response đã lưu, không chạy transfer lần nữa
+        String fingerprint = fromId + ":" + toId + ":" + amount + ":" + strategy;
+        try {
+            IdempotentResponse response = idempotencyStore.execute(idempotencyKey, fingerprint, () -> {
+                ResponseEntity<String> result = executeTransfer(fromId, toId, amount, strategy);
+                return new IdempotentResponse(result.getStatusCode().value(), result.getBody());
+            });
+            return ResponseEntity.status(response.getStatus()).body(response.getBody());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid parameters: " + e.getMessage()); // 400 Bad Request
+        }
+    }
+    
+    private ResponseEntity<String> executeTransfer(Long fromId, Long toId, Double amount, TransferStrategy strategy) {
+        logger.info("Received transfer request: {} -> {}, amount: {}, strategy: {}", fromId, toId, amount, strategy);
         
         try {
             // Delegate transaction logic cho service layer
             // Service method có @Transactional annotation để handle transaction
-            accountService.transfer(fromId, toId, amount);
+            transferExecutor.transfer(fromId, toId, amount, strategy);
             
             String successMessage = String.format("Transfer successful: %.2f transferred from account %d to account %d", 
                                                  amount, fromId, toId);
@@ -350,6 +738,13 @@ public class AccountController {
             logger.warn("Invalid transfer parameters: {}", e.getMessage());
             return ResponseEntity.badRequest().body("Invalid parameters: " + e.getMessage()); // 400 Bad Request
             
+        } catch (ConcurrencyFailureException e) {
+            // Lock wait timeout, deadlock... - client có thể retry
+            logger.warn("Transfer conflict: {} -> {}, amount: {}, strategy: {}, error: {}", 
+                        fromId, toId, amount, strategy, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                                 .body("Transfer conflict, please retry: " + e.getMessage()); // 409 Conflict
+            
         } catch (RuntimeException e) {
             // Business logic errors (insufficient balance, account not found, etc.)
             logger.error("Transfer failed: {} -> {}, amount: {}, error: {}", 
@@ -365,6 +760,246 @@ public class AccountController {
         }
     }
     
+    /**
+     * Submit transfer bất đồng bộ - ASYNC TRANSFER ENDPOINT
+     * 
+     * <p>Chỉ đưa transfer vào queue rồi trả 202 Accepted ngay, Tomcat thread không phải
+     * chờ transaction. Worker pool chạy transfer; client polling
+     * {@code GET /api/accounts/transfer/{id}} để biết kết quả.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/accounts/transfer/async?fromId=1&amp;toId=2&amp;amount=200
+     * </pre>
+     * 
+     * <h4>Response Examples:</h4>
+     * <pre>
+     * // Accepted:
+     * HTTP 202 Accepted
+     * Location: /api/accounts/transfer/3f0c...
+     * {"id": "3f0c...", "state": "QUEUED", ...}
+     * 
+     * // Queue đầy:
+     * HTTP 429 Too Many Requests
+     * </pre>
+     * 
+     * @param fromId ID của tài khoản nguồn
+     * @param toId ID của tài khoản đích
+     * @param amount Số tiền cần chuyển
+     * @param strategy Strategy chuyển tiền (mặc định ENTITY)
+     * @return 202 với trạng thái QUEUED, hoặc 429 nếu queue đầy
+     */
+    @PostMapping("/transfer/async")
+    public ResponseEntity<AsyncTransferStatus> submitAsyncTransfer(
+            @RequestParam Long fromId, 
+            @RequestParam Long toId, 
+            @RequestParam Double amount,
+            @RequestParam(defaultValue = "ENTITY") TransferStrategy strategy) {
+        
+        try {
+            AsyncTransferStatus status = asyncTransferService.submit(fromId, toId, amount, strategy);
+            logger.info("Queued async transfer {}: {} -> {}, amount: {}", status.getId(), fromId, toId, amount);
+            return ResponseEntity.accepted()
+                                 .location(URI.create("/api/accounts/transfer/" + status.getId()))
+                                 .body(status); // 202 Accepted
+        } catch (RejectedExecutionException e) {
+            logger.warn("Async transfer queue full, rejecting: {} -> {}, amount: {}", fromId, toId, amount);
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).build(); // 429 Too Many Requests
+        }
+    }
+
+    /**
+     * Trạng thái của async transfer
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/transfer/3f0c...
+     * </pre>
+     * 
+     * @param id Transfer ID trả về từ POST /transfer/async
+     * @return Trạng thái (QUEUED, RUNNING, SUCCEEDED, FAILED), hoặc 404
+     */
+    @GetMapping("/transfer/{id}")
+    public ResponseEntity<AsyncTransferStatus> getAsyncTransfer(@PathVariable String id) {
+        return asyncTransferService.getStatus(id)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Metrics của async transfer pool: queue, workers, submitted/rejected/succeeded/failed
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/transfer/async/metrics
+     * </pre>
+     * 
+     * @return Counters của pool
+     */
+    @GetMapping("/transfer/async/metrics")
+    public Map<String, Object> getAsyncTransferMetrics() {
+        return asyncTransferService.snapshot();
+    }
+
+    /**
+     * Thống kê theo từng transfer strategy
+     * 
+     * <p>Attempts, successes, failures, lock wait timeouts và thời gian trung bình
+     * của mỗi strategy - dùng để so sánh các strategy dưới cùng một tải.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/transfer/metrics
+     * </pre>
+     * 
+     * @return Map strategy → counters
+     */
+    @GetMapping("/transfer/metrics")
+    public Map<String, Map<String, Object>> getTransferMetrics() {
+        return transferMetrics.snapshot();
+    }
+
+    /**
+     * Thống kê optimistic lock retries theo operation
+     * 
+     * <p>Calls, conflicts, retries và give-ups của transfer (strategy OPTIMISTIC) và
+     * updateAccount - cho biết contention đang tập trung ở đâu.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/retry/metrics
+     * </pre>
+     * 
+     * @return Map operation → counters
+     */
+    @GetMapping("/retry/metrics")
+    public Map<String, Map<String, Long>> getRetryMetrics() {
+        return retryExecutor.snapshot();
+    }
+
+    /**
+     * Wait-time metrics của striped account locks
+     * 
+     * <p>Số lần acquire, số lần phải chờ, thời gian chờ trung bình/tối đa và queue length
+     * hiện tại của từng stripe - stripe có wait time cao tương ứng với account nóng.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/locks/metrics
+     * </pre>
+     * 
+     * @return Tổng quan và metrics theo stripe
+     */
+    @GetMapping("/locks/metrics")
+    public Map<String, Object> getLockMetrics() {
+        return lockManager.snapshot();
+    }
+
+    /**
+     * Metrics của Idempotency-Key store
+     * 
+     * <p>Executions (transfer thật sự chạy), replays (trả response đã lưu), databaseHits
+     * (key chỉ còn trong database), inProgressRejects, mismatches, evictions và size.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/idempotency/metrics
+     * </pre>
+     * 
+     * @return Counters của store
+     */
+    @GetMapping("/idempotency/metrics")
+    public Map<String, Object> getIdempotencyMetrics() {
+        return idempotencyStore.snapshot();
+    }
+
+    /**
+     * Metrics của account read-through cache
+     * 
+     * <p>Size, hits, misses, hitRatio, evictions (vượt max-size), expirations (hết TTL),
+     * invalidations (sau commit) và staleLoadsDiscarded (load trùng lúc với invalidation)
+     * cho cache accounts và cache owners.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/cache/metrics
+     * </pre>
+     * 
+     * @return Metrics theo cache
+     */
+    @GetMapping("/cache/metrics")
+    public Map<String, Object> getCacheMetrics() {
+        return accountCache.snapshot();
+    }
+
+    /**
+     * Metrics của Hibernate second-level cache (region account) và query cache
+     * (findByOwner, countByOwner, findAccountsByBalanceRange)
+     * 
+     * <p>Hits, misses, puts theo region và {@code prepareStatementCount} - số round trips
+     * tới database kể từ lúc khởi động.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/accounts/cache/second-level/metrics
+     * </pre>
+     * 
+     * @return Metrics tổng hợp và theo region
+     */
+    @GetMapping("/cache/second-level/metrics")
+    public Map<String, Object> getSecondLevelCacheMetrics() {
+        return secondLevelCacheStatistics.snapshot();
+    }
+
+    /**
+     * Chuyển tiền hàng loạt - BATCH TRANSFER ENDPOINT
+     * 
+     * <p>Dành cho các job như trả lương, nơi có hàng nghìn legs cùng lúc. Thay vì
+     * một HTTP call + một transaction cho mỗi leg, toàn bộ legs được gửi trong một
+     * request và được xử lý theo chunk với JDBC batching.</p>
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/accounts/transfer/batch?commitInterval=500
+     * Content-Type: application/json
+     * 
+     * [
+     *   {"fromId": 1, "toId": 2, "amount": 100.0},
+     *   {"fromId": 1, "toId": 3, "amount": 250.0}
+     * ]
+     * </pre>
+     * 
+     * <h4>Response Example:</h4>
+     * <pre>
+     * HTTP 200 OK
+     * [
+     *   {"index": 0, "fromId": 1, "toId": 2, "amount": 100.0, "success": true, "message": "Transfer successful"},
+     *   {"index": 1, "fromId": 1, "toId": 3, "amount": 250.0, "success": false, "message": "Insufficient balance. ..."}
+     * ]
+     * </pre>
+     * 
+     * @param legs Danh sách legs (JSON array)
+     * @param commitInterval Số legs mỗi transaction (optional, mặc định theo cấu hình)
+     * @return Kết quả từng leg, hoặc 400 nếu batch rỗng hoặc có leg null / thiếu fromId, toId, amount
+     */
+    @PostMapping("/transfer/batch")
+    public ResponseEntity<List<TransferLegResult>> transferBatch(
+            @RequestBody List<TransferLeg> legs,
+            @RequestParam(required = false) Integer commitInterval) {
+        
+        logger.info("Received batch transfer request: {} legs, commitInterval: {}", 
+                    legs == null ? 0 : legs.size(), commitInterval);
+        
+        try {
+            List<TransferLegResult> results = accountService.transferBatch(legs, commitInterval);
+            return ResponseEntity.ok(results);
+            
+        } catch (IllegalArgumentException e) {
+            logger.warn("Invalid batch transfer request: {}", e.getMessage());
+            return ResponseEntity.badRequest().build(); // 400 Bad Request
+        }
+    }
+    
     /**
      * Lấy danh sách tài khoản theo chủ sở hữu
      * 
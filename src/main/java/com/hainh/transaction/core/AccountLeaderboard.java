@@ -0,0 +1,328 @@
+package com.hainh.transaction.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * AccountLeaderboard - Top-N accounts có số dư cao nhất, giữ trong memory
+ *
+ * <p>Dashboards poll top-N liên tục; thay vì mỗi lần poll là một query sắp xếp trên
+ * database, {@link ConcurrentSkipListSet} giữ {@code capacity} accounts đứng đầu theo
+ * (số dư giảm dần, ID tăng dần). Readers duyệt skip list không cần lock; chỉ một writer
+ * (dưới {@code writeLock}) cập nhật.</p>
+ *
+ * <h3>Cập nhật từ các commit:</h3>
+ * <ul>
+ *   <li>{@link AccountCache} báo account ID sau mỗi commit thay đổi account (transfer,
+ *       update, create, delete, shard/ledger entries) - ID chỉ được đánh dấu</li>
+ *   <li>Định kỳ (và trước mỗi lần đọc) các IDs đã đánh dấu được đọc lại từ primary bằng một
+ *       query IN - số dư đọc lại luôn là bản đã commit mới nhất, nên thứ tự các commit
+ *       không quan trọng</li>
+ * </ul>
+ *
+ * <h3>Chỉ giữ top {@code capacity}:</h3>
+ * <p>{@code offBoardBound} là cận trên số dư của mọi account không nằm trong board. Top-N
+ * chính xác khi entry thứ N vẫn &ge; cận này; nếu không (account đầu bảng bị rút tiền xuống
+ * dưới cận), board được load lại từ database qua idx_account_balance.</p>
+ *
+ * <p><strong>Lưu ý:</strong> Ghi trực tiếp bằng JDBC (seeding của benchmarks) không đi qua
+ * {@link AccountCache} nên chỉ được thấy ở lần load lại tiếp theo.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class AccountLeaderboard {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountLeaderboard.class);
+
+    private static final int REFRESH_BATCH_SIZE = 500;
+
+    private static final Comparator<LeaderboardEntry> RANKING =
+        Comparator.comparingLong(LeaderboardEntry::getBalanceMinor).reversed()
+                  .thenComparingLong(LeaderboardEntry::getAccountId);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountService accountService;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private final int capacity;
+
+    private final ConcurrentSkipListSet<LeaderboardEntry> board = new ConcurrentSkipListSet<>(RANKING);
+    private final Set<Long> changed = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final Map<Long, LeaderboardEntry> onBoard = new HashMap<>(); // guarded by writeLock
+    private volatile long offBoardBound = Long.MIN_VALUE;
+    private volatile boolean loaded;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder reloads = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshedAccounts = new LongAdder();
+
+    public AccountLeaderboard(@Value("${account.leaderboard.capacity:1000}") int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Leaderboard capacity must be positive");
+        }
+        this.capacity = capacity;
+    }
+
+    @PostConstruct
+    void registerChangeListener() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        accountCache.addChangeListener(changed::add);
+    }
+
+    /**
+     * Số accounts tối đa một lần đọc được
+     *
+     * @return capacity của board
+     */
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * Top-N accounts có số dư cao nhất
+     *
+     * <p>Phản ánh mọi commit đã xong trước lời gọi. Trường hợp thường gặp chỉ duyệt skip
+     * list; database chỉ được đọc cho các accounts vừa thay đổi hoặc khi phải load lại.</p>
+     *
+     * @param limit Số accounts (1..capacity)
+     * @return Tối đa limit entries, số dư giảm dần
+     */
+    public List<LeaderboardEntry> top(int limit) {
+        if (limit < 1 || limit > capacity) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + capacity);
+        }
+        reads.increment();
+        if (!loaded || !changed.isEmpty()) {
+            withWriteLock(this::applyChanges);
+        }
+        List<LeaderboardEntry> result = firstEntries(limit);
+        if (!isExact(result, limit)) {
+            withWriteLock(() -> {
+                reload();
+                applyChanges();
+            });
+            result = firstEntries(limit);
+        }
+        return result;
+    }
+
+    /**
+     * Định kỳ xử lý các accounts đã thay đổi để lần đọc sau không phải làm
+     */
+    @Scheduled(fixedDelayString = "${account.leaderboard.refresh-interval-ms:1000}")
+    public void refresh() {
+        if (loaded && !changed.isEmpty()) {
+            withWriteLock(this::applyChanges);
+        }
+    }
+
+    private void withWriteLock(Runnable work) {
+        writeLock.lock();
+        try {
+            work.run();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Duyệt skip list không lock - writer thêm entry mới trước khi bỏ entry cũ, nên
+     * một account có thể xuất hiện hai lần trong chốc lát
+     */
+    private List<LeaderboardEntry> firstEntries(int limit) {
+        List<LeaderboardEntry> result = new ArrayList<>(limit);
+        Set<Long> seen = new HashSet<>();
+        Iterator<LeaderboardEntry> it = board.iterator();
+        while (it.hasNext() && result.size() < limit) {
+            LeaderboardEntry entry = it.next();
+            if (seen.add(entry.getAccountId())) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Kết quả chính xác nếu không account nào ngoài board có thể xếp trên entry cuối
+     */
+    private boolean isExact(List<LeaderboardEntry> result, int limit) {
+        long bound = offBoardBound;
+        if (bound == Long.MIN_VALUE) {
+            return true; // Board chứa mọi account
+        }
+        // Bằng cận vẫn coi là chính xác: chỉ thứ tự ID giữa các số dư bằng nhau có thể khác
+        return result.size() == limit && result.get(limit - 1).getBalanceMinor() >= bound;
+    }
+
+    /**
+     * Load lại board từ database - top capacity accounts thường theo idx_account_balance,
+     * cộng tất cả accounts đã shard/ledger (số dư row không phải tổng số dư)
+     */
+    private void reload() {
+        // IDs đánh dấu trước thời điểm này đã nằm trong lần đọc dưới đây
+        changed.clear();
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        List<Long> specialIds = readOnlyTransaction.execute(status -> {
+            for (AccountSummary summary : accountRepository.findTopPlainByBalance(PageRequest.of(0, capacity))) {
+                entries.add(LeaderboardEntry.of(summary.id(), summary.owner(), summary.balanceMinor()));
+            }
+            return accountRepository.findShardedOrLedgerAccountIds();
+        });
+        // Mọi account thường ngoài danh sách có số dư <= account thường cuối danh sách
+        long bound = entries.size() == capacity ? entries.get(entries.size() - 1).getBalanceMinor() : Long.MIN_VALUE;
+        for (Long id : specialIds) {
+            accountService.getAccount(id).ifPresent(account ->
+                entries.add(LeaderboardEntry.of(account.getId(), account.getOwner(), account.getBalanceMinor())));
+        }
+
+        board.clear();
+        onBoard.clear();
+        offBoardBound = bound;
+        for (LeaderboardEntry entry : entries) {
+            board.add(entry);
+            onBoard.put(entry.getAccountId(), entry);
+        }
+        trim();
+        loaded = true;
+        reloads.increment();
+        logger.debug("Leaderboard reloaded: {} entries, {} sharded/ledger accounts", board.size(), specialIds.size());
+    }
+
+    /**
+     * Đọc lại số dư của các accounts đã đánh dấu và cập nhật board
+     */
+    private void applyChanges() {
+        if (!loaded) {
+            reload();
+        }
+        List<Long> ids = new ArrayList<>(REFRESH_BATCH_SIZE);
+        Iterator<Long> it = changed.iterator();
+        while (it.hasNext()) {
+            ids.add(it.next());
+            it.remove();
+            if (ids.size() == REFRESH_BATCH_SIZE || !it.hasNext()) {
+                applyBatch(ids);
+                ids.clear();
+            }
+        }
+    }
+
+    private void applyBatch(List<Long> ids) {
+        Map<Long, LeaderboardEntry> fresh = new HashMap<>();
+        List<Long> specialIds = new ArrayList<>();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (AccountSummary summary : accountRepository.findSummariesByIds(ids)) {
+                if (new AccountBalance(summary.balanceMinor(), summary.shardCount(), summary.ledgerMode()).isRowBalanceTotal()) {
+                    fresh.put(summary.id(), LeaderboardEntry.of(summary.id(), summary.owner(), summary.balanceMinor()));
+                } else {
+                    specialIds.add(summary.id());
+                }
+            }
+        });
+        for (Long id : specialIds) {
+            accountService.getAccount(id).ifPresent(account ->
+                fresh.put(id, LeaderboardEntry.of(id, account.getOwner(), account.getBalanceMinor())));
+        }
+
+        for (Long id : ids) {
+            update(id, fresh.get(id));
+        }
+        trim();
+        refreshes.increment();
+        refreshedAccounts.add(ids.size());
+    }
+
+    /**
+     * Đặt entry mới cho account (null nếu account đã bị xóa)
+     */
+    private void update(Long id, LeaderboardEntry entry) {
+        LeaderboardEntry previous = onBoard.remove(id);
+        boolean enters = entry != null && entry.getBalanceMinor() >= offBoardBound;
+        if (previous != null && (!enters || RANKING.compare(previous, entry) == 0)) {
+            board.remove(previous);
+            previous = null;
+        }
+        if (enters) {
+            // Thêm trước, bỏ entry cũ sau: readers không bao giờ thấy account biến mất
+            board.add(entry);
+            onBoard.put(id, entry);
+            if (previous != null) {
+                board.remove(previous);
+            }
+        }
+        // Account rời board (hoặc chưa từng vào) có số dư < offBoardBound - cận không đổi
+    }
+
+    /**
+     * Bỏ các entries cuối vượt capacity, nâng cận trên của phần ngoài board
+     */
+    private void trim() {
+        while (board.size() > capacity) {
+            LeaderboardEntry last = board.pollLast();
+            if (last == null) {
+                break;
+            }
+            onBoard.remove(last.getAccountId());
+            offBoardBound = Math.max(offBoardBound, last.getBalanceMinor());
+        }
+    }
+
+    /**
+     * Metrics của leaderboard
+     *
+     * @return Kích thước, cận ngoài board, số lần đọc/refresh/load lại
+     */
+    public Map<String, Object> snapshot() {
+        long bound = offBoardBound;
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("loaded", loaded);
+        result.put("capacity", capacity);
+        result.put("size", board.size());
+        result.put("offBoardBound", bound == Long.MIN_VALUE ? null : Money.toMajor(bound));
+        result.put("pendingChanges", changed.size());
+        result.put("reads", reads.sum());
+        result.put("reloads", reloads.sum());
+        result.put("refreshes", refreshes.sum());
+        result.put("refreshedAccounts", refreshedAccounts.sum());
+        return result;
+    }
+}
@@ -0,0 +1,264 @@
+package com.hainh.transaction.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+
+/**
+ * AccountLockManager - Striped in-JVM locks theo account ID
+ *
+ * <p>Khi nhiều requests cùng chuyển tiền trên một account "nóng", mỗi request lấy một
+ * connection từ pool rồi mới chờ row lock trong database. Pool cạn dần dù phần lớn
+ * connections chỉ đang chờ. Lock manager này cho các requests trên cùng account xếp
+ * hàng trong memory TRƯỚC khi transaction bắt đầu, nên connection chỉ được lấy khi
+ * request thực sự có thể chạy, và các requests không liên quan vẫn có connection.</p>
+ *
+ * <h3>Striping:</h3>
+ * <p>Một mảng cố định {@link ReentrantLock} (số lượng là lũy thừa của 2), account ID được
+ * hash vào một stripe. Memory không tăng theo số accounts; đổi lại hai accounts khác nhau
+ * có thể trùng stripe và chờ nhau một cách không cần thiết - tăng số stripes để giảm.</p>
+ *
+ * <p><strong>Lưu ý:</strong> Chỉ serialize trong một JVM. Khi chạy nhiều instances,
+ * database locking (optimistic/pessimistic) vẫn là lớp bảo vệ chính.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class AccountLockManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountLockManager.class);
+
+    private final boolean enabled;
+    private final long acquireTimeoutMs;
+    private final int mask;
+    private final StripeLock[] locks;
+    private final StripeStats[] stats;
+
+    public AccountLockManager(
+            @Value("${account.lock.enabled:true}") boolean enabled,
+            @Value("${account.lock.stripes:64}") int stripes,
+            @Value("${account.lock.acquire-timeout-ms:30000}") long acquireTimeoutMs) {
+        // Làm tròn lên lũy thừa của 2 để chọn stripe bằng phép AND thay vì modulo
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.enabled = enabled;
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        this.mask = size - 1;
+        this.locks = new StripeLock[size];
+        this.stats = new StripeStats[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new StripeLock();
+            stats[i] = new StripeStats();
+        }
+        logger.info("Account lock manager: enabled={}, stripes={}, acquireTimeout={} ms", enabled, size, acquireTimeoutMs);
+    }
+
+    /**
+     * Chạy action khi đang giữ lock của một account
+     *
+     * @param accountId ID tài khoản (null = không lock)
+     * @param action Action cần serialize
+     * @return Kết quả của action
+     * @throws CannotAcquireLockException nếu chờ lock quá {@code account.lock.acquire-timeout-ms}
+     */
+    public <T> T withLock(Long accountId, Supplier<T> action) {
+        return withLocks(accountId, null, action);
+    }
+
+    /**
+     * Chạy action khi đang giữ lock của hai accounts
+     *
+     * <p>Stripes luôn được lock theo thứ tự index tăng dần (giống cách lock rows theo ID
+     * tăng dần) để hai transfers ngược chiều không deadlock trong JVM.</p>
+     *
+     * @param firstId ID tài khoản thứ nhất (null = bỏ qua)
+     * @param secondId ID tài khoản thứ hai (null = bỏ qua)
+     * @param action Action cần serialize
+     * @return Kết quả của action
+     * @throws CannotAcquireLockException nếu chờ lock quá {@code account.lock.acquire-timeout-ms}
+     */
+    public <T> T withLocks(Long firstId, Long secondId, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        List<Integer> ordered = new ArrayList<>(2);
+        if (firstId != null) {
+            ordered.add(stripeOf(firstId));
+        }
+        if (secondId != null) {
+            int stripe = stripeOf(secondId);
+            if (ordered.isEmpty() || ordered.get(0) != stripe) {
+                ordered.add(stripe);
+            }
+        }
+        ordered.sort(null);
+        return runLocked(ordered, action);
+    }
+
+    /**
+     * Chạy action khi đang giữ lock của nhiều accounts - dùng cho batch transfer
+     *
+     * <p>Cùng thứ tự index tăng dần như {@link #withLocks(Long, Long, Supplier)}. Với nhiều
+     * accounts, tập stripes có thể gần bằng toàn bộ mảng: mọi transfer khác phải chờ action
+     * xong, nên giữ action ngắn (một chunk, không phải cả batch).</p>
+     *
+     * @param accountIds IDs tài khoản (null bị bỏ qua)
+     * @param action Action cần serialize
+     * @return Kết quả của action
+     * @throws CannotAcquireLockException nếu chờ lock quá {@code account.lock.acquire-timeout-ms}
+     */
+    public <T> T withLocks(Collection<Long> accountIds, Supplier<T> action) {
+        if (!enabled) {
+            return action.get();
+        }
+
+        SortedSet<Integer> stripes = new TreeSet<>();
+        for (Long accountId : accountIds) {
+            if (accountId != null) {
+                stripes.add(stripeOf(accountId));
+            }
+        }
+        return runLocked(new ArrayList<>(stripes), action);
+    }
+
+    private <T> T runLocked(List<Integer> ordered, Supplier<T> action) {
+        List<ReentrantLock> acquired = new ArrayList<>(ordered.size());
+        try {
+            for (int stripe : ordered) {
+                acquire(stripe);
+                acquired.add(locks[stripe]);
+            }
+            return action.get();
+        } finally {
+            for (int i = acquired.size() - 1; i >= 0; i--) {
+                acquired.get(i).unlock();
+            }
+        }
+    }
+
+    private void acquire(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        StripeStats s = stats[stripe];
+
+        // Fast path: không có contention, không cần đo thời gian chờ
+        if (lock.tryLock()) {
+            s.acquisitions.increment();
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean locked;
+        try {
+            locked = lock.tryLock(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Interrupted while waiting for account lock stripe " + stripe, e);
+        }
+        long waited = System.nanoTime() - start;
+
+        s.contended.increment();
+        s.waitNanos.add(waited);
+        s.maxWaitNanos.accumulate(waited);
+        if (!locked) {
+            s.timeouts.increment();
+            logger.warn("Timed out after {} ms waiting for account lock stripe {}", acquireTimeoutMs, stripe);
+            throw new CannotAcquireLockException("Timed out waiting for account lock stripe " + stripe);
+        }
+        s.acquisitions.increment();
+    }
+
+    private int stripeOf(Long accountId) {
+        // Trộn bits để các IDs liên tiếp phân bố đều trên các stripes
+        long h = accountId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * Các stripes một thread đang giữ - dùng khi chẩn đoán transaction chạy lâu
+     *
+     * @param thread Thread cần kiểm tra
+     * @return Index các stripes thread đang giữ, tăng dần
+     */
+    public List<Integer> stripesHeldBy(Thread thread) {
+        List<Integer> held = new ArrayList<>();
+        for (int i = 0; i < locks.length; i++) {
+            if (locks[i].owner() == thread) {
+                held.add(i);
+            }
+        }
+        return held;
+    }
+
+    /**
+     * Snapshot wait-time metrics - chỉ liệt kê các stripes đã từng được dùng
+     *
+     * @return Tổng quan và metrics theo từng stripe
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> perStripe = new LinkedHashMap<>();
+        long totalAcquisitions = 0;
+        long totalContended = 0;
+        for (int i = 0; i < stats.length; i++) {
+            StripeStats s = stats[i];
+            long acquisitions = s.acquisitions.sum();
+            long contended = s.contended.sum();
+            totalAcquisitions += acquisitions;
+            totalContended += contended;
+            if (acquisitions == 0 && s.timeouts.sum() == 0) {
+                continue;
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("acquisitions", acquisitions);
+            map.put("contended", contended);
+            map.put("timeouts", s.timeouts.sum());
+            map.put("queueLength", locks[i].getQueueLength());
+            map.put("avgWaitMillis", contended == 0 ? 0.0 : s.waitNanos.sum() / 1_000_000.0 / contended);
+            map.put("maxWaitMillis", s.maxWaitNanos.get() / 1_000_000.0);
+            perStripe.put(String.valueOf(i), map);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("stripes", locks.length);
+        result.put("acquisitions", totalAcquisitions);
+        result.put("contended", totalContended);
+        result.put("perStripe", perStripe);
+        return result;
+    }
+
+    /**
+     * ReentrantLock cho phép đọc owner (protected trong ReentrantLock)
+     */
+    private static final class StripeLock extends ReentrantLock {
+        private static final long serialVersionUID = 1L;
+
+        Thread owner() {
+            return getOwner();
+        }
+    }
+
+    private static final class StripeStats {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder waitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+    }
+}
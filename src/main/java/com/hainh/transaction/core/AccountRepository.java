@@ -1,10 +1,20 @@
 package com.hainh.transaction.core;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -58,11 +68,55 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      * <p>Đây là derived query - Spring Data JPA sẽ tự động parse method name
      * và generate SQL query tương ứng: SELECT * FROM account WHERE owner = ?</p>
      * 
+     * <p>Kết quả được cache trong query cache (chỉ lưu IDs, entities lấy từ second-level
+     * cache); Hibernate tự bỏ qua kết quả cache khi bảng account có thay đổi đã commit
+     * sau thời điểm cache.</p>
+     * 
      * @param owner Tên chủ tài khoản
      * @return Danh sách các tài khoản của chủ sở hữu này
      */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = Account.QUERY_CACHE_REGION)
+    })
     List<Account> findByOwner(String owner);
     
+    /**
+     * Projection các cột của account - read path không hydrate entity
+     * 
+     * <p>Constructor expression: kết quả không vào persistence context, không có
+     * dirty-checking snapshot và không đi qua second-level cache.</p>
+     * 
+     * @param id Account ID
+     * @return Summary nếu account tồn tại
+     */
+    @Query("SELECT new com.hainh.transaction.core.AccountSummary(a.id, a.owner, a.balanceMinor, a.version, "
+           + "a.shardCount, a.ledgerMode) FROM Account a WHERE a.id = :id")
+    Optional<AccountSummary> findSummaryById(@Param("id") Long id);
+    
+    /**
+     * Số dư của account row kèm storage mode - Dùng cho balance checks
+     * 
+     * @param id Account ID
+     * @return Số dư (minor units), shardCount, ledgerMode nếu account tồn tại
+     */
+    @Query("SELECT new com.hainh.transaction.core.AccountBalance(a.balanceMinor, a.shardCount, a.ledgerMode) "
+           + "FROM Account a WHERE a.id = :id")
+    Optional<AccountBalance> findBalanceById(@Param("id") Long id);
+    
+    /**
+     * Lấy IDs các tài khoản của owner - Dùng bởi {@link AccountCache}
+     * 
+     * @param owner Tên chủ tài khoản
+     * @return Danh sách account IDs theo thứ tự tăng dần (query cache)
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = Account.QUERY_CACHE_REGION)
+    })
+    @Query("SELECT a.id FROM Account a WHERE a.owner = :owner ORDER BY a.id")
+    List<Long> findIdsByOwner(@Param("owner") String owner);
+    
     /**
      * Tìm tài khoản có số dư lớn hơn hoặc bằng số tiền chỉ định
      * 
@@ -73,21 +127,84 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      */
     List<Account> findByBalanceGreaterThanEqual(Double balance);
     
+    /**
+     * Tìm tài khoản có số dư lớn hơn hoặc bằng số tiền chỉ định - theo trang
+     * 
+     * <p>Range scan trên idx_account_balance theo số dư giảm dần; {@link Slice} đọc
+     * thêm một row để biết còn trang sau, không chạy COUNT trên cả range.</p>
+     * 
+     * @param balance Số dư tối thiểu
+     * @param pageable Trang và kích thước trang
+     * @return Trang tài khoản, số dư giảm dần rồi ID tăng dần
+     */
+    @Query("SELECT a FROM Account a WHERE a.balance >= :balance ORDER BY a.balance DESC, a.id")
+    Slice<Account> findByBalanceAtLeast(@Param("balance") Double balance, Pageable pageable);
+    
     /**
      * Đếm số lượng tài khoản theo chủ sở hữu
      * 
      * @param owner Tên chủ sở hữu
-     * @return Số lượng tài khoản
+     * @return Số lượng tài khoản (query cache)
      */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = Account.QUERY_CACHE_REGION)
+    })
     long countByOwner(String owner);
 
    /**
     * Đếm số lượng tài khoản có owner bắt đầu bằng một chuỗi nhất định.
     * Dùng cho ví dụ Phantom Read.
+    * 
+    * <p>Không dùng {@code LIKE :prefix%}: với pattern là bind parameter, database không
+    * biết trước prefix nên không seek được index. Điều kiện được viết lại thành range
+    * {@code owner >= prefix AND owner < prefixUpperBound} trên index của owner.</p>
+    * 
     * @param ownerPrefix Tiền tố của tên chủ sở hữu
     * @return Số lượng tài khoản
     */
-   long countByOwnerStartingWith(String ownerPrefix);
+   default long countByOwnerStartingWith(String ownerPrefix) {
+       String upperBound = prefixUpperBound(ownerPrefix);
+       return upperBound != null ? countByOwnerRange(ownerPrefix, upperBound)
+                                 : countByOwnerAtLeast(ownerPrefix);
+   }
+
+   /**
+    * Chuỗi nhỏ nhất lớn hơn mọi chuỗi bắt đầu bằng prefix: tăng ký tự cuối (bỏ các ký tự
+    * cuối đã là giá trị lớn nhất)
+    * 
+    * @param prefix Tiền tố
+    * @return Cận trên (exclusive), null nếu không có (mọi chuỗi &gt;= prefix đều khớp)
+    */
+   static String prefixUpperBound(String prefix) {
+       int end = prefix.length();
+       while (end > 0 && prefix.charAt(end - 1) == Character.MAX_VALUE) {
+           end--;
+       }
+       if (end == 0) {
+           return null;
+       }
+       return prefix.substring(0, end - 1) + (char) (prefix.charAt(end - 1) + 1);
+   }
+
+   /**
+    * Đếm accounts có owner trong [from, to) - range scan trên idx_account_owner
+    * 
+    * @param from Cận dưới (inclusive)
+    * @param to Cận trên (exclusive)
+    * @return Số lượng tài khoản
+    */
+   @Query("SELECT COUNT(a) FROM Account a WHERE a.owner >= :from AND a.owner < :to")
+   long countByOwnerRange(@Param("from") String from, @Param("to") String to);
+
+   /**
+    * Đếm accounts có owner &gt;= from
+    * 
+    * @param from Cận dưới (inclusive)
+    * @return Số lượng tài khoản
+    */
+   @Query("SELECT COUNT(a) FROM Account a WHERE a.owner >= :from")
+   long countByOwnerAtLeast(@Param("from") String from);
     
     /**
      * Custom query sử dụng JPQL để tìm tài khoản theo range số dư
@@ -97,20 +214,278 @@ public interface AccountRepository extends JpaRepository<Account, Long> {
      * 
      * @param minBalance Số dư tối thiểu
      * @param maxBalance Số dư tối đa
-     * @return Danh sách tài khoản trong range số dư
+     * @return Danh sách tài khoản trong range số dư (query cache)
      */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.cacheable", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheRegion", value = Account.QUERY_CACHE_REGION)
+    })
     @Query("SELECT a FROM Account a WHERE a.balance BETWEEN :minBalance AND :maxBalance")
     List<Account> findAccountsByBalanceRange(@Param("minBalance") Double minBalance, 
                                            @Param("maxBalance") Double maxBalance);
     
+    /**
+     * Tìm tài khoản theo range số dư - theo trang
+     * 
+     * <p>Range scan trên idx_account_balance; {@link Slice} không chạy COUNT trên cả range.</p>
+     * 
+     * @param minBalance Số dư tối thiểu
+     * @param maxBalance Số dư tối đa
+     * @param pageable Trang và kích thước trang
+     * @return Trang tài khoản, số dư tăng dần rồi ID tăng dần
+     */
+    @Query("SELECT a FROM Account a WHERE a.balance BETWEEN :minBalance AND :maxBalance ORDER BY a.balance, a.id")
+    Slice<Account> findAccountsByBalanceRange(@Param("minBalance") Double minBalance,
+                                              @Param("maxBalance") Double maxBalance,
+                                              Pageable pageable);
+    
+    /**
+     * Các accounts thường (không shard, không ledger) có số dư cao nhất - Dùng bởi
+     * {@link AccountLeaderboard}
+     * 
+     * <p>Với các accounts này số dư của row là tổng số dư thật, nên thứ tự theo
+     * idx_account_balance là thứ tự thật.</p>
+     * 
+     * @param pageable Số accounts tối đa
+     * @return Projections, số dư giảm dần rồi ID tăng dần
+     */
+    @Query("SELECT new com.hainh.transaction.core.AccountSummary(a.id, a.owner, a.balanceMinor, a.version, "
+           + "a.shardCount, a.ledgerMode) FROM Account a "
+           + "WHERE (a.shardCount IS NULL OR a.shardCount = 0) AND (a.ledgerMode IS NULL OR a.ledgerMode = false) "
+           + "ORDER BY a.balance DESC, a.id")
+    List<AccountSummary> findTopPlainByBalance(Pageable pageable);
+    
+    /**
+     * Projections của nhiều accounts theo ID - Dùng bởi {@link AccountLeaderboard}
+     * 
+     * @param ids Danh sách account IDs
+     * @return Projections của các accounts tồn tại
+     */
+    @Query("SELECT new com.hainh.transaction.core.AccountSummary(a.id, a.owner, a.balanceMinor, a.version, "
+           + "a.shardCount, a.ledgerMode) FROM Account a WHERE a.id IN :ids")
+    List<AccountSummary> findSummariesByIds(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * IDs của các accounts đã shard hoặc ở ledger mode - tổng số dư không nằm trong account row
+     * 
+     * @return Danh sách account IDs
+     */
+    @Query("SELECT a.id FROM Account a WHERE a.shardCount > 0 OR a.ledgerMode = true")
+    List<Long> findShardedOrLedgerAccountIds();
+    
     /**
      * Tìm tài khoản theo owner với case-insensitive search
      * 
-     * <p>Sử dụng JPQL với UPPER function để search không phân biệt hoa thường</p>
+     * <p>So sánh cột chuẩn hóa {@code owner_upper} (có index) với tham số được chuẩn hóa
+     * cùng cách, thay vì {@code UPPER(a.owner) = UPPER(:owner)} - hàm trên cột buộc
+     * database quét cả bảng.</p>
      * 
      * @param owner Tên chủ tài khoản (không phân biệt hoa thường)
      * @return Optional chứa account nếu tìm thấy
      */
-    @Query("SELECT a FROM Account a WHERE UPPER(a.owner) = UPPER(:owner)")
-    Optional<Account> findByOwnerIgnoreCase(@Param("owner") String owner);
-} 
\ No newline at end of file
+    default Optional<Account> findByOwnerIgnoreCase(String owner) {
+        return findByOwnerUpper(Account.normalizeOwner(owner));
+    }
+    
+    /**
+     * Tìm tài khoản theo owner đã chuẩn hóa - lookup trên idx_account_owner_upper
+     * 
+     * @param ownerUpper Owner đã qua {@link Account#normalizeOwner(String)}
+     * @return Optional chứa account nếu tìm thấy
+     */
+    Optional<Account> findByOwnerUpper(String ownerUpper);
+    
+    /**
+     * Điền owner_upper cho các rows cũ - Dùng bởi {@link OwnerUpperMigration}
+     * 
+     * @param pageable Giới hạn số rows
+     * @return Các accounts chưa có owner_upper
+     */
+    @Query("SELECT a FROM Account a WHERE a.ownerUpper IS NULL ORDER BY a.id")
+    List<Account> findWithoutOwnerUpper(Pageable pageable);
+    
+    /**
+     * Tìm tài khoản và lock row - SELECT ... FOR UPDATE
+     * 
+     * <p>PESSIMISTIC_WRITE giữ row lock đến hết transaction, các transaction khác muốn
+     * ghi (hoặc lock) cùng row phải chờ. Lock wait timeout lấy từ hint
+     * {@code jakarta.persistence.lock.timeout} của persistence context hiện tại.</p>
+     * 
+     * <p><strong>Lưu ý:</strong> Khi lock nhiều accounts, caller phải lock theo thứ tự ID
+     * tăng dần để tránh deadlock.</p>
+     * 
+     * @param id ID tài khoản
+     * @return Optional chứa account đã được lock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdForUpdate(@Param("id") Long id);
+    
+    /**
+     * Lấy số shards của các accounts mà không load entity
+     * 
+     * <p>Dùng bởi sharded transfer để biết account nào cần đi qua
+     * {@link AccountShardService}. Mỗi phần tử là [id, shardCount].</p>
+     * 
+     * @param ids Danh sách account IDs
+     * @return Danh sách [id, shardCount] của các accounts tồn tại
+     */
+    @Query("SELECT a.id, a.shardCount FROM Account a WHERE a.id IN :ids")
+    List<Object[]> findShardCounts(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Lấy storage mode của các accounts mà không load entity
+     * 
+     * <p>Dùng bởi ledger transfer. Mỗi phần tử là [id, shardCount, ledgerMode].</p>
+     * 
+     * @param ids Danh sách account IDs
+     * @return Danh sách [id, shardCount, ledgerMode] của các accounts tồn tại
+     */
+    @Query("SELECT a.id, a.shardCount, a.ledgerMode FROM Account a WHERE a.id IN :ids")
+    List<Object[]> findStorageModes(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * Lấy IDs của các accounts đang ở ledger mode - Dùng bởi snapshot scheduler
+     * 
+     * @return Danh sách account IDs
+     */
+    @Query("SELECT a.id FROM Account a WHERE a.ledgerMode = true")
+    List<Long> findLedgerAccountIds();
+    
+    /**
+     * Trừ tiền có điều kiện - Single-statement debit
+     * 
+     * <p>Kiểm tra số dư và trừ tiền trong cùng một UPDATE statement, database tự lock row
+     * trong lúc evaluate WHERE. Không có khoảng hở giữa "đọc" và "ghi" như read-modify-write
+     * nên không bị lost update ở READ_COMMITTED.</p>
+     * 
+     * <p>Số tiền được làm tròn về minor units rồi đi qua
+     * {@link #debitMinorIfSufficient(long, long)}.</p>
+     * 
+     * @param id ID tài khoản nguồn
+     * @param amount Số tiền cần trừ
+     * @return 1 nếu trừ thành công, 0 nếu account không tồn tại hoặc không đủ số dư
+     */
+    default int debitIfSufficient(Long id, Double amount) {
+        return debitMinorIfSufficient(id, Money.toMinor(amount));
+    }
+    
+    /**
+     * Cộng tiền - Single-statement credit
+     * 
+     * @param id ID tài khoản đích
+     * @param amount Số tiền cần cộng
+     * @return 1 nếu thành công, 0 nếu account không tồn tại
+     */
+    default int credit(Long id, Double amount) {
+        return creditMinor(id, Money.toMinor(amount));
+    }
+    
+    /**
+     * Trừ tiền có điều kiện theo minor units
+     * 
+     * <p>So sánh và trừ trên cột {@code balance_minor} (số nguyên, không làm tròn);
+     * cột {@code balance} được ghi lại từ giá trị mới của balance_minor. Trong SET,
+     * {@code a.balanceMinor} ở vế phải là giá trị TRƯỚC khi update.</p>
+     * 
+     * <p>Version cũng được tăng để các transaction đang giữ Account cũ (optimistic locking)
+     * phát hiện được thay đổi này.</p>
+     * 
+     * <p>clearAutomatically để các Account đang managed trong persistence context
+     * không giữ balance cũ sau khi UPDATE bỏ qua Hibernate.</p>
+     * 
+     * <h4>Second-level cache:</h4>
+     * <p>Bulk UPDATE trên entity được cache (JPQL, hoặc native query không khai báo query space)
+     * khiến Hibernate xóa TOÀN BỘ region {@value Account#CACHE_REGION} sau mỗi transfer - các
+     * accounts không liên quan cũng phải load lại. Vì vậy đây là native SQL với query space
+     * riêng {@value Account#BALANCE_UPDATE_SPACE}: Hibernate không chạm region. Caller phải tự
+     * evict account vừa UPDATE qua {@link SecondLevelCacheEvictor#evictAccountAfterCommit(Long)}.</p>
+     * 
+     * @param id ID tài khoản nguồn
+     * @param amountMinor Số tiền cần trừ (cent)
+     * @return 1 nếu trừ thành công, 0 nếu account không tồn tại hoặc không đủ số dư
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = Account.BALANCE_UPDATE_SPACE))
+    @Query(value = "UPDATE account SET balance_minor = balance_minor - :amount, "
+                   + "balance = (balance_minor - :amount) / 100.0, version = version + 1 "
+                   + "WHERE id = :id AND balance_minor >= :amount",
+           nativeQuery = true)
+    int debitMinorIfSufficient(@Param("id") long id, @Param("amount") long amountMinor);
+    
+    /**
+     * Cộng tiền theo minor units
+     * 
+     * <p>Cùng cách xử lý second-level cache như {@link #debitMinorIfSufficient(long, long)}.</p>
+     * 
+     * @param id ID tài khoản đích
+     * @param amountMinor Số tiền cần cộng (cent)
+     * @return 1 nếu thành công, 0 nếu account không tồn tại
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @QueryHints(@QueryHint(name = "org.hibernate.query.native.spaces", value = Account.BALANCE_UPDATE_SPACE))
+    @Query(value = "UPDATE account SET balance_minor = balance_minor + :amount, "
+                   + "balance = (balance_minor + :amount) / 100.0, version = version + 1 "
+                   + "WHERE id = :id",
+           nativeQuery = true)
+    int creditMinor(@Param("id") long id, @Param("amount") long amountMinor);
+    
+    /**
+     * Tìm các accounts chưa có balance_minor (rows tạo trước khi có cột này)
+     * 
+     * @param pageable Kích thước mỗi lượt
+     * @return Một lượt accounts cần migrate
+     */
+    @Query("SELECT a FROM Account a WHERE a.balanceMinor IS NULL ORDER BY a.id")
+    List<Account> findWithoutBalanceMinor(Pageable pageable);
+
+    /**
+     * Keyset pagination: các accounts có ID lớn hơn afterId, theo ID tăng dần
+     * 
+     * <p>Khác OFFSET, database seek thẳng tới afterId qua primary key index - chi phí
+     * mỗi trang không tăng theo vị trí trang. Pageable chỉ dùng để giới hạn số rows.</p>
+     * 
+     * @param afterId ID cuối cùng của trang trước (0 cho trang đầu)
+     * @param pageable Giới hạn số rows (PageRequest.of(0, limit))
+     * @return Tối đa limit accounts
+     */
+    @Query("SELECT a FROM Account a WHERE a.id > :afterId ORDER BY a.id")
+    List<Account> findPageAfter(@Param("afterId") long afterId, Pageable pageable);
+
+    /**
+     * Stream tất cả accounts theo ID tăng dần - Dùng cho export
+     * 
+     * <p>Phải gọi trong transaction và đóng stream sau khi dùng. JDBC driver lấy rows
+     * theo từng lô fetchSize; entities ở chế độ read-only (không giữ snapshot cho dirty
+     * checking) và không được đưa vào second-level cache.</p>
+     * 
+     * @return Stream accounts, giữ ResultSet mở đến khi đóng
+     */
+    @QueryHints({
+        @QueryHint(name = "org.hibernate.fetchSize", value = "500"),
+        @QueryHint(name = "org.hibernate.readOnly", value = "true"),
+        @QueryHint(name = "org.hibernate.cacheMode", value = "IGNORE")
+    })
+    @Query("SELECT a FROM Account a ORDER BY a.id")
+    Stream<Account> streamAllOrderById();
+
+    /**
+     * Stream [id, owner, balanceMinor, balance] của tất cả accounts - Dùng bởi
+     * {@link AccountStatistics} khi dựng aggregates lúc khởi động
+     * 
+     * <p>Phải gọi trong transaction và đóng stream sau khi dùng.</p>
+     * 
+     * @return Stream các rows, giữ ResultSet mở đến khi đóng
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT a.id, a.owner, a.balanceMinor, a.balance FROM Account a")
+    Stream<Object[]> streamBalances();
+
+    /**
+     * Tổng số dư của các account rows (minor units) - Dùng để đối chiếu {@link AccountStatistics}
+     * 
+     * @return Tổng balance_minor, 0 nếu bảng rỗng
+     */
+    @Query("SELECT COALESCE(SUM(a.balanceMinor), 0) FROM Account a")
+    Long sumBalanceMinor();
+}
\ No newline at end of file
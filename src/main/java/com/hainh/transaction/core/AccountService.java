@@ -1,15 +1,35 @@
 package com.hainh.transaction.core;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * AccountService - Business Logic Layer cho Account operations
@@ -47,6 +67,16 @@ public class AccountService {
     
     private static final Logger logger = LoggerFactory.getLogger(AccountService.class);
     
+    /**
+     * Số accounts giữa hai lần clear persistence context khi export
+     */
+    private static final int EXPORT_CLEAR_INTERVAL = 500;
+    
+    /**
+     * Số accounts mỗi lần flush + clear khi tạo hàng loạt (bội số của hibernate.jdbc.batch_size)
+     */
+    private static final int BULK_FLUSH_INTERVAL = 1000;
+    
     /**
      * Repository để truy cập data layer
      * 
@@ -56,6 +86,82 @@ public class AccountService {
     @Autowired
     private AccountRepository accountRepository;
 
+    /**
+     * Transaction manager cho các operation cần programmatic transaction
+     * 
+     * <p>Batch transfer chia legs thành nhiều chunk, mỗi chunk là một transaction riêng.
+     * Declarative @Transactional không làm được việc này trong cùng một method
+     * (self-invocation), nên dùng TransactionTemplate.</p>
+     */
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Read-only transaction (flush mode MANUAL) cho các read paths chạy ngoài
+     * {@code @Transactional} - loader của {@link AccountCache}, balance checks
+     */
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void initReadOnlyTransaction() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Sub-ledger shards cho accounts nóng - số dư thật = account row + các shards
+     */
+    @Autowired
+    private AccountShardService accountShardService;
+
+    /**
+     * Append-only ledger - số dư thật của ledger account = account row + snapshot + tail
+     */
+    @Autowired
+    private LedgerService ledgerService;
+
+    /**
+     * Read-through cache cho getAccount, hasSufficientBalance, getAccountsByOwner
+     */
+    @Autowired
+    private AccountCache accountCache;
+
+    /**
+     * Evict từng account khỏi Hibernate second-level cache sau native balance UPDATE
+     */
+    @Autowired
+    private SecondLevelCacheEvictor secondLevelCacheEvictor;
+
+    /**
+     * Aggregates số dư toàn hệ thống - bulk UPDATE phải tự báo thay đổi
+     */
+    @Autowired
+    private AccountStatistics accountStatistics;
+
+    /**
+     * Striped in-JVM locks - batch transfer lock accounts của chunk trước khi mở transaction
+     */
+    @Autowired
+    private AccountLockManager lockManager;
+
+    /**
+     * Persistence context của transaction hiện tại - Dùng để set lock timeout hint
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Lock wait timeout (ms) cho pessimistic transfer
+     */
+    @Value("${account.transfer.lock-timeout-ms:5000}")
+    private int lockTimeoutMs;
+
+    /**
+     * Commit interval mặc định cho batch transfer (0 = toàn bộ batch trong một transaction)
+     */
+    @Value("${account.transfer.batch.commit-interval:0}")
+    private int defaultBatchCommitInterval;
+
     /**
      * Tạo tài khoản mới
      * 
@@ -88,25 +194,111 @@ public class AccountService {
         return savedAccount;
     }
 
+    /**
+     * Tạo nhiều tài khoản trong một transaction - Bulk create
+     * 
+     * <p>Account IDs đến từ pooled sequence (xem {@link Account#getId()}), nên persist không
+     * chạy INSERT ngay: Hibernate gom INSERTs thành JDBC batches
+     * ({@code hibernate.jdbc.batch_size}) lúc flush. Persistence context được flush + clear
+     * sau mỗi {@value #BULK_FLUSH_INTERVAL} accounts để memory không tăng theo số accounts.</p>
+     * 
+     * <p>Tất cả hoặc không: một account không hợp lệ thì không account nào được tạo.</p>
+     * 
+     * @param accounts Danh sách (owner, balance) của các accounts cần tạo
+     * @return IDs của các accounts đã tạo, cùng thứ tự với input
+     * @throws IllegalArgumentException nếu danh sách rỗng hoặc có account không hợp lệ
+     */
+    @Transactional
+    public List<Long> createAccounts(List<Account> accounts) {
+        if (accounts == null || accounts.isEmpty()) {
+            throw new IllegalArgumentException("Account list cannot be empty");
+        }
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = accounts.get(i);
+            if (account == null || account.getOwner() == null || account.getOwner().trim().isEmpty()) {
+                throw new IllegalArgumentException("Owner name cannot be null or empty (index " + i + ")");
+            }
+            if (account.getBalance() == null || account.getBalance() < 0) {
+                throw new IllegalArgumentException("Initial balance must be non-negative (index " + i + ")");
+            }
+        }
+        
+        long started = System.nanoTime();
+        List<Long> ids = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            Account account = new Account(accounts.get(i).getOwner(), accounts.get(i).getBalance());
+            entityManager.persist(account); // ID được cấp ngay, INSERT chờ đến flush
+            ids.add(account.getId());
+            if ((i + 1) % BULK_FLUSH_INTERVAL == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        logger.info("Created {} accounts in {} ms", ids.size(), (System.nanoTime() - started) / 1_000_000);
+        return ids;
+    }
+
     /**
      * Lấy thông tin tài khoản theo ID
      * 
      * <p>Read-only operation, không cần transaction. Sử dụng Optional để
      * handle trường hợp không tìm thấy account một cách elegant.</p>
      * 
+     * <p>Ngoài transaction, kết quả được đọc qua {@link AccountCache} (read-through,
+     * invalidate sau commit). Trong transaction luôn đọc thẳng database.</p>
+     * 
      * @param id ID của tài khoản
      * @return Optional chứa Account nếu tìm thấy, empty nếu không
      */
     public Optional<Account> getAccount(Long id) {
         logger.debug("Fetching account with ID: {}", id);
-        return accountRepository.findById(id);
+        return accountCache.getAccount(id, this::loadAccountView);
+    }
+    
+    /**
+     * Load account view từ database - loader của {@link AccountCache}
+     * 
+     * <p>Đọc projection {@link AccountSummary} thay vì entity, trong read-only transaction
+     * (flush mode MANUAL, không dirty checking). Nếu đang có transaction thì tham gia
+     * transaction đó, giữ nguyên isolation của caller.</p>
+     */
+    private Account loadAccountView(Long id) {
+        return readOnlyTransaction.execute(status ->
+            accountRepository.findSummaryById(id).map(summary -> withTotalBalance(summary.toAccount())).orElse(null));
+    }
+    
+    /**
+     * Với account đã shard hoặc ở ledger mode, trả về bản copy có balance = tổng số dư thật
+     * 
+     * <p>Không sửa trực tiếp managed entity: nếu đang trong transaction, dirty checking
+     * sẽ ghi tổng số dư ngược vào account row.</p>
+     */
+    private Account withTotalBalance(Account account) {
+        if (!account.hasShards() && !account.usesLedger()) {
+            return account;
+        }
+        Account view = account.copy();
+        view.setBalance(totalBalance(account));
+        return view;
+    }
+    
+    /**
+     * Tổng số dư thật: account row (+ các shards) (+ ledger)
+     */
+    private Double totalBalance(Account account) {
+        Double total = accountShardService.getTotalBalance(account);
+        if (account.usesLedger()) {
+            total += ledgerService.getLedgerBalance(account.getId());
+        }
+        return total;
     }
 
     /**
      * Lấy danh sách tất cả tài khoản
      * 
-     * <p>Read-only operation. Trong production, nên implement phân trang
-     * để tránh load quá nhiều data cùng lúc.</p>
+     * <p>Read-only operation. Chỉ dùng cho isolation demos với vài accounts - API dùng
+     * {@link #getAccountsPage(Long, int)} và {@link #exportAccounts(Consumer)}.</p>
      * 
      * @return Danh sách tất cả tài khoản
      */
@@ -115,6 +307,88 @@ public class AccountService {
         return accountRepository.findAll();
     }
 
+    /**
+     * Lấy một trang accounts theo keyset (ID tăng dần)
+     * 
+     * <p>Trang tiếp theo: afterId = ID của account cuối cùng trong trang này.</p>
+     * 
+     * @param afterId ID cuối cùng của trang trước, null cho trang đầu
+     * @param limit Số accounts tối đa
+     * @return Trang accounts (balance = tổng số dư thật)
+     */
+    @Transactional(readOnly = true)
+    public List<Account> getAccountsPage(Long afterId, int limit) {
+        List<Account> page = accountRepository.findPageAfter(afterId != null ? afterId : 0L, PageRequest.of(0, limit));
+        List<Account> result = new ArrayList<>(page.size());
+        for (Account account : page) {
+            result.add(withTotalBalance(account));
+        }
+        return result;
+    }
+
+    /**
+     * Một trang accounts có số dư trong range
+     * 
+     * <p>Lọc và sắp xếp theo số dư của account row (idx_account_balance) - với account
+     * đã shard hoặc ở ledger mode, đó không phải tổng số dư trả về.</p>
+     * 
+     * @param minBalance Số dư tối thiểu
+     * @param maxBalance Số dư tối đa
+     * @param page Số trang (0-based)
+     * @param size Kích thước trang
+     * @return Trang accounts, số dư tăng dần (balance = tổng số dư thật)
+     */
+    @Transactional(readOnly = true)
+    public Slice<Account> getAccountsByBalanceRange(Double minBalance, Double maxBalance, int page, int size) {
+        return accountRepository.findAccountsByBalanceRange(minBalance, maxBalance, PageRequest.of(page, size))
+            .map(this::withTotalBalance);
+    }
+
+    /**
+     * Một trang accounts có số dư lớn hơn hoặc bằng minBalance
+     * 
+     * <p>Cùng lưu ý về account row như {@link #getAccountsByBalanceRange(Double, Double, int, int)}.
+     * Top accounts theo tổng số dư: {@link AccountLeaderboard}.</p>
+     * 
+     * @param minBalance Số dư tối thiểu
+     * @param page Số trang (0-based)
+     * @param size Kích thước trang
+     * @return Trang accounts, số dư giảm dần (balance = tổng số dư thật)
+     */
+    @Transactional(readOnly = true)
+    public Slice<Account> getAccountsWithBalanceAtLeast(Double minBalance, int page, int size) {
+        return accountRepository.findByBalanceAtLeast(minBalance, PageRequest.of(page, size))
+            .map(this::withTotalBalance);
+    }
+
+    /**
+     * Export tất cả accounts theo ID tăng dần, từng account một
+     * 
+     * <p>Đọc qua {@link AccountRepository#streamAllOrderById()} trong một read-only
+     * transaction và clear persistence context sau mỗi {@value #EXPORT_CLEAR_INTERVAL}
+     * accounts, nên memory không phụ thuộc kích thước bảng. Sink phải dùng xong account
+     * trước khi trả về (account bị detach ngay sau đó).</p>
+     * 
+     * @param sink Nhận từng account (balance = tổng số dư thật); exception từ sink
+     *             dừng export
+     * @return Số accounts đã export
+     */
+    @Transactional(readOnly = true)
+    public long exportAccounts(Consumer<Account> sink) {
+        long count = 0;
+        try (Stream<Account> accounts = accountRepository.streamAllOrderById()) {
+            Iterator<Account> it = accounts.iterator();
+            while (it.hasNext()) {
+                sink.accept(withTotalBalance(it.next()));
+                if (++count % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            }
+        }
+        logger.info("Exported {} accounts", count);
+        return count;
+    }
+
     /**
      * Cập nhật thông tin tài khoản
      * 
@@ -135,8 +409,11 @@ public class AccountService {
             .orElseThrow(() -> new RuntimeException("Account not found with ID: " + id));
         
         // Update fields
+        long previousBalanceMinor = account.rowBalanceMinor();
         account.setOwner(owner);
         account.setBalance(balance);
+        // Điều chỉnh số dư trực tiếp là tiền vào/ra hệ thống, không phải transfer
+        accountStatistics.recordAdjustment(account.rowBalanceMinor() - previousBalanceMinor);
         
         // JPA dirty checking sẽ tự động detect changes và update database
         Account updatedAccount = accountRepository.save(account);
@@ -162,6 +439,7 @@ public class AccountService {
             throw new RuntimeException("Account not found with ID: " + id);
         }
         
+        accountShardService.deleteShards(id);
         accountRepository.deleteById(id);
         logger.info("Successfully deleted account ID: {}", id);
     }
@@ -210,15 +488,7 @@ public class AccountService {
         logger.info("Starting money transfer: {} -> {}, amount: {}", fromId, toId, amount);
         
         // Validate input parameters
-        if (fromId == null || toId == null) {
-            throw new IllegalArgumentException("Account IDs cannot be null");
-        }
-        if (amount == null || amount <= 0) {
-            throw new IllegalArgumentException("Transfer amount must be positive");
-        }
-        if (fromId.equals(toId)) {
-            throw new IllegalArgumentException("Cannot transfer to the same account");
-        }
+        validateTransferRequest(fromId, toId, amount);
         
         // Fetch source account - Nếu không tìm thấy, transaction sẽ rollback
         Account fromAccount = accountRepository.findById(fromId)
@@ -276,28 +546,527 @@ public class AccountService {
         }
     }
     
+    /**
+     * Chuyển tiền bằng conditional UPDATE - Không hydrate entity, không lost update
+     * 
+     * <p>{@link #transfer(Long, Long, Double)} làm read-modify-write: load 2 entities, check
+     * số dư trong Java rồi save. Ở READ_COMMITTED, hai transfers đồng thời có thể cùng đọc
+     * một số dư cũ và ghi đè lên nhau (lost update), và tốn 4 round trips.</p>
+     * 
+     * <p>Method này chỉ chạy 2 statements:</p>
+     * <pre>
+     * UPDATE account SET balance = balance - :amount WHERE id = :fromId AND balance &gt;= :amount
+     * UPDATE account SET balance = balance + :amount WHERE id = :toId
+     * </pre>
+     * <p>Affected-row count quyết định thành công. Hai statements được chạy theo thứ tự
+     * account ID tăng dần để hai transfers ngược chiều (A→B, B→A) luôn lock rows theo
+     * cùng thứ tự, tránh deadlock.</p>
+     * 
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amount Số tiền cần chuyển (phải &gt; 0)
+     * @throws RuntimeException nếu account không tồn tại hoặc không đủ số dư (transaction rollback)
+     */
+    @Transactional(
+        propagation = Propagation.REQUIRED,
+        isolation = Isolation.READ_COMMITTED,
+        rollbackFor = Exception.class,
+        timeout = 30
+    )
+    public void transferWithConditionalUpdate(Long fromId, Long toId, Double amount) {
+        logger.info("Starting conditional-update transfer: {} -> {}, amount: {}", fromId, toId, amount);
+        validateTransferRequest(fromId, toId, amount);
+        
+        if (fromId < toId) {
+            debitOrThrow(fromId, amount);
+            creditOrThrow(toId, amount);
+        } else {
+            creditOrThrow(toId, amount);
+            debitOrThrow(fromId, amount);
+        }
+        
+        logger.info("Conditional-update transfer completed: {} -> {}, amount: {}", fromId, toId, amount);
+    }
+    
+    /**
+     * Chuyển tiền theo minor units - Primitive API, không autoboxing trên hot path
+     * 
+     * <p>Cùng 2 conditional UPDATE statements như
+     * {@link #transferWithConditionalUpdate(Long, Long, Double)}, nhưng số tiền là {@code long}
+     * số cent: không làm tròn Double, không tạo {@code Long}/{@code Double} wrapper nào trong
+     * method này (log chỉ format khi DEBUG được bật). Phần còn lại là của Spring Data/Hibernate
+     * khi bind parameters.</p>
+     * 
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amountMinor Số tiền cần chuyển, tính bằng cent (phải &gt; 0)
+     * @throws RuntimeException nếu account không tồn tại hoặc không đủ số dư (transaction rollback)
+     */
+    @Transactional(
+        propagation = Propagation.REQUIRED,
+        isolation = Isolation.READ_COMMITTED,
+        rollbackFor = Exception.class,
+        timeout = 30
+    )
+    public void transfer(long fromId, long toId, long amountMinor) {
+        if (amountMinor <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+        if (fromId == toId) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+        
+        if (fromId < toId) {
+            debitMinorOrThrow(fromId, amountMinor);
+            creditMinorOrThrow(toId, amountMinor);
+        } else {
+            creditMinorOrThrow(toId, amountMinor);
+            debitMinorOrThrow(fromId, amountMinor);
+        }
+        
+        if (logger.isDebugEnabled()) {
+            logger.debug("Minor-unit transfer completed: {} -> {}, amount: {}", fromId, toId, amountMinor);
+        }
+    }
+    
+    /**
+     * Chuyển tiền với pessimistic locking - Lock theo thứ tự ID để tránh deadlock
+     * 
+     * <p>Lock cả hai accounts bằng SELECT ... FOR UPDATE trước khi đọc số dư, nên không
+     * transaction nào khác chen vào giữa bước check và bước ghi.</p>
+     * 
+     * <h4>Tại sao lock theo thứ tự ID tăng dần?</h4>
+     * <p>Nếu lock theo thứ tự (from, to), transfer A→B lock A rồi chờ B, trong khi
+     * transfer B→A lock B rồi chờ A: deadlock, cả hai treo đến khi hết lock timeout.
+     * Khi mọi transaction đều lock ID nhỏ trước, không thể có vòng chờ.</p>
+     * 
+     * <p>Lock wait timeout cấu hình qua {@code account.transfer.lock-timeout-ms}. Khi hết
+     * timeout, {@link PessimisticLockingFailureException} được ném ra và transaction rollback.</p>
+     * 
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amount Số tiền cần chuyển (phải &gt; 0)
+     * @throws PessimisticLockingFailureException nếu không lấy được lock trong thời gian cho phép
+     * @throws RuntimeException nếu account không tồn tại hoặc không đủ số dư
+     */
+    @Transactional(
+        propagation = Propagation.REQUIRED,
+        isolation = Isolation.READ_COMMITTED,
+        rollbackFor = Exception.class,
+        timeout = 30
+    )
+    public void transferWithPessimisticLock(Long fromId, Long toId, Double amount) {
+        logger.info("Starting pessimistic transfer: {} -> {}, amount: {}", fromId, toId, amount);
+        validateTransferRequest(fromId, toId, amount);
+        
+        // Áp dụng cho mọi locking query trong persistence context của transaction này
+        entityManager.setProperty("jakarta.persistence.lock.timeout", lockTimeoutMs);
+        
+        Long firstId = Math.min(fromId, toId);
+        Long secondId = Math.max(fromId, toId);
+        Account first = lockAccount(firstId);
+        Account second = lockAccount(secondId);
+        Account fromAccount = fromId.equals(firstId) ? first : second;
+        Account toAccount = fromId.equals(firstId) ? second : first;
+        
+        if (fromAccount.getBalance() < amount) {
+            logger.warn("Insufficient balance for transfer. Required: {}, Available: {}", 
+                       amount, fromAccount.getBalance());
+            throw new RuntimeException("Insufficient balance. Available: " + fromAccount.getBalance() + 
+                                     ", Required: " + amount);
+        }
+        
+        // Rows đã bị lock - dirty checking sẽ flush UPDATE khi commit
+        fromAccount.setBalance(fromAccount.getBalance() - amount);
+        toAccount.setBalance(toAccount.getBalance() + amount);
+        
+        logger.info("Pessimistic transfer completed: {} -> {}, amount: {}", fromId, toId, amount);
+    }
+    
+    private Account lockAccount(Long id) {
+        try {
+            return accountRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new RuntimeException("Account not found with ID: " + id));
+        } catch (PessimisticLockingFailureException e) {
+            logger.warn("Lock wait timeout on account {} after {} ms", id, lockTimeoutMs);
+            throw e;
+        }
+    }
+    
+    /**
+     * Chuyển tiền hỗ trợ sharded accounts
+     * 
+     * <p>Giống {@link #transferWithConditionalUpdate(Long, Long, Double)}, nhưng account nào
+     * đã bật sharding thì credit/debit đi vào {@link AccountShard} rows thay vì account row.
+     * Tốn thêm một query nhỏ (id, shardCount) để biết account nào đã shard.</p>
+     * 
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amount Số tiền cần chuyển (phải &gt; 0)
+     * @throws RuntimeException nếu account không tồn tại hoặc không đủ số dư
+     */
+    @Transactional(
+        propagation = Propagation.REQUIRED,
+        isolation = Isolation.READ_COMMITTED,
+        rollbackFor = Exception.class,
+        timeout = 30
+    )
+    public void transferSharded(Long fromId, Long toId, Double amount) {
+        logger.debug("Starting sharded transfer: {} -> {}, amount: {}", fromId, toId, amount);
+        validateTransferRequest(fromId, toId, amount);
+        
+        Map<Long, Integer> shardCounts = new HashMap<>();
+        for (Object[] row : accountRepository.findShardCounts(List.of(fromId, toId))) {
+            shardCounts.put((Long) row[0], row[1] == null ? 0 : (Integer) row[1]);
+        }
+        if (!shardCounts.containsKey(fromId)) {
+            throw new RuntimeException("Source account not found with ID: " + fromId);
+        }
+        if (!shardCounts.containsKey(toId)) {
+            throw new RuntimeException("Destination account not found with ID: " + toId);
+        }
+        int fromShards = shardCounts.get(fromId);
+        int toShards = shardCounts.get(toId);
+        
+        // Cùng thứ tự theo account ID như conditional-update transfer để tránh deadlock
+        if (fromId < toId) {
+            debitSharded(fromId, fromShards, amount);
+            creditSharded(toId, toShards, amount);
+        } else {
+            creditSharded(toId, toShards, amount);
+            debitSharded(fromId, fromShards, amount);
+        }
+        
+        logger.debug("Sharded transfer completed: {} -> {}, amount: {}", fromId, toId, amount);
+    }
+    
+    private void debitSharded(Long fromId, int shardCount, Double amount) {
+        if (shardCount > 0) {
+            accountShardService.debit(fromId, shardCount, amount);
+        } else {
+            debitOrThrow(fromId, amount);
+        }
+    }
+    
+    private void creditSharded(Long toId, int shardCount, Double amount) {
+        if (shardCount > 0) {
+            accountShardService.credit(toId, shardCount, amount);
+        } else {
+            creditOrThrow(toId, amount);
+        }
+    }
+    
+    /**
+     * Chuyển tiền qua append-only ledger
+     * 
+     * <p>Account ở ledger mode không bị UPDATE: debit INSERT một DEBIT entry (sau khi lock
+     * account nguồn để kiểm tra số dư), credit INSERT một CREDIT entry không cần lock.
+     * Hai entries của một transfer dùng chung transferId. Account không ở ledger mode
+     * vẫn dùng conditional UPDATE như {@link #transferWithConditionalUpdate(Long, Long, Double)}.</p>
+     * 
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amount Số tiền cần chuyển (phải &gt; 0)
+     * @throws RuntimeException nếu account không tồn tại hoặc không đủ số dư
+     * @throws IllegalStateException nếu một trong hai accounts đang shard
+     */
+    @Transactional(
+        propagation = Propagation.REQUIRED,
+        isolation = Isolation.READ_COMMITTED,
+        rollbackFor = Exception.class,
+        timeout = 30
+    )
+    public void transferWithLedger(Long fromId, Long toId, Double amount) {
+        logger.debug("Starting ledger transfer: {} -> {}, amount: {}", fromId, toId, amount);
+        validateTransferRequest(fromId, toId, amount);
+        
+        Map<Long, Boolean> ledgerModes = new HashMap<>();
+        for (Object[] row : accountRepository.findStorageModes(List.of(fromId, toId))) {
+            if (row[1] != null && (Integer) row[1] > 0) {
+                throw new IllegalStateException("Account " + row[0] + " is sharded, use SHARDED strategy");
+            }
+            ledgerModes.put((Long) row[0], Boolean.TRUE.equals(row[2]));
+        }
+        if (!ledgerModes.containsKey(fromId)) {
+            throw new RuntimeException("Source account not found with ID: " + fromId);
+        }
+        if (!ledgerModes.containsKey(toId)) {
+            throw new RuntimeException("Destination account not found with ID: " + toId);
+        }
+        String transferId = UUID.randomUUID().toString();
+        
+        // Cùng thứ tự theo account ID như các strategy khác để tránh deadlock
+        if (fromId < toId) {
+            debitLedger(fromId, ledgerModes.get(fromId), transferId, amount);
+            creditLedger(toId, ledgerModes.get(toId), transferId, amount);
+        } else {
+            creditLedger(toId, ledgerModes.get(toId), transferId, amount);
+            debitLedger(fromId, ledgerModes.get(fromId), transferId, amount);
+        }
+        
+        logger.debug("Ledger transfer {} completed: {} -> {}, amount: {}", transferId, fromId, toId, amount);
+    }
+    
+    private void debitLedger(Long fromId, boolean ledgerMode, String transferId, Double amount) {
+        if (ledgerMode) {
+            ledgerService.debit(fromId, transferId, amount);
+        } else {
+            debitOrThrow(fromId, amount);
+        }
+    }
+    
+    private void creditLedger(Long toId, boolean ledgerMode, String transferId, Double amount) {
+        if (ledgerMode) {
+            ledgerService.credit(toId, transferId, amount);
+        } else {
+            creditOrThrow(toId, amount);
+        }
+    }
+    
+    private void debitOrThrow(Long fromId, Double amount) {
+        // Native UPDATE bỏ qua entity listener và second-level cache - tự invalidate sau commit
+        accountCache.evictAfterCommit(fromId);
+        secondLevelCacheEvictor.evictAccountAfterCommit(fromId);
+        if (accountRepository.debitIfSufficient(fromId, amount) == 0) {
+            // Chỉ tốn thêm một query ở failure path để phân biệt hai nguyên nhân
+            if (!accountRepository.existsById(fromId)) {
+                throw new RuntimeException("Source account not found with ID: " + fromId);
+            }
+            logger.warn("Insufficient balance for conditional transfer from account {}. Required: {}", fromId, amount);
+            throw new RuntimeException("Insufficient balance in account " + fromId + ". Required: " + amount);
+        }
+        accountStatistics.recordBalanceChange(fromId, -Money.toMinor(amount));
+    }
+    
+    private void debitMinorOrThrow(long fromId, long amountMinor) {
+        accountCache.evictAfterCommit(fromId);
+        secondLevelCacheEvictor.evictAccountAfterCommit(fromId);
+        if (accountRepository.debitMinorIfSufficient(fromId, amountMinor) == 0) {
+            if (!accountRepository.existsById(fromId)) {
+                throw new RuntimeException("Source account not found with ID: " + fromId);
+            }
+            throw new RuntimeException("Insufficient balance in account " + fromId + ". Required (minor units): " + amountMinor);
+        }
+        accountStatistics.recordBalanceChange(fromId, -amountMinor);
+    }
+    
+    private void creditMinorOrThrow(long toId, long amountMinor) {
+        accountCache.evictAfterCommit(toId);
+        secondLevelCacheEvictor.evictAccountAfterCommit(toId);
+        if (accountRepository.creditMinor(toId, amountMinor) == 0) {
+            throw new RuntimeException("Destination account not found with ID: " + toId);
+        }
+        accountStatistics.recordBalanceChange(toId, amountMinor);
+    }
+    
+    private void creditOrThrow(Long toId, Double amount) {
+        accountCache.evictAfterCommit(toId);
+        secondLevelCacheEvictor.evictAccountAfterCommit(toId);
+        if (accountRepository.credit(toId, amount) == 0) {
+            throw new RuntimeException("Destination account not found with ID: " + toId);
+        }
+        accountStatistics.recordBalanceChange(toId, Money.toMinor(amount));
+    }
+    
+    /**
+     * Chuyển tiền hàng loạt - Batch transfer với JDBC statement batching
+     * 
+     * <p>Gọi {@link #transfer(Long, Long, Double)} cho từng leg tốn một HTTP call, một
+     * transaction, hai SELECT và hai UPDATE cho mỗi leg. Method này xử lý cả batch
+     * theo chunk:</p>
+     * <ol>
+     *   <li>Load tất cả accounts liên quan của chunk bằng một {@code findAllById} (SELECT ... IN)</li>
+     *   <li>Apply từng leg tuần tự trên managed entities (leg sau thấy số dư sau leg trước)</li>
+     *   <li>Flush một lần cuối chunk - Hibernate gom các UPDATE thành JDBC batch
+     *       ({@code hibernate.jdbc.batch_size}, {@code hibernate.order_updates})</li>
+     * </ol>
+     * 
+     * <p>Mỗi chunk giữ stripes của {@link AccountLockManager} cho mọi account của chunk trong
+     * suốt transaction, giống các transfer strategy khác. Batch chỉ cập nhật account row, nên
+     * leg có account đang shard hoặc ở ledger mode bị từ chối - dùng SHARDED/LEDGER strategy.</p>
+     * 
+     * <p>Leg không hợp lệ (account không tồn tại, không đủ số dư...) chỉ bị đánh dấu failed,
+     * không làm rollback các leg khác. Nếu cả chunk rollback (ví dụ lỗi database khi flush),
+     * mọi leg của chunk đó đều được báo failed.</p>
+     * 
+     * @param legs Danh sách legs cần chuyển
+     * @param commitInterval Số legs mỗi transaction; null dùng giá trị cấu hình,
+     *                       &lt;= 0 chạy toàn bộ batch trong một transaction
+     * @return Kết quả từng leg, theo đúng thứ tự request
+     * @throws IllegalArgumentException nếu batch rỗng, hoặc có leg null / thiếu fromId, toId, amount
+     */
+    public List<TransferLegResult> transferBatch(List<TransferLeg> legs, Integer commitInterval) {
+        if (legs == null || legs.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one transfer leg");
+        }
+        // Request sai cấu trúc bị từ chối cả batch - lỗi nghiệp vụ mới được báo theo từng leg
+        for (int i = 0; i < legs.size(); i++) {
+            TransferLeg leg = legs.get(i);
+            if (leg == null) {
+                throw new IllegalArgumentException("Transfer leg " + i + " is null");
+            }
+            if (leg.getFromId() == null || leg.getToId() == null || leg.getAmount() == null) {
+                throw new IllegalArgumentException("Transfer leg " + i + " must have fromId, toId and amount");
+            }
+        }
+        int interval = commitInterval != null ? commitInterval : defaultBatchCommitInterval;
+        int chunkSize = interval > 0 ? interval : legs.size();
+        logger.info("Starting batch transfer: {} legs, chunk size: {}", legs.size(), chunkSize);
+        
+        // Cùng transaction semantics với transfer() đơn lẻ
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRED);
+        template.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+        
+        List<TransferLegResult> results = new ArrayList<>(legs.size());
+        for (int start = 0; start < legs.size(); start += chunkSize) {
+            int end = Math.min(start + chunkSize, legs.size());
+            List<TransferLeg> chunk = legs.subList(start, end);
+            List<TransferLegResult> chunkResults = new ArrayList<>(chunk.size());
+            int offset = start;
+            
+            Set<Long> ids = new HashSet<>();
+            for (TransferLeg leg : chunk) {
+                ids.add(leg.getFromId());
+                ids.add(leg.getToId());
+            }
+            
+            try {
+                // Xếp hàng trong memory trước khi transaction lấy connection từ pool
+                lockManager.withLocks(ids, () -> {
+                    template.executeWithoutResult(status -> applyTransferChunk(chunk, ids, offset, chunkResults));
+                    return null;
+                });
+            } catch (RuntimeException e) {
+                // Chunk đã rollback - không leg nào của chunk được commit
+                logger.error("Batch transfer chunk [{}, {}) rolled back", start, end, e);
+                String reason = "Chunk rolled back: " + e.getMessage();
+                chunkResults.forEach(result -> result.markFailed(reason));
+                for (int i = chunkResults.size(); i < chunk.size(); i++) {
+                    chunkResults.add(new TransferLegResult(offset + i, chunk.get(i), false, reason));
+                }
+            }
+            results.addAll(chunkResults);
+        }
+        
+        long succeeded = results.stream().filter(TransferLegResult::isSuccess).count();
+        logger.info("Batch transfer completed: {}/{} legs succeeded", succeeded, legs.size());
+        return results;
+    }
+    
+    /**
+     * Apply một chunk của batch transfer trong transaction hiện tại
+     */
+    private void applyTransferChunk(List<TransferLeg> chunk, Set<Long> ids, int offset, List<TransferLegResult> results) {
+        // Một SELECT ... IN cho cả chunk thay vì 2 findById cho mỗi leg
+        Map<Long, Account> accounts = new HashMap<>();
+        accountRepository.findAllById(ids).forEach(account -> accounts.put(account.getId(), account));
+        
+        for (int i = 0; i < chunk.size(); i++) {
+            TransferLeg leg = chunk.get(i);
+            try {
+                validateTransferRequest(leg.getFromId(), leg.getToId(), leg.getAmount());
+                Account fromAccount = accounts.get(leg.getFromId());
+                Account toAccount = accounts.get(leg.getToId());
+                if (fromAccount == null) {
+                    throw new IllegalStateException("Source account not found with ID: " + leg.getFromId());
+                }
+                if (toAccount == null) {
+                    throw new IllegalStateException("Destination account not found with ID: " + leg.getToId());
+                }
+                // Số dư thật của các accounts này không nằm hết trên account row
+                rejectNonRowStorage(fromAccount);
+                rejectNonRowStorage(toAccount);
+                if (fromAccount.getBalance() < leg.getAmount()) {
+                    throw new IllegalStateException("Insufficient balance. Available: " + fromAccount.getBalance()
+                                                    + ", Required: " + leg.getAmount());
+                }
+                
+                // Chỉ thay đổi managed entities - UPDATE được gửi khi flush
+                fromAccount.setBalance(fromAccount.getBalance() - leg.getAmount());
+                toAccount.setBalance(toAccount.getBalance() + leg.getAmount());
+                results.add(new TransferLegResult(offset + i, leg, true, "Transfer successful"));
+            } catch (IllegalArgumentException | IllegalStateException e) {
+                logger.debug("Batch leg {} rejected: {}", offset + i, e.getMessage());
+                results.add(new TransferLegResult(offset + i, leg, false, e.getMessage()));
+            }
+        }
+        
+        // Flush một lần - dirty accounts được gửi thành JDBC batch UPDATE
+        accountRepository.flush();
+    }
+    
+    private static void rejectNonRowStorage(Account account) {
+        if (account.hasShards()) {
+            throw new IllegalStateException("Account " + account.getId() + " is sharded, use SHARDED strategy");
+        }
+        if (account.usesLedger()) {
+            throw new IllegalStateException("Account " + account.getId() + " is in ledger mode, use LEDGER strategy");
+        }
+    }
+    
+    /**
+     * Validate tham số chuyển tiền - Dùng chung cho transfer đơn lẻ và batch transfer
+     * 
+     * @throws IllegalArgumentException nếu tham số không hợp lệ
+     */
+    private void validateTransferRequest(Long fromId, Long toId, Double amount) {
+        if (fromId == null || toId == null) {
+            throw new IllegalArgumentException("Account IDs cannot be null");
+        }
+        if (amount == null || amount <= 0) {
+            throw new IllegalArgumentException("Transfer amount must be positive");
+        }
+        if (fromId.equals(toId)) {
+            throw new IllegalArgumentException("Cannot transfer to the same account");
+        }
+    }
+    
     /**
      * Lấy danh sách tài khoản theo chủ sở hữu
      * 
-     * <p>Sử dụng custom repository method để demo derived queries.</p>
+     * <p>Đi qua {@link AccountCache}: danh sách account IDs của owner và từng account
+     * đều được cache; balance là tổng số dư thật như {@link #getAccount(Long)}.</p>
      * 
      * @param owner Tên chủ sở hữu
      * @return Danh sách tài khoản của chủ sở hữu này
      */
     public List<Account> getAccountsByOwner(String owner) {
         logger.debug("Fetching accounts for owner: {}", owner);
-        return accountRepository.findByOwner(owner);
+        return accountCache.getAccountsByOwner(owner,
+            o -> readOnlyTransaction.execute(status -> accountRepository.findIdsByOwner(o)),
+            this::loadAccountView);
     }
     
     /**
      * Kiểm tra tài khoản có đủ số dư để thực hiện giao dịch không
      * 
+     * <p>Dùng số dư trong {@link AccountCache} nếu có; nếu không, chỉ đọc cột số dư
+     * ({@link AccountRepository#findBalanceById(Long)}) trong read-only transaction thay vì
+     * load cả account. Account đã shard hoặc ở ledger mode cần tổng số dư nên đi qua
+     * {@link #getAccount(Long)}.</p>
+     * 
      * @param accountId ID tài khoản
      * @param requiredAmount Số tiền cần thiết
-     * @return true nếu đủ số dư, false nếu không
+     * @return true nếu đủ số dư, false nếu không (kể cả khi accountId hoặc requiredAmount null)
      */
     public boolean hasSufficientBalance(Long accountId, Double requiredAmount) {
-        Optional<Account> account = accountRepository.findById(accountId);
-        return account.map(acc -> acc.getBalance() >= requiredAmount).orElse(false);
+        if (accountId == null || requiredAmount == null) {
+            return false;
+        }
+        long requiredMinor = Money.toMinor(requiredAmount);
+        Optional<Long> cached = accountCache.getCachedBalanceMinor(accountId);
+        if (cached.isPresent()) {
+            return cached.get() >= requiredMinor;
+        }
+        AccountBalance balance = readOnlyTransaction.execute(status ->
+            accountRepository.findBalanceById(accountId).orElse(null));
+        if (balance == null) {
+            return false;
+        }
+        if (balance.isRowBalanceTotal()) {
+            return balance.balanceMinor() != null && balance.balanceMinor() >= requiredMinor;
+        }
+        return getAccount(accountId).map(acc -> acc.getBalanceMinor() >= requiredMinor).orElse(false);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,117 @@
+package com.hainh.transaction.core;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.UniqueConstraint;
+
+/**
+ * AccountShard Entity - Một sub-ledger row của account "nóng"
+ * 
+ * <p>Account được shard thành N rows trong bảng 'account_shard'. Credits đồng thời
+ * rơi vào các rows khác nhau nên không phải chờ row lock của nhau, thay vì tất cả
+ * cùng UPDATE một row 'account'.</p>
+ * 
+ * <p>Unique constraint (account_id, shard_index) cũng là index cho mọi lookup theo account.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Entity
+@EntityListeners(AccountStatisticsListener.class)
+@Table(name = "account_shard",
+       uniqueConstraints = @UniqueConstraint(name = "uk_account_shard", columnNames = {"account_id", "shard_index"}))
+public class AccountShard {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    
+    /**
+     * ID của account sở hữu shard này
+     */
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    /**
+     * Vị trí shard trong account, từ 0 đến shardCount - 1
+     */
+    @Column(name = "shard_index", nullable = false)
+    private int shardIndex;
+    
+    /**
+     * Phần số dư nằm trong shard này
+     */
+    @Column(name = "balance", nullable = false)
+    private Double balance;
+    
+    /**
+     * Số dư shard (minor units) như trong database lần gần nhất - không persist,
+     * xem {@link AccountStatisticsListener}
+     */
+    @Transient
+    private long persistedBalanceMinor;
+    
+    /**
+     * Default constructor - Bắt buộc cho JPA
+     */
+    public AccountShard() {
+    }
+    
+    public AccountShard(Long accountId, int shardIndex, Double balance) {
+        this.accountId = accountId;
+        this.shardIndex = shardIndex;
+        this.balance = balance;
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public Long getAccountId() {
+        return accountId;
+    }
+    
+    public int getShardIndex() {
+        return shardIndex;
+    }
+    
+    public Double getBalance() {
+        return balance;
+    }
+    
+    public void setBalance(Double balance) {
+        this.balance = balance;
+    }
+    
+    /**
+     * Số dư shard theo minor units
+     * @return Số dư làm tròn về cent
+     */
+    long balanceMinor() {
+        return balance != null ? Money.toMinor(balance) : 0L;
+    }
+    
+    long getPersistedBalanceMinor() {
+        return persistedBalanceMinor;
+    }
+    
+    /**
+     * Ghi nhận số dư hiện tại là số dư trong database
+     */
+    void markPersisted() {
+        this.persistedBalanceMinor = balanceMinor();
+    }
+    
+    @Override
+    public String toString() {
+        return String.format("AccountShard{accountId=%d, index=%d, balance=%.2f}", accountId, shardIndex, balance);
+    }
+}
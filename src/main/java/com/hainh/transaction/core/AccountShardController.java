@@ -0,0 +1,104 @@
+package com.hainh.transaction.core;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * AccountShardController - REST API quản lý sharded sub-balances
+ *
+ * <h3>Cách sử dụng:</h3>
+ * <ol>
+ *   <li>Bật sharding cho account nóng: POST /api/accounts/{id}/shards?count=8</li>
+ *   <li>Chuyển tiền với strategy SHARDED: POST /api/accounts/transfer?...&amp;strategy=SHARDED</li>
+ *   <li>Định kỳ rebalance: POST /api/accounts/{id}/shards/rebalance</li>
+ *   <li>Tắt sharding: DELETE /api/accounts/{id}/shards</li>
+ * </ol>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@RestController
+@RequestMapping("/api/accounts/{id}/shards")
+public class AccountShardController {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountShardController.class);
+
+    @Autowired
+    private AccountShardService accountShardService;
+
+    /**
+     * Lấy danh sách shards của account
+     *
+     * @param id Account ID
+     * @return Danh sách shards (rỗng nếu account không được shard)
+     */
+    @GetMapping
+    public List<AccountShard> getShards(@PathVariable Long id) {
+        return accountShardService.getShards(id);
+    }
+
+    /**
+     * Bật sharding - chuyển số dư của account vào N shards
+     *
+     * @param id Account ID
+     * @param count Số shards (2..256)
+     * @return Danh sách shards vừa tạo, hoặc 400 nếu không hợp lệ
+     */
+    @PostMapping
+    public ResponseEntity<List<AccountShard>> enableSharding(@PathVariable Long id,
+                                                             @RequestParam(defaultValue = "8") int count) {
+        logger.info("Received request to shard account {} into {} shards", id, count);
+        try {
+            return ResponseEntity.ok(accountShardService.enableSharding(id, count));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to shard account {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Rebalance - chia đều số dư giữa các shards
+     *
+     * @param id Account ID
+     * @return Danh sách shards sau rebalance, hoặc 400 nếu account không được shard
+     */
+    @PostMapping("/rebalance")
+    public ResponseEntity<List<AccountShard>> rebalance(@PathVariable Long id) {
+        logger.info("Received request to rebalance shards of account {}", id);
+        try {
+            return ResponseEntity.ok(accountShardService.rebalance(id));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to rebalance account {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Tắt sharding - gom shards về lại account row
+     *
+     * @param id Account ID
+     * @return Account sau khi gom
+     */
+    @DeleteMapping
+    public ResponseEntity<Account> disableSharding(@PathVariable Long id) {
+        logger.info("Received request to unshard account {}", id);
+        try {
+            return ResponseEntity.ok(accountShardService.disableSharding(id));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to unshard account {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
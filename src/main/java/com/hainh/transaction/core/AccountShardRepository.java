@@ -0,0 +1,100 @@
+package com.hainh.transaction.core;
+
+import java.util.List;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * AccountShardRepository - Data Access Layer cho sub-ledger shards
+ * 
+ * <p>Credit/debit trên shard là single-statement conditional UPDATE (giống
+ * {@link AccountRepository#debitIfSufficient(Long, Double)}), nên không cần load entity.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Repository
+public interface AccountShardRepository extends JpaRepository<AccountShard, Long> {
+    
+    /**
+     * Lấy tất cả shards của account theo thứ tự index
+     * 
+     * @param accountId ID tài khoản
+     * @return Danh sách shards
+     */
+    List<AccountShard> findByAccountIdOrderByShardIndex(Long accountId);
+    
+    /**
+     * Lock tất cả shards của account theo thứ tự index - Dùng cho rebalance và debit lớn
+     * 
+     * @param accountId ID tài khoản
+     * @return Danh sách shards đã lock
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountShard s WHERE s.accountId = :accountId ORDER BY s.shardIndex")
+    List<AccountShard> findByAccountIdForUpdate(@Param("accountId") Long accountId);
+    
+    /**
+     * Tổng số dư nằm trong các shards của account
+     * 
+     * @param accountId ID tài khoản
+     * @return Tổng số dư (0 nếu không có shard)
+     */
+    @Query("SELECT COALESCE(SUM(s.balance), 0.0) FROM AccountShard s WHERE s.accountId = :accountId")
+    Double sumBalance(@Param("accountId") Long accountId);
+    
+    /**
+     * Cộng tiền vào một shard
+     * 
+     * @return 1 nếu thành công, 0 nếu shard không tồn tại
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AccountShard s SET s.balance = s.balance + :amount "
+           + "WHERE s.accountId = :accountId AND s.shardIndex = :shardIndex")
+    int creditShard(@Param("accountId") Long accountId, @Param("shardIndex") int shardIndex,
+                    @Param("amount") Double amount);
+    
+    /**
+     * Trừ tiền từ một shard nếu shard đủ số dư
+     * 
+     * @return 1 nếu thành công, 0 nếu shard không tồn tại hoặc không đủ số dư
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE AccountShard s SET s.balance = s.balance - :amount "
+           + "WHERE s.accountId = :accountId AND s.shardIndex = :shardIndex AND s.balance >= :amount")
+    int debitShardIfSufficient(@Param("accountId") Long accountId, @Param("shardIndex") int shardIndex,
+                               @Param("amount") Double amount);
+    
+    /**
+     * Xóa tất cả shards của account
+     * 
+     * @return Số shards đã xóa
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("DELETE FROM AccountShard s WHERE s.accountId = :accountId")
+    int deleteByAccountId(@Param("accountId") Long accountId);
+    
+    /**
+     * [accountId, balance] của tất cả shards - Dùng bởi {@link AccountStatistics} lúc khởi động
+     * 
+     * @return Danh sách [accountId, balance]
+     */
+    @Query("SELECT s.accountId, s.balance FROM AccountShard s")
+    List<Object[]> findAllBalances();
+    
+    /**
+     * Tổng số dư của tất cả shards - Dùng để đối chiếu {@link AccountStatistics}
+     * 
+     * @return Tổng số dư, 0 nếu không có shard
+     */
+    @Query("SELECT COALESCE(SUM(s.balance), 0.0) FROM AccountShard s")
+    Double sumAllBalances();
+}
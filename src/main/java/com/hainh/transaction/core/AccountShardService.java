@@ -0,0 +1,270 @@
+package com.hainh.transaction.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * AccountShardService - Sharded sub-balances cho accounts "nóng"
+ *
+ * <p>Mỗi credit vào một account đều UPDATE cùng một row, nên throughput của account đó
+ * bị giới hạn bởi row lock: các transfers phải chờ nhau commit. Sharding chia số dư của
+ * account thành N rows {@link AccountShard}:</p>
+ * <ul>
+ *   <li><strong>Credit</strong>: cộng vào một shard ngẫu nhiên - N credits đồng thời lock N rows khác nhau</li>
+ *   <li><strong>Debit</strong>: trừ từ shard đầu tiên đủ tiền (bắt đầu từ vị trí ngẫu nhiên);
+ *       nếu không shard nào đủ, lock toàn bộ shards và trừ dần</li>
+ *   <li><strong>Đọc số dư</strong>: balance của account row + SUM các shards</li>
+ *   <li><strong>Rebalance</strong>: gom lại và chia đều số dư giữa các shards</li>
+ * </ul>
+ *
+ * <h3>Khi nào KHÔNG nên dùng?</h3>
+ * <p>Đọc số dư tốn thêm một aggregate query, và debit lớn có thể phải lock toàn bộ shards.
+ * Chỉ bật cho accounts có rất nhiều credits đồng thời.</p>
+ *
+ * <p>Các credit/debit methods dùng Propagation.MANDATORY: chúng chỉ là một phần của
+ * transfer và phải chạy trong transaction của transfer đó.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Service
+public class AccountShardService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountShardService.class);
+
+    private static final int MAX_SHARDS = 256;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private AccountStatistics accountStatistics;
+
+    @Autowired
+    private AccountShardRepository accountShardRepository;
+
+    /**
+     * Bật sharding cho account - Chuyển toàn bộ số dư vào N shards
+     *
+     * @param accountId ID tài khoản
+     * @param shardCount Số shards (2..256)
+     * @return Danh sách shards vừa tạo
+     * @throws IllegalArgumentException nếu shardCount không hợp lệ
+     * @throws IllegalStateException nếu account đã được shard
+     */
+    @Transactional
+    public List<AccountShard> enableSharding(Long accountId, int shardCount) {
+        if (shardCount < 2 || shardCount > MAX_SHARDS) {
+            throw new IllegalArgumentException("Shard count must be between 2 and " + MAX_SHARDS);
+        }
+        Account account = lockAccount(accountId);
+        if (account.hasShards()) {
+            throw new IllegalStateException("Account " + accountId + " is already sharded");
+        }
+
+        List<AccountShard> shards = new ArrayList<>(shardCount);
+        double[] split = split(account.getBalance(), shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards.add(new AccountShard(accountId, i, split[i]));
+        }
+        account.setBalance(0.0);
+        account.setShardCount(shardCount);
+
+        logger.info("Enabled sharding for account {}: {} shards", accountId, shardCount);
+        return accountShardRepository.saveAll(shards);
+    }
+
+    /**
+     * Tắt sharding - Gom tất cả shards về lại account row
+     *
+     * @param accountId ID tài khoản
+     * @return Account sau khi gom
+     */
+    @Transactional
+    public Account disableSharding(Long accountId) {
+        Account account = lockAccount(accountId);
+        if (!account.hasShards()) {
+            return account;
+        }
+        double total = account.getBalance();
+        for (AccountShard shard : accountShardRepository.findByAccountIdForUpdate(accountId)) {
+            total += shard.getBalance();
+            // Bulk DELETE bỏ qua entity listener - tiền rời shard, về lại account row bên dưới
+            accountStatistics.recordBalanceChange(accountId, -shard.balanceMinor());
+        }
+        accountShardRepository.deleteByAccountId(accountId);
+
+        // deleteByAccountId clear persistence context - load lại account để update
+        Account reloaded = lockAccount(accountId);
+        reloaded.setBalance(total);
+        reloaded.setShardCount(0);
+        logger.info("Disabled sharding for account {}, balance: {}", accountId, total);
+        return reloaded;
+    }
+
+    /**
+     * Rebalance - Chia đều số dư (bao gồm phần đã credit vào account row) giữa các shards
+     *
+     * <p>Sau nhiều debits, một số shards có thể cạn trong khi shards khác còn nhiều,
+     * khiến debit phải đi vào slow path (lock toàn bộ shards). Rebalance đưa các shards
+     * về mức ngang nhau.</p>
+     *
+     * @param accountId ID tài khoản
+     * @return Danh sách shards sau rebalance
+     * @throws IllegalStateException nếu account không được shard
+     */
+    @Transactional
+    public List<AccountShard> rebalance(Long accountId) {
+        Account account = lockAccount(accountId);
+        if (!account.hasShards()) {
+            throw new IllegalStateException("Account " + accountId + " is not sharded");
+        }
+        List<AccountShard> shards = accountShardRepository.findByAccountIdForUpdate(accountId);
+        double total = account.getBalance();
+        for (AccountShard shard : shards) {
+            total += shard.getBalance();
+        }
+
+        double[] split = split(total, shards.size());
+        for (int i = 0; i < shards.size(); i++) {
+            shards.get(i).setBalance(split[i]);
+        }
+        account.setBalance(0.0);
+
+        logger.info("Rebalanced account {}: total {} across {} shards", accountId, total, shards.size());
+        return shards;
+    }
+
+    /**
+     * Lấy danh sách shards của account
+     *
+     * @param accountId ID tài khoản
+     * @return Danh sách shards theo index
+     */
+    public List<AccountShard> getShards(Long accountId) {
+        return accountShardRepository.findByAccountIdOrderByShardIndex(accountId);
+    }
+
+    /**
+     * Tổng số dư thật của account: account row + các shards
+     *
+     * @param account Account đã load
+     * @return Tổng số dư
+     */
+    public Double getTotalBalance(Account account) {
+        if (!account.hasShards()) {
+            return account.getBalance();
+        }
+        return account.getBalance() + accountShardRepository.sumBalance(account.getId());
+    }
+
+    /**
+     * Cộng tiền vào một shard ngẫu nhiên của account
+     *
+     * @param accountId ID tài khoản (đã shard)
+     * @param shardCount Số shards của account
+     * @param amount Số tiền
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(Long accountId, int shardCount, Double amount) {
+        // Số dư thật thay đổi mà account row không đổi - entity listener không thấy
+        accountCache.evictAfterCommit(accountId);
+        int shardIndex = ThreadLocalRandom.current().nextInt(shardCount);
+        if (accountShardRepository.creditShard(accountId, shardIndex, amount) == 0) {
+            throw new IllegalStateException("Shard " + shardIndex + " of account " + accountId + " not found");
+        }
+        accountStatistics.recordBalanceChange(accountId, Money.toMinor(amount));
+    }
+
+    /**
+     * Trừ tiền từ các shards của account
+     *
+     * <p>Fast path: thử conditional debit trên từng shard, bắt đầu từ vị trí ngẫu nhiên
+     * để các debits đồng thời không cùng tranh một shard. Slow path (không shard nào đủ
+     * một mình): lock account row và toàn bộ shards, trừ phần số dư còn trên account row
+     * (credits từ các strategy không shard) trước, rồi trừ dần các shards theo thứ tự index.</p>
+     *
+     * @param accountId ID tài khoản (đã shard)
+     * @param shardCount Số shards của account
+     * @param amount Số tiền
+     * @throws RuntimeException nếu tổng số dư (account row + shards) không đủ
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void debit(Long accountId, int shardCount, Double amount) {
+        // Số dư thật thay đổi mà account row không đổi - entity listener không thấy
+        accountCache.evictAfterCommit(accountId);
+        int start = ThreadLocalRandom.current().nextInt(shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            int shardIndex = (start + i) % shardCount;
+            if (accountShardRepository.debitShardIfSufficient(accountId, shardIndex, amount) == 1) {
+                accountStatistics.recordBalanceChange(accountId, -Money.toMinor(amount));
+                return;
+            }
+        }
+
+        logger.debug("No single shard of account {} covers {}, draining account row and shards", accountId, amount);
+        // Cùng thứ tự lock như enableSharding/rebalance: account row trước, rồi shards
+        Account account = lockAccount(accountId);
+        List<AccountShard> shards = accountShardRepository.findByAccountIdForUpdate(accountId);
+        double available = account.getBalance() + shards.stream().mapToDouble(AccountShard::getBalance).sum();
+        if (available < amount) {
+            throw new RuntimeException("Insufficient balance in account " + accountId
+                                       + ". Available: " + available + ", Required: " + amount);
+        }
+        // Các strategy không shard vẫn credit vào account row - trừ phần đó trước
+        double fromRow = Math.min(account.getBalance(), amount);
+        account.setBalance(account.getBalance() - fromRow);
+        double remaining = amount - fromRow;
+        for (AccountShard shard : shards) {
+            if (remaining <= 0) {
+                break;
+            }
+            double taken = Math.min(shard.getBalance(), remaining);
+            shard.setBalance(shard.getBalance() - taken);
+            remaining -= taken;
+        }
+    }
+
+    /**
+     * Xóa shards của account - Gọi khi xóa account
+     *
+     * @param accountId ID tài khoản
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void deleteShards(Long accountId) {
+        int deleted = accountShardRepository.deleteByAccountId(accountId);
+        if (deleted > 0) {
+            logger.info("Deleted {} shards of account {}", deleted, accountId);
+        }
+    }
+
+    private Account lockAccount(Long accountId) {
+        return accountRepository.findByIdForUpdate(accountId)
+            .orElseThrow(() -> new RuntimeException("Account not found with ID: " + accountId));
+    }
+
+    /**
+     * Chia đều số tiền thành n phần, phần dư (do làm tròn đến cent) dồn vào shard 0
+     */
+    private static double[] split(double total, int n) {
+        double[] parts = new double[n];
+        double each = Math.floor(total * 100 / n) / 100;
+        for (int i = 1; i < n; i++) {
+            parts[i] = each;
+        }
+        parts[0] = total - each * (n - 1);
+        return parts;
+    }
+}
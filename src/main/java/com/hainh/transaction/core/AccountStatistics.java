@@ -0,0 +1,472 @@
+package com.hainh.transaction.core;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * AccountStatistics - Aggregates số dư toàn hệ thống, cập nhật tăng dần sau mỗi commit
+ *
+ * <p>Tổng số dư, số accounts, min/max và tổng theo owner không cần quét bảng: lúc khởi động
+ * aggregates được dựng một lần từ database, sau đó mỗi transaction đã commit cộng phần
+ * thay đổi của nó vào. Tổng dùng {@link LongAdder} (counter phân mảnh theo thread), nên
+ * các transfers đồng thời không tranh nhau một counter hay một row tổng.</p>
+ *
+ * <h3>Nguồn thay đổi:</h3>
+ * <ul>
+ *   <li>{@link AccountStatisticsListener} - INSERT/UPDATE/DELETE của account rows, shards,
+ *       ledger entries</li>
+ *   <li>Bulk UPDATE (conditional debit/credit bằng native SQL, shard credit/debit bằng JPQL) - báo trực tiếp</li>
+ * </ul>
+ * <p>Thay đổi được gom theo transaction và chỉ áp dụng trong
+ * {@link TransactionSynchronization#afterCommit()}: transaction rollback không để lại dấu vết.</p>
+ *
+ * <h3>Money conservation:</h3>
+ * <p>Transfer chỉ chuyển tiền giữa các accounts, nên tổng thay đổi của một transaction phải
+ * bằng phần tiền vào/ra hợp lệ: tạo account (+số dư ban đầu), xóa account (-số dư), và điều
+ * chỉnh số dư qua {@link AccountService#updateAccount(Long, String, Double)}. Mỗi commit được
+ * kiểm tra; chênh lệch được cộng vào {@code unexplainedMinor} và log WARN. Các demo endpoints
+ * nạp tiền thẳng vào entity (propagation/transactional demos) cũng hiện ra ở đây.</p>
+ *
+ * <p><strong>Lưu ý:</strong> Ghi trực tiếp bằng JDBC (seeding của benchmarks) không đi qua
+ * các nguồn trên; {@code ?verify=true} của endpoint so sánh với tổng tính từ database.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class AccountStatistics implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(AccountStatistics.class);
+
+    /**
+     * Owner và tổng số dư thật (minor units) của một account - immutable, thay bằng bản mới
+     */
+    private record AccountTotal(String owner, long balanceMinor) {
+    }
+
+    /**
+     * Aggregates của một owner
+     */
+    private static final class OwnerTotal {
+        final LongAdder balanceMinor = new LongAdder();
+        final AtomicLong accounts = new AtomicLong();
+    }
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountShardRepository accountShardRepository;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final ConcurrentHashMap<Long, AccountTotal> accounts = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, OwnerTotal> owners = new ConcurrentHashMap<>();
+    // Số dư → số accounts đang có số dư đó; min/max = key đầu/cuối
+    private final ConcurrentSkipListMap<Long, Long> balanceHistogram = new ConcurrentSkipListMap<>();
+    private final LongAdder totalMinor = new LongAdder();
+    private final LongAdder accountCount = new LongAdder();
+    private final LongAdder activeOwners = new LongAdder();
+    private volatile boolean seeded;
+
+    private final LongAdder transactions = new LongAdder();
+    private final LongAdder externalMinor = new LongAdder();
+    private final LongAdder unexplainedMinor = new LongAdder();
+    private final LongAdder violations = new LongAdder();
+    private final LongAdder untrackedChanges = new LongAdder();
+    private volatile Map<String, Object> lastViolation;
+
+    /**
+     * Dựng aggregates từ database - trước khi web server nhận request
+     */
+    @Override
+    public void afterSingletonsInstantiated() {
+        long started = System.nanoTime();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        Map<Long, AccountTotal> loaded = readOnly.execute(status -> load());
+        for (Map.Entry<Long, AccountTotal> entry : loaded.entrySet()) {
+            register(entry.getKey(), entry.getValue().owner());
+            addToAccount(entry.getKey(), entry.getValue().balanceMinor());
+        }
+        seeded = true;
+        logger.info("Account statistics built from {} accounts in {} ms",
+                    loaded.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private Map<Long, AccountTotal> load() {
+        Map<Long, AccountTotal> loaded = new HashMap<>();
+        try (Stream<Object[]> rows = accountRepository.streamBalances()) {
+            rows.forEach(row -> loaded.put((Long) row[0], new AccountTotal((String) row[1],
+                Account.rowBalanceMinor((Long) row[2], (Double) row[3]))));
+        }
+        for (Object[] row : accountShardRepository.findAllBalances()) {
+            loaded.computeIfPresent((Long) row[0], (id, total) ->
+                new AccountTotal(total.owner(), total.balanceMinor() + Money.toMinor((Double) row[1])));
+        }
+        try (Stream<Object[]> rows = ledgerEntryRepository.streamAmounts()) {
+            rows.forEach(row -> loaded.computeIfPresent((Long) row[0], (id, total) ->
+                new AccountTotal(total.owner(), total.balanceMinor() + Money.toMinor((Double) row[1]))));
+        }
+        return loaded;
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Ghi nhận thay đổi trong transaction hiện tại
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Account mới với số dư ban đầu - tiền vào hệ thống
+     *
+     * @param accountId Account ID
+     * @param owner Chủ tài khoản
+     * @param balanceMinor Số dư ban đầu (minor units)
+     */
+    void recordCreated(Long accountId, String owner, long balanceMinor) {
+        Batch batch = currentBatch();
+        batch.created.put(accountId, owner);
+        batch.addDelta(accountId, balanceMinor);
+        batch.createdMinor.put(accountId, balanceMinor);
+        applyIfStandalone(batch);
+    }
+
+    /**
+     * Tổng số dư thật của account thay đổi (transfer, shard, ledger entry...)
+     *
+     * @param accountId Account ID
+     * @param deltaMinor Phần thay đổi (minor units, có dấu)
+     */
+    void recordBalanceChange(Long accountId, long deltaMinor) {
+        Batch batch = currentBatch();
+        batch.addDelta(accountId, deltaMinor);
+        applyIfStandalone(batch);
+    }
+
+    /**
+     * Account đổi owner - số dư chuyển sang aggregates của owner mới
+     *
+     * @param accountId Account ID
+     * @param owner Owner mới
+     */
+    void recordOwnerChange(Long accountId, String owner) {
+        Batch batch = currentBatch();
+        batch.ownerChanges.put(accountId, owner);
+        applyIfStandalone(batch);
+    }
+
+    /**
+     * Account bị xóa - toàn bộ số dư rời hệ thống
+     *
+     * @param accountId Account ID
+     */
+    void recordDeleted(Long accountId) {
+        Batch batch = currentBatch();
+        batch.deleted.add(accountId);
+        applyIfStandalone(batch);
+    }
+
+    /**
+     * Khai báo điều chỉnh số dư hợp lệ (không phải transfer) trong transaction hiện tại
+     *
+     * @param deltaMinor Phần tiền vào (dương) hoặc ra (âm) hệ thống, minor units
+     */
+    void recordAdjustment(long deltaMinor) {
+        Batch batch = currentBatch();
+        batch.adjustmentMinor += deltaMinor;
+        applyIfStandalone(batch);
+    }
+
+    /**
+     * Batch của transaction hiện tại - tìm trong synchronizations (được suspend/resume
+     * cùng transaction, nên REQUIRES_NEW có batch riêng)
+     */
+    private Batch currentBatch() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return new Batch(true);
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof Batch batch && batch.owner() == this) {
+                return batch;
+            }
+        }
+        Batch batch = new Batch(false);
+        TransactionSynchronizationManager.registerSynchronization(batch);
+        return batch;
+    }
+
+    private void applyIfStandalone(Batch batch) {
+        if (batch.standalone) {
+            apply(batch);
+        }
+    }
+
+    /**
+     * Thay đổi của một transaction, áp dụng một lần sau commit
+     */
+    private final class Batch implements TransactionSynchronization {
+        final boolean standalone;
+        final Map<Long, Long> deltas = new HashMap<>();
+        final Map<Long, String> created = new HashMap<>();
+        final Map<Long, Long> createdMinor = new HashMap<>();
+        final Map<Long, String> ownerChanges = new HashMap<>();
+        final Set<Long> deleted = new HashSet<>();
+        long adjustmentMinor;
+
+        Batch(boolean standalone) {
+            this.standalone = standalone;
+        }
+
+        AccountStatistics owner() {
+            return AccountStatistics.this;
+        }
+
+        void addDelta(Long accountId, long deltaMinor) {
+            deltas.merge(accountId, deltaMinor, Long::sum);
+        }
+
+        @Override
+        public void afterCommit() {
+            apply(this);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Áp dụng vào aggregates
+    // ---------------------------------------------------------------------------------------
+
+    private void apply(Batch batch) {
+        if (!seeded) {
+            return; // Lúc dựng aggregates sẽ đọc trạng thái đã commit
+        }
+        long net = 0;      // Tổng thay đổi tiền của transaction
+        long external = batch.adjustmentMinor;
+        for (Map.Entry<Long, String> entry : batch.created.entrySet()) {
+            if (!batch.deleted.contains(entry.getKey())) {
+                register(entry.getKey(), entry.getValue());
+                external += batch.createdMinor.getOrDefault(entry.getKey(), 0L);
+            }
+        }
+        for (Map.Entry<Long, Long> entry : batch.deltas.entrySet()) {
+            if (batch.deleted.contains(entry.getKey())) {
+                continue;
+            }
+            net += entry.getValue();
+            if (!addToAccount(entry.getKey(), entry.getValue())) {
+                untrackedChanges.increment();
+            }
+        }
+        for (Map.Entry<Long, String> entry : batch.ownerChanges.entrySet()) {
+            changeOwner(entry.getKey(), entry.getValue());
+        }
+        for (Long accountId : batch.deleted) {
+            long removed = unregister(accountId);
+            net -= removed;
+            external -= removed;
+        }
+
+        transactions.increment();
+        externalMinor.add(external);
+        long unexplained = net - external;
+        if (unexplained != 0) {
+            unexplainedMinor.add(unexplained);
+            violations.increment();
+            Map<String, Object> violation = new LinkedHashMap<>();
+            violation.put("netChange", Money.toMajor(net));
+            violation.put("expectedChange", Money.toMajor(external));
+            violation.put("accounts", batch.deltas.keySet());
+            lastViolation = violation;
+            logger.warn("Money conservation violated by a committed transaction: net change {}, expected {}, accounts {}",
+                        Money.toMajor(net), Money.toMajor(external), batch.deltas.keySet());
+        }
+    }
+
+    private void register(Long accountId, String owner) {
+        if (accounts.putIfAbsent(accountId, new AccountTotal(owner, 0)) == null) {
+            accountCount.increment();
+            joinOwner(owner, 0);
+            addToHistogram(0);
+        }
+    }
+
+    /**
+     * Cộng vào số dư của account - compute khóa riêng bin của account, các accounts
+     * khác nhau cập nhật song song
+     *
+     * @return false nếu account không được theo dõi (ví dụ tạo bằng JDBC)
+     */
+    private boolean addToAccount(Long accountId, long deltaMinor) {
+        AccountTotal updated = accounts.computeIfPresent(accountId, (id, current) -> {
+            long balance = current.balanceMinor() + deltaMinor;
+            moveInHistogram(current.balanceMinor(), balance);
+            ownerTotal(current.owner()).balanceMinor.add(deltaMinor);
+            return new AccountTotal(current.owner(), balance);
+        });
+        if (updated == null) {
+            return false;
+        }
+        totalMinor.add(deltaMinor);
+        return true;
+    }
+
+    private void changeOwner(Long accountId, String owner) {
+        accounts.computeIfPresent(accountId, (id, current) -> {
+            if (current.owner().equals(owner)) {
+                return current;
+            }
+            leaveOwner(current.owner(), current.balanceMinor());
+            joinOwner(owner, current.balanceMinor());
+            return new AccountTotal(owner, current.balanceMinor());
+        });
+    }
+
+    private long unregister(Long accountId) {
+        AccountTotal removed = accounts.remove(accountId);
+        if (removed == null) {
+            return 0;
+        }
+        accountCount.decrement();
+        totalMinor.add(-removed.balanceMinor());
+        leaveOwner(removed.owner(), removed.balanceMinor());
+        removeFromHistogram(removed.balanceMinor());
+        return removed.balanceMinor();
+    }
+
+    private OwnerTotal ownerTotal(String owner) {
+        return owners.computeIfAbsent(owner, o -> new OwnerTotal());
+    }
+
+    private void joinOwner(String owner, long balanceMinor) {
+        OwnerTotal total = ownerTotal(owner);
+        total.balanceMinor.add(balanceMinor);
+        if (total.accounts.incrementAndGet() == 1) {
+            activeOwners.increment();
+        }
+    }
+
+    private void leaveOwner(String owner, long balanceMinor) {
+        OwnerTotal total = ownerTotal(owner);
+        total.balanceMinor.add(-balanceMinor);
+        if (total.accounts.decrementAndGet() == 0) {
+            activeOwners.decrement();
+        }
+    }
+
+    private void addToHistogram(long balanceMinor) {
+        balanceHistogram.merge(balanceMinor, 1L, Long::sum);
+    }
+
+    private void removeFromHistogram(long balanceMinor) {
+        balanceHistogram.computeIfPresent(balanceMinor, (balance, count) -> count == 1 ? null : count - 1);
+    }
+
+    private void moveInHistogram(long from, long to) {
+        if (from != to) {
+            addToHistogram(to);
+            removeFromHistogram(from);
+        }
+    }
+
+    // ---------------------------------------------------------------------------------------
+    // Đọc
+    // ---------------------------------------------------------------------------------------
+
+    /**
+     * Aggregates toàn hệ thống và trạng thái money conservation - O(log N) cho min/max,
+     * còn lại O(1)
+     *
+     * @return accounts, tổng, min/max, trung bình, số owners và conservation
+     */
+    public Map<String, Object> snapshot() {
+        long count = accountCount.sum();
+        long total = totalMinor.sum();
+        Map.Entry<Long, Long> min = balanceHistogram.firstEntry();
+        Map.Entry<Long, Long> max = balanceHistogram.lastEntry();
+
+        Map<String, Object> conservation = new LinkedHashMap<>();
+        long unexplained = unexplainedMinor.sum();
+        conservation.put("conserved", unexplained == 0);
+        conservation.put("transactions", transactions.sum());
+        conservation.put("externalChange", Money.toMajor(externalMinor.sum()));
+        conservation.put("unexplainedChange", Money.toMajor(unexplained));
+        conservation.put("violations", violations.sum());
+        conservation.put("lastViolation", lastViolation);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("ready", seeded);
+        result.put("accounts", count);
+        result.put("totalBalance", Money.toMajor(total));
+        result.put("totalBalanceMinor", total);
+        result.put("minBalance", min == null ? null : Money.toMajor(min.getKey()));
+        result.put("maxBalance", max == null ? null : Money.toMajor(max.getKey()));
+        result.put("averageBalance", count == 0 ? null : Money.toMajor(total) / count);
+        result.put("owners", activeOwners.sum());
+        result.put("untrackedChanges", untrackedChanges.sum());
+        result.put("conservation", conservation);
+        return result;
+    }
+
+    /**
+     * Aggregates của một owner
+     *
+     * @param owner Tên chủ tài khoản
+     * @return owner, số accounts và tổng số dư
+     */
+    public Map<String, Object> ownerSnapshot(String owner) {
+        OwnerTotal total = owners.get(owner);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("owner", owner);
+        result.put("accounts", total == null ? 0 : total.accounts.get());
+        result.put("totalBalance", total == null ? 0.0 : Money.toMajor(total.balanceMinor.sum()));
+        return result;
+    }
+
+    /**
+     * So sánh aggregates với tổng tính lại từ database (quét cả bảng - chỉ để kiểm tra)
+     *
+     * <p>Transactions commit trong lúc đối chiếu có thể làm hai bên lệch tạm thời.</p>
+     *
+     * @return Số accounts và tổng số dư từ database, chênh lệch với aggregates
+     */
+    public Map<String, Object> verify() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        long[] database = readOnly.execute(status -> new long[] {
+            accountRepository.count(),
+            accountRepository.sumBalanceMinor()
+                + Money.toMinor(accountShardRepository.sumAllBalances())
+                // Như load(): chỉ entries của accounts còn tồn tại - deleteAccount giữ ledger entries
+                + Money.toMinor(ledgerEntryRepository.sumAmountsOfExistingAccounts())
+        });
+        long difference = totalMinor.sum() - database[1];
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("databaseAccounts", database[0]);
+        result.put("databaseTotalBalance", Money.toMajor(database[1]));
+        result.put("accountsDifference", accountCount.sum() - database[0]);
+        result.put("totalBalanceDifference", Money.toMajor(difference));
+        result.put("matches", difference == 0 && accountCount.sum() == database[0]);
+        return result;
+    }
+}
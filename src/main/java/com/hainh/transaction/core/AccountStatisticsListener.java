@@ -0,0 +1,83 @@
+package com.hainh.transaction.core;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * AccountStatisticsListener - Báo mọi thay đổi tiền qua entities cho {@link AccountStatistics}
+ *
+ * <p>Tổng số dư thật của account = account row + các {@link AccountShard} + các
+ * {@link LedgerEntry}, nên listener gắn vào cả ba entities. JPA callbacks không cho biết
+ * giá trị cũ: mỗi entity giữ số dư lần cuối khớp database ({@code markPersisted()} lúc
+ * load/INSERT/UPDATE), UPDATE báo phần chênh lệch.</p>
+ *
+ * <p>Bulk JPQL UPDATE/DELETE bỏ qua entity lifecycle - các chỗ đó tự báo cho
+ * {@link AccountStatistics}, như với {@link AccountCacheInvalidator}.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class AccountStatisticsListener {
+
+    @Autowired
+    private AccountStatistics accountStatistics;
+
+    @PostLoad
+    void onLoad(Object entity) {
+        if (entity instanceof Account account) {
+            account.markPersisted();
+        } else if (entity instanceof AccountShard shard) {
+            shard.markPersisted();
+        }
+    }
+
+    @PostPersist
+    void onPersist(Object entity) {
+        if (entity instanceof Account account) {
+            account.markPersisted();
+            accountStatistics.recordCreated(account.getId(), account.getOwner(), account.getPersistedBalanceMinor());
+        } else if (entity instanceof AccountShard shard) {
+            shard.markPersisted();
+            accountStatistics.recordBalanceChange(shard.getAccountId(), shard.getPersistedBalanceMinor());
+        } else if (entity instanceof LedgerEntry entry) {
+            accountStatistics.recordBalanceChange(entry.getAccountId(), Money.toMinor(entry.getAmount()));
+        }
+    }
+
+    @PostUpdate
+    void onUpdate(Object entity) {
+        if (entity instanceof Account account) {
+            long delta = account.rowBalanceMinor() - account.getPersistedBalanceMinor();
+            String previousOwner = account.getPersistedOwner();
+            account.markPersisted();
+            if (delta != 0) {
+                accountStatistics.recordBalanceChange(account.getId(), delta);
+            }
+            if (previousOwner != null && !previousOwner.equals(account.getOwner())) {
+                accountStatistics.recordOwnerChange(account.getId(), account.getOwner());
+            }
+        } else if (entity instanceof AccountShard shard) {
+            long delta = shard.balanceMinor() - shard.getPersistedBalanceMinor();
+            shard.markPersisted();
+            if (delta != 0) {
+                accountStatistics.recordBalanceChange(shard.getAccountId(), delta);
+            }
+        }
+    }
+
+    @PostRemove
+    void onRemove(Object entity) {
+        if (entity instanceof Account account) {
+            accountStatistics.recordDeleted(account.getId());
+        } else if (entity instanceof AccountShard shard) {
+            accountStatistics.recordBalanceChange(shard.getAccountId(), -shard.getPersistedBalanceMinor());
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.hainh.transaction.core;
+
+/**
+ * AccountSummary - Projection các cột của account row cho read paths
+ *
+ * <p>Được tạo trực tiếp bằng JPQL constructor expression trong {@link AccountRepository}:
+ * không phải entity, nên Hibernate không đưa vào persistence context và không giữ
+ * snapshot cho dirty checking.</p>
+ *
+ * @param id Account ID
+ * @param owner Tên chủ tài khoản
+ * @param balanceMinor Số dư của account row (minor units)
+ * @param version Optimistic locking version
+ * @param shardCount Số shards, null nếu chưa shard
+ * @param ledgerMode true nếu account ở ledger mode
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public record AccountSummary(Long id, String owner, Long balanceMinor, Long version,
+                             Integer shardCount, Boolean ledgerMode) {
+
+    /**
+     * Account detached mang giá trị của projection - Dùng làm account view trả về API
+     *
+     * @return Account mới (không managed)
+     */
+    public Account toAccount() {
+        Account account = new Account();
+        account.setId(id);
+        account.setOwner(owner);
+        account.setBalanceMinor(balanceMinor != null ? balanceMinor : 0L);
+        account.setVersion(version);
+        account.setShardCount(shardCount);
+        account.setLedgerMode(ledgerMode);
+        return account;
+    }
+}
@@ -0,0 +1,181 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+/**
+ * AsyncTransferService - Tách việc nhận transfer khỏi việc thực hiện transfer
+ *
+ * <p>Transfer đồng bộ giữ Tomcat thread đến khi transaction kết thúc (tối đa 30s timeout).
+ * Khi có burst, mọi Tomcat threads có thể cùng chờ database và các requests khác - kể cả
+ * GET - phải xếp hàng. Ở đây request thread chỉ đưa transfer vào một queue có giới hạn
+ * rồi trả 202 ngay; một worker pool cố định chạy transfers qua {@link TransferExecutor}.</p>
+ *
+ * <h3>Backpressure:</h3>
+ * <p>Queue đầy → {@link RejectedExecutionException} → controller trả 429, client biết phải
+ * chậm lại thay vì làm queue (và latency) tăng vô hạn. Số workers giới hạn số transactions
+ * đồng thời, nên nên đặt nhỏ hơn kích thước connection pool.</p>
+ *
+ * <p>Trạng thái của các transfers đã kết thúc được giữ {@code result-ttl-ms} để client
+ * polling, sau đó bị dọn.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Service
+public class AsyncTransferService {
+
+    private static final Logger logger = LoggerFactory.getLogger(AsyncTransferService.class);
+
+    private final TransferExecutor transferExecutor;
+    private final ThreadPoolExecutor workers;
+    private final int maxTracked;
+    private final long resultTtlMs;
+
+    private final ConcurrentHashMap<String, AsyncTransferStatus> statuses = new ConcurrentHashMap<>();
+    private final LongAdder submitted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder succeeded = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    public AsyncTransferService(
+            TransferExecutor transferExecutor,
+            @Value("${account.transfer.async.workers:8}") int workerCount,
+            @Value("${account.transfer.async.queue-capacity:1000}") int queueCapacity,
+            @Value("${account.transfer.async.max-tracked:100000}") int maxTracked,
+            @Value("${account.transfer.async.result-ttl-ms:3600000}") long resultTtlMs) {
+        this.transferExecutor = transferExecutor;
+        this.maxTracked = maxTracked;
+        this.resultTtlMs = resultTtlMs;
+
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workerCount, workerCount, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                r -> {
+                    Thread t = new Thread(r, "async-transfer-" + threadIndex.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        logger.info("Async transfer pool: workers={}, queueCapacity={}", workerCount, queueCapacity);
+    }
+
+    /**
+     * Đưa transfer vào queue
+     *
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amount Số tiền
+     * @param strategy Strategy, null = ENTITY
+     * @return Trạng thái QUEUED với transfer ID
+     * @throws RejectedExecutionException nếu queue đầy
+     */
+    public AsyncTransferStatus submit(Long fromId, Long toId, Double amount, TransferStrategy strategy) {
+        if (statuses.size() >= maxTracked) {
+            purgeFinished(Instant.now());
+            if (statuses.size() >= maxTracked) {
+                rejected.increment();
+                throw new RejectedExecutionException("Too many tracked async transfers");
+            }
+        }
+
+        AsyncTransferStatus status = new AsyncTransferStatus(UUID.randomUUID().toString(),
+                                                             fromId, toId, amount, strategy);
+        statuses.put(status.getId(), status);
+        try {
+            workers.execute(() -> run(status));
+        } catch (RejectedExecutionException e) {
+            statuses.remove(status.getId());
+            rejected.increment();
+            throw e;
+        }
+        submitted.increment();
+        return status;
+    }
+
+    private void run(AsyncTransferStatus status) {
+        status.markRunning();
+        try {
+            transferExecutor.transfer(status.getFromId(), status.getToId(), status.getAmount(), status.getStrategy());
+            status.markSucceeded();
+            succeeded.increment();
+        } catch (RuntimeException e) {
+            logger.warn("Async transfer {} failed: {}", status.getId(), e.getMessage());
+            status.markFailed(e.getMessage());
+            failed.increment();
+        }
+    }
+
+    /**
+     * Trạng thái của một async transfer
+     *
+     * @param id Transfer ID trả về lúc submit
+     * @return Trạng thái, empty nếu không tồn tại hoặc đã bị dọn
+     */
+    public Optional<AsyncTransferStatus> getStatus(String id) {
+        return Optional.ofNullable(statuses.get(id));
+    }
+
+    /**
+     * Dọn trạng thái của các transfers đã kết thúc quá {@code result-ttl-ms}
+     */
+    @Scheduled(fixedDelayString = "${account.transfer.async.purge-interval-ms:60000}")
+    public void purgeExpired() {
+        purgeFinished(Instant.now().minusMillis(resultTtlMs));
+    }
+
+    private void purgeFinished(Instant completedBefore) {
+        statuses.values().removeIf(s -> s.isFinished() && s.getCompletedAt().isBefore(completedBefore));
+    }
+
+    /**
+     * Snapshot trạng thái của worker pool và queue
+     *
+     * @return Counters và kích thước queue hiện tại
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("workers", workers.getMaximumPoolSize());
+        result.put("activeWorkers", workers.getActiveCount());
+        result.put("queued", workers.getQueue().size());
+        result.put("queueRemainingCapacity", workers.getQueue().remainingCapacity());
+        result.put("tracked", statuses.size());
+        result.put("submitted", submitted.sum());
+        result.put("rejected", rejected.sum());
+        result.put("succeeded", succeeded.sum());
+        result.put("failed", failed.sum());
+        return result;
+    }
+
+    /**
+     * Dừng nhận transfer mới và chờ các transfers đang chạy/đang chờ kết thúc
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        workers.shutdown();
+        if (!workers.awaitTermination(30, TimeUnit.SECONDS)) {
+            logger.warn("Async transfer pool did not drain in 30s, {} transfers still queued",
+                        workers.getQueue().size());
+            workers.shutdownNow();
+        }
+    }
+}
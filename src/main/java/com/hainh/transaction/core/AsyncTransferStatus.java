@@ -0,0 +1,115 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+
+/**
+ * AsyncTransferStatus - Trạng thái của một transfer được submit bất đồng bộ
+ *
+ * <p>Được tạo bởi request thread, cập nhật bởi worker thread và đọc bởi các request
+ * polling - các field thay đổi được là volatile.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public class AsyncTransferStatus {
+
+    /**
+     * Vòng đời của một async transfer
+     */
+    public enum State {
+        /** Đang chờ trong queue */
+        QUEUED,
+        /** Worker đang chạy transfer */
+        RUNNING,
+        /** Transaction đã commit */
+        SUCCEEDED,
+        /** Transfer lỗi, transaction đã rollback */
+        FAILED
+    }
+
+    private final String id;
+    private final Long fromId;
+    private final Long toId;
+    private final Double amount;
+    private final TransferStrategy strategy;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile State state = State.QUEUED;
+    private volatile String message;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+
+    AsyncTransferStatus(String id, Long fromId, Long toId, Double amount, TransferStrategy strategy) {
+        this.id = id;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.amount = amount;
+        this.strategy = strategy;
+    }
+
+    void markRunning() {
+        this.startedAt = Instant.now();
+        this.state = State.RUNNING;
+    }
+
+    void markSucceeded() {
+        this.completedAt = Instant.now();
+        this.state = State.SUCCEEDED;
+    }
+
+    void markFailed(String message) {
+        this.message = message;
+        this.completedAt = Instant.now();
+        this.state = State.FAILED;
+    }
+
+    /**
+     * Transfer đã kết thúc (thành công hoặc lỗi) chưa
+     * @return true nếu SUCCEEDED hoặc FAILED
+     */
+    public boolean isFinished() {
+        State current = state;
+        return current == State.SUCCEEDED || current == State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Long getFromId() {
+        return fromId;
+    }
+
+    public Long getToId() {
+        return toId;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public TransferStrategy getStrategy() {
+        return strategy;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+}
@@ -0,0 +1,63 @@
+package com.hainh.transaction.core;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * BalanceMinorUnitMigration - Điền {@code balance_minor} cho các account rows cũ
+ *
+ * <p>{@code ddl-auto=update} thêm cột balance_minor với giá trị NULL cho dữ liệu đã có.
+ * Component này chuyển {@code balance} (Double) sang minor units qua
+ * {@link Account#setBalance(Double)}, mỗi lượt {@value #BATCH_SIZE} rows trong một
+ * transaction riêng để không giữ lock quá lâu trên bảng lớn.</p>
+ *
+ * <p>Chạy trong {@link #afterSingletonsInstantiated()} - sau khi schema đã được update
+ * nhưng trước khi web server nhận request, nên conditional UPDATE trên balance_minor
+ * không bao giờ gặp NULL.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class BalanceMinorUnitMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(BalanceMinorUnitMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        long migrated = 0;
+        int converted;
+        do {
+            converted = template.execute(status -> {
+                List<Account> batch = accountRepository.findWithoutBalanceMinor(PageRequest.of(0, BATCH_SIZE));
+                for (Account account : batch) {
+                    account.setBalance(account.getBalance());
+                }
+                return batch.size();
+            });
+            migrated += converted;
+        } while (converted == BATCH_SIZE);
+
+        if (migrated > 0) {
+            logger.info("Converted {} account balances to minor units", migrated);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.hainh.transaction.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * BoundedTtlCache - Read-through cache đồng thời có giới hạn kích thước và TTL
+ *
+ * <p>ConcurrentHashMap với entries hết hạn sau {@code ttlMs}. Khi vượt {@code maxSize},
+ * entries hết hạn bị bỏ trước, sau đó entries sắp hết hạn nhất, cho đến còn 90% (xem {@link TtlEviction}).</p>
+ *
+ * <h3>Invalidation không bị "đè" bởi reader chậm:</h3>
+ * <p>Reader load giá trị cũ từ database, writer commit và invalidate, rồi reader mới put
+ * giá trị cũ vào cache - cache giữ giá trị sai đến hết TTL. Để tránh, mỗi key thuộc một
+ * stripe có generation counter: invalidate tăng generation TRƯỚC khi remove; reader ghi
+ * nhận generation trước khi load và sau khi put kiểm tra lại - nếu đã đổi thì tự remove
+ * giá trị vừa put.</p>
+ *
+ * @param <K> Kiểu key
+ * @param <V> Kiểu value (không null, không bị sửa sau khi put)
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+final class BoundedTtlCache<K, V> {
+
+    private static final int GENERATION_STRIPES = 1024;
+
+    private final int maxSize;
+    private final long ttlMs;
+    private final ConcurrentHashMap<K, Entry<V>> entries = new ConcurrentHashMap<>();
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+    private final LongAdder staleLoadsDiscarded = new LongAdder();
+
+    BoundedTtlCache(int maxSize, long ttlMs) {
+        this.maxSize = maxSize;
+        this.ttlMs = ttlMs;
+    }
+
+    /**
+     * Lấy value từ cache, hoặc load và cache nếu chưa có/đã hết hạn
+     *
+     * @param key Key
+     * @param loader Load value từ nguồn; trả về null = không tồn tại (không được cache)
+     * @return Value, hoặc null nếu loader trả về null
+     */
+    V get(K key, Function<? super K, ? extends V> loader) {
+        long now = System.currentTimeMillis();
+        Entry<V> entry = entries.get(key);
+        if (entry != null) {
+            if (entry.expiresAtMillis > now) {
+                hits.increment();
+                return entry.value;
+            }
+            if (entries.remove(key, entry)) {
+                expirations.increment();
+            }
+        }
+        misses.increment();
+
+        int stripe = stripeOf(key);
+        long generation = generations.get(stripe);
+        V value = loader.apply(key);
+        if (value == null) {
+            return null;
+        }
+        Entry<V> loaded = new Entry<>(value, now + ttlMs);
+        entries.put(key, loaded);
+        if (generations.get(stripe) != generation) {
+            // Key bị invalidate trong lúc load - value có thể đã cũ
+            entries.remove(key, loaded);
+            staleLoadsDiscarded.increment();
+        } else {
+            evictIfFull();
+        }
+        return value;
+    }
+
+    /**
+     * Lấy value nếu đang có trong cache và chưa hết hạn, không load
+     *
+     * <p>Chỉ hit được đếm: caller tự đọc nguồn khi không có, không phải cache load.</p>
+     *
+     * @param key Key
+     * @return Value, hoặc null nếu không có/đã hết hạn
+     */
+    V getIfPresent(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null || entry.expiresAtMillis <= System.currentTimeMillis()) {
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    /**
+     * Bỏ key khỏi cache; các loads đang chạy cho key này sẽ không được cache
+     *
+     * @param key Key
+     */
+    void invalidate(K key) {
+        generations.incrementAndGet(stripeOf(key));
+        entries.remove(key);
+        invalidations.increment();
+    }
+
+    private int stripeOf(K key) {
+        int h = key.hashCode();
+        return (h ^ (h >>> 16)) & (GENERATION_STRIPES - 1);
+    }
+
+    private void evictIfFull() {
+        TtlEviction.evictIfFull(entries, maxSize, evictionLock, e -> e.expiresAtMillis, expirations, evictions);
+    }
+
+    /**
+     * Snapshot metrics
+     *
+     * @return size, hits, misses, hitRatio, evictions, expirations, invalidations, staleLoadsDiscarded
+     */
+    Map<String, Object> snapshot() {
+        long h = hits.sum();
+        long m = misses.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", entries.size());
+        result.put("maxSize", maxSize);
+        result.put("ttlMs", ttlMs);
+        result.put("hits", h);
+        result.put("misses", m);
+        result.put("hitRatio", h + m == 0 ? 0.0 : (double) h / (h + m));
+        result.put("evictions", evictions.sum());
+        result.put("expirations", expirations.sum());
+        result.put("invalidations", invalidations.sum());
+        result.put("staleLoadsDiscarded", staleLoadsDiscarded.sum());
+        return result;
+    }
+
+    private static final class Entry<V> {
+        private final V value;
+        private final long expiresAtMillis;
+
+        private Entry(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+
+import org.springframework.data.domain.Persistable;
+
+/**
+ * IdempotencyRecord Entity - Bản ghi bền vững của một Idempotency-Key
+ *
+ * <p>Primary key chính là key do client gửi, nên database đảm bảo mỗi key chỉ được
+ * "claim" một lần - kể cả khi chạy nhiều instances hoặc sau khi restart làm mất
+ * store trong memory. Record được tạo ở trạng thái đang xử lý (status null) trước
+ * khi transfer chạy, và được ghi response sau khi transfer xong.</p>
+ *
+ * <p>Implement {@link Persistable} để {@code save()} luôn INSERT (persist) thay vì merge:
+ * với ID tự gán, Spring Data mặc định coi entity là "đã tồn tại" và merge sẽ ghi đè
+ * record của request khác thay vì báo trùng key.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Entity
+@Table(name = "idempotency_key",
+       indexes = @Index(name = "idx_idempotency_key_created", columnList = "created_at"))
+public class IdempotencyRecord implements Persistable<String> {
+
+    @Id
+    @Column(name = "idempotency_key", length = IdempotencyStore.MAX_KEY_LENGTH)
+    private String key;
+
+    /**
+     * Tham số của request đầu tiên - key dùng lại với tham số khác bị từ chối
+     */
+    @Column(name = "fingerprint", nullable = false, length = 200)
+    private String fingerprint;
+
+    /**
+     * HTTP status đã trả, null khi request đầu tiên còn đang xử lý
+     */
+    @Column(name = "response_status")
+    private Integer responseStatus;
+
+    @Column(name = "response_body", length = 1000)
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    @Transient
+    private boolean isNew = true;
+
+    /**
+     * Constructor rỗng cho JPA
+     */
+    protected IdempotencyRecord() {
+    }
+
+    /**
+     * Tạo record đang xử lý cho một key mới
+     *
+     * @param key Idempotency-Key
+     * @param fingerprint Tham số của request
+     */
+    public IdempotencyRecord(String key, String fingerprint) {
+        this.key = key;
+        this.fingerprint = fingerprint;
+        this.createdAt = Instant.now();
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        this.isNew = false;
+    }
+
+    @Override
+    public String getId() {
+        return key;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    public String getFingerprint() {
+        return fingerprint;
+    }
+
+    public Integer getResponseStatus() {
+        return responseStatus;
+    }
+
+    public String getResponseBody() {
+        return responseBody;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * Request đầu tiên đã có response chưa
+     * @return true nếu đã hoàn tất
+     */
+    public boolean isCompleted() {
+        return responseStatus != null;
+    }
+}
@@ -0,0 +1,48 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * IdempotencyRecordRepository - Data access cho {@link IdempotencyRecord}
+ *
+ * <p>Các modifying queries tự mở transaction ngắn của riêng chúng: store gọi chúng
+ * trước/sau transfer, không nằm trong transaction của transfer.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Repository
+public interface IdempotencyRecordRepository extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Ghi response của request đầu tiên
+     *
+     * @param key Idempotency-Key
+     * @param status HTTP status
+     * @param body Response body
+     * @return 1 nếu record tồn tại
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.responseStatus = :status, r.responseBody = :body WHERE r.key = :key")
+    int complete(@Param("key") String key, @Param("status") Integer status, @Param("body") String body);
+
+    /**
+     * Xóa các records cũ hơn TTL
+     *
+     * @param cutoff Thời điểm giới hạn
+     * @return Số records đã xóa
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :cutoff")
+    int deleteCreatedBefore(@Param("cutoff") Instant cutoff);
+}
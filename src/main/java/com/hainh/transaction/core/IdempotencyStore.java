@@ -0,0 +1,222 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * IdempotencyStore - Chống chuyển tiền hai lần khi client retry cùng một request
+ *
+ * <p>Client gửi header {@code Idempotency-Key}; request đầu tiên với key đó chạy transfer,
+ * các lần gửi lại nhận đúng response đã lưu. Hai tầng:</p>
+ * <ul>
+ *   <li><strong>Memory</strong>: ConcurrentHashMap giới hạn kích thước, có TTL. Retry storm
+ *       chỉ tốn một map lookup - không connection, không transaction.</li>
+ *   <li><strong>Database</strong>: bảng {@link IdempotencyRecord} với key là primary key.
+ *       Key được claim (INSERT) trước khi transfer chạy, nên sau restart, khi entry trong
+ *       memory đã bị evict, hoặc khi có nhiều instances, transfer vẫn chỉ chạy một lần.</li>
+ * </ul>
+ *
+ * <h3>Response theo trạng thái của key:</h3>
+ * <ul>
+ *   <li>Đã hoàn tất, cùng tham số → response đã lưu</li>
+ *   <li>Request đầu tiên còn đang chạy → 409 Conflict</li>
+ *   <li>Cùng key nhưng khác tham số → 422 Unprocessable Entity</li>
+ * </ul>
+ *
+ * <p>Response 409 và 5xx của chính transfer (lock timeout, lỗi hệ thống) không được lưu:
+ * key được giải phóng để client retry thật. Nếu process chết giữa lúc transfer đã commit
+ * và lúc ghi response, key ở trạng thái "đang xử lý" cho đến hết TTL - client nhận 409
+ * thay vì bị chuyển tiền hai lần.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class IdempotencyStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    /**
+     * Độ dài tối đa của Idempotency-Key (bằng độ dài cột primary key)
+     */
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final int HTTP_CONFLICT = 409;
+    private static final int HTTP_UNPROCESSABLE_ENTITY = 422;
+
+    @Autowired
+    private IdempotencyRecordRepository recordRepository;
+
+    @Value("${account.idempotency.max-entries:10000}")
+    private int maxEntries;
+
+    @Value("${account.idempotency.ttl-ms:86400000}")
+    private long ttlMs;
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    private final LongAdder replays = new LongAdder();
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder inProgressRejects = new LongAdder();
+    private final LongAdder mismatches = new LongAdder();
+    private final LongAdder databaseHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Chạy action đúng một lần cho mỗi key
+     *
+     * @param key Idempotency-Key do client gửi
+     * @param fingerprint Tham số của request (key dùng lại với tham số khác bị từ chối)
+     * @param action Action thực hiện request, chỉ chạy khi key chưa từng được claim
+     * @return Response của action, hoặc response đã lưu của lần đầu
+     * @throws IllegalArgumentException nếu key rỗng hoặc quá dài
+     */
+    public IdempotentResponse execute(String key, String fingerprint, Supplier<IdempotentResponse> action) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1.." + MAX_KEY_LENGTH + " characters");
+        }
+
+        Entry pending = new Entry(fingerprint, System.currentTimeMillis() + ttlMs);
+        while (true) {
+            Entry existing = entries.putIfAbsent(key, pending);
+            if (existing == null) {
+                break;
+            }
+            if (existing.isExpired()) {
+                entries.remove(key, existing);
+                continue;
+            }
+            return replay(fingerprint, existing.fingerprint, existing.response);
+        }
+        evictIfFull();
+
+        // Memory miss: claim key trong database
+        try {
+            recordRepository.saveAndFlush(new IdempotencyRecord(key, fingerprint));
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord record = recordRepository.findById(key).orElse(null);
+            if (record == null || !record.isCompleted()) {
+                entries.remove(key, pending);
+                return replay(fingerprint, record == null ? fingerprint : record.getFingerprint(), null);
+            }
+            databaseHits.increment();
+            IdempotentResponse stored = new IdempotentResponse(record.getResponseStatus(), record.getResponseBody());
+            entries.replace(key, pending, new Entry(record.getFingerprint(), pending.expiresAtMillis, stored));
+            return replay(fingerprint, record.getFingerprint(), stored);
+        }
+
+        executions.increment();
+        IdempotentResponse response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(key, pending);
+            throw e;
+        }
+
+        if (response.getStatus() == HTTP_CONFLICT || response.getStatus() >= 500) {
+            release(key, pending);
+            return response;
+        }
+        recordRepository.complete(key, response.getStatus(), response.getBody());
+        entries.replace(key, pending, new Entry(fingerprint, pending.expiresAtMillis, response));
+        return response;
+    }
+
+    /**
+     * Response cho request gửi lại một key đã được claim
+     */
+    private IdempotentResponse replay(String fingerprint, String storedFingerprint, IdempotentResponse stored) {
+        if (!fingerprint.equals(storedFingerprint)) {
+            mismatches.increment();
+            return new IdempotentResponse(HTTP_UNPROCESSABLE_ENTITY,
+                                          "Idempotency-Key was already used with different parameters");
+        }
+        if (stored == null) {
+            inProgressRejects.increment();
+            return new IdempotentResponse(HTTP_CONFLICT, "A request with this Idempotency-Key is still in progress");
+        }
+        replays.increment();
+        return stored;
+    }
+
+    private void release(String key, Entry pending) {
+        entries.remove(key, pending);
+        recordRepository.deleteById(key);
+    }
+
+    /**
+     * Khi vượt max-entries: bỏ entries hết hạn rồi entries cũ nhất cho đến còn 90% (xem {@link TtlEviction})
+     */
+    private void evictIfFull() {
+        TtlEviction.evictIfFull(entries, maxEntries, evictionLock, e -> e.expiresAtMillis, evictions, evictions);
+    }
+
+    /**
+     * Dọn entries hết hạn trong memory và records cũ hơn TTL trong database
+     */
+    @Scheduled(fixedDelayString = "${account.idempotency.cleanup-interval-ms:600000}",
+               initialDelayString = "${account.idempotency.cleanup-interval-ms:600000}")
+    public void purgeExpired() {
+        entries.entrySet().removeIf(e -> e.getValue().isExpired());
+        int deleted = recordRepository.deleteCreatedBefore(Instant.now().minusMillis(ttlMs));
+        if (deleted > 0) {
+            logger.info("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    /**
+     * Snapshot metrics của store
+     *
+     * @return size, maxEntries và các counters
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("size", entries.size());
+        result.put("maxEntries", maxEntries);
+        result.put("ttlMs", ttlMs);
+        result.put("executions", executions.sum());
+        result.put("replays", replays.sum());
+        result.put("databaseHits", databaseHits.sum());
+        result.put("inProgressRejects", inProgressRejects.sum());
+        result.put("mismatches", mismatches.sum());
+        result.put("evictions", evictions.sum());
+        return result;
+    }
+
+    private static final class Entry {
+        private final String fingerprint;
+        private final long expiresAtMillis;
+        /** null khi request đầu tiên còn đang chạy */
+        private final IdempotentResponse response;
+
+        private Entry(String fingerprint, long expiresAtMillis) {
+            this(fingerprint, expiresAtMillis, null);
+        }
+
+        private Entry(String fingerprint, long expiresAtMillis, IdempotentResponse response) {
+            this.fingerprint = fingerprint;
+            this.expiresAtMillis = expiresAtMillis;
+            this.response = response;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() > expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.hainh.transaction.core;
+
+/**
+ * IdempotentResponse - Response được lưu lại cho một Idempotency-Key
+ *
+ * <p>Chỉ giữ HTTP status và body dạng String (đủ cho transfer endpoint), để cùng
+ * một object được trả lại cho mọi lần retry mà không phải serialize lại.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class IdempotentResponse {
+
+    private final int status;
+    private final String body;
+
+    public IdempotentResponse(int status, String body) {
+        this.status = status;
+        this.body = body;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public String getBody() {
+        return body;
+    }
+}
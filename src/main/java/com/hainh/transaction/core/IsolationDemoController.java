@@ -3,12 +3,12 @@ package com.hainh.transaction.core;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Optional; // Thêm import này
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -24,7 +24,9 @@ public class IsolationDemoController {
     @Autowired
     private AccountService accountService;
 
-    private final ExecutorService executor = Executors.newFixedThreadPool(2); // Dùng để chạy concurrent tasks
+    @Autowired
+    @Qualifier("demoExecutor")
+    private ExecutorService executor; // Dùng để chạy concurrent tasks - virtual threads khi spring.threads.virtual.enabled=true
 
     /**
      * Endpoint để khởi tạo dữ liệu cho các demo.
@@ -0,0 +1,48 @@
+package com.hainh.transaction.core;
+
+/**
+ * LeaderboardEntry - Một account trong {@link AccountLeaderboard}
+ *
+ * <p>Immutable: số dư thay đổi thì writer thay entry khác, nên readers duyệt skip list
+ * không bao giờ thấy entry bị sửa dở.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class LeaderboardEntry {
+
+    private final long accountId;
+    private final String owner;
+    private final long balanceMinor;
+
+    private LeaderboardEntry(long accountId, String owner, long balanceMinor) {
+        this.accountId = accountId;
+        this.owner = owner;
+        this.balanceMinor = balanceMinor;
+    }
+
+    static LeaderboardEntry of(Long accountId, String owner, Long balanceMinor) {
+        return new LeaderboardEntry(accountId, owner, balanceMinor != null ? balanceMinor : 0L);
+    }
+
+    public long getAccountId() {
+        return accountId;
+    }
+
+    public String getOwner() {
+        return owner;
+    }
+
+    /**
+     * Tổng số dư thật (kể cả shards và ledger) - minor units
+     * @return Số dư tính bằng cent
+     */
+    public long getBalanceMinor() {
+        return balanceMinor;
+    }
+
+    public double getBalance() {
+        return Money.toMajor(balanceMinor);
+    }
+}
@@ -0,0 +1,98 @@
+package com.hainh.transaction.core;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * LedgerController - REST API cho append-only ledger
+ *
+ * <h3>Cách sử dụng:</h3>
+ * <ol>
+ *   <li>Bật ledger mode: POST /api/accounts/{id}/ledger</li>
+ *   <li>Chuyển tiền với strategy LEDGER: POST /api/accounts/transfer?...&amp;strategy=LEDGER</li>
+ *   <li>Xem entries / số dư: GET /api/accounts/{id}/ledger, GET /api/accounts/{id}/ledger/balance</li>
+ * </ol>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@RestController
+@RequestMapping("/api/accounts/{id}/ledger")
+public class LedgerController {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerController.class);
+
+    private static final int MAX_ENTRIES = 1000;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    /**
+     * Bật ledger mode cho account
+     *
+     * @param id Account ID
+     * @return Account sau khi bật, hoặc 400 nếu không hợp lệ
+     */
+    @PostMapping
+    public ResponseEntity<Account> enableLedger(@PathVariable Long id) {
+        logger.info("Received request to enable ledger mode for account {}", id);
+        try {
+            return ResponseEntity.ok(ledgerService.enableLedger(id));
+        } catch (RuntimeException e) {
+            logger.warn("Failed to enable ledger for account {}: {}", id, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * Các entries mới nhất của account
+     *
+     * @param id Account ID
+     * @param limit Số entries tối đa (1..1000)
+     * @return Entries theo thứ tự mới → cũ
+     */
+    @GetMapping
+    public List<LedgerEntry> getEntries(@PathVariable Long id,
+                                        @RequestParam(defaultValue = "50") int limit) {
+        return ledgerService.getRecentEntries(id, Math.max(1, Math.min(limit, MAX_ENTRIES)));
+    }
+
+    /**
+     * Số dư ledger (snapshot + tail), không gồm account row
+     *
+     * @param id Account ID
+     * @return accountId và ledgerBalance
+     */
+    @GetMapping("/balance")
+    public Map<String, Object> getLedgerBalance(@PathVariable Long id) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("accountId", id);
+        result.put("ledgerBalance", ledgerService.getLedgerBalance(id));
+        return result;
+    }
+
+    /**
+     * Snapshot thủ công (ngoài lịch của scheduler)
+     *
+     * @param id Account ID
+     * @return Snapshot sau khi cập nhật
+     */
+    @PostMapping("/snapshot")
+    public LedgerSnapshot takeSnapshot(@PathVariable Long id) {
+        logger.info("Received request to snapshot ledger of account {}", id);
+        return ledgerService.takeSnapshot(id);
+    }
+}
@@ -0,0 +1,121 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+import org.hibernate.annotations.Immutable;
+
+/**
+ * LedgerEntry Entity - Một dòng bút toán kép (double-entry) trong sổ cái append-only
+ * 
+ * <p>Thay vì UPDATE {@code account.balance}, mỗi ledger transfer INSERT hai dòng:
+ * một DEBIT (amount âm) cho account nguồn và một CREDIT (amount dương) cho account đích,
+ * cùng {@code transferId}. Số dư = snapshot gần nhất + tổng các entries sau snapshot.</p>
+ * 
+ * <h3>Tại sao append-only?</h3>
+ * <ul>
+ *   <li><strong>Concurrency</strong>: INSERT không lock row account, credits đồng thời vào
+ *       cùng account không phải chờ nhau</li>
+ *   <li><strong>Audit trail</strong>: Mọi thay đổi số dư đều được giữ lại, không cần ghi thêm log</li>
+ * </ul>
+ * 
+ * <p>{@link Immutable}: Hibernate không bao giờ sinh UPDATE cho entity này.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Entity
+@Immutable
+@EntityListeners(AccountStatisticsListener.class)
+@Table(name = "ledger_entry",
+       indexes = @Index(name = "idx_ledger_entry_account", columnList = "account_id, id"))
+public class LedgerEntry {
+    
+    /**
+     * Loại bút toán
+     */
+    public enum Type {
+        /** Số dư ban đầu chuyển từ account row khi bật ledger mode */
+        OPENING,
+        /** Tiền ra (amount âm) */
+        DEBIT,
+        /** Tiền vào (amount dương) */
+        CREDIT
+    }
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+    
+    /**
+     * ID chung của cặp DEBIT/CREDIT trong cùng một transfer
+     */
+    @Column(name = "transfer_id", nullable = false, length = 36)
+    private String transferId;
+    
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+    
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entry_type", nullable = false, length = 10)
+    private Type type;
+    
+    /**
+     * Số tiền có dấu: âm với DEBIT, dương với CREDIT/OPENING
+     */
+    @Column(name = "amount", nullable = false)
+    private Double amount;
+    
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+    
+    /**
+     * Default constructor - Bắt buộc cho JPA
+     */
+    protected LedgerEntry() {
+    }
+    
+    public LedgerEntry(String transferId, Long accountId, Type type, Double amount) {
+        this.transferId = transferId;
+        this.accountId = accountId;
+        this.type = type;
+        this.amount = amount;
+        this.createdAt = Instant.now();
+    }
+    
+    public Long getId() {
+        return id;
+    }
+    
+    public String getTransferId() {
+        return transferId;
+    }
+    
+    public Long getAccountId() {
+        return accountId;
+    }
+    
+    public Type getType() {
+        return type;
+    }
+    
+    public Double getAmount() {
+        return amount;
+    }
+    
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
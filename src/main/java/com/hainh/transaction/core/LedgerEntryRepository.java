@@ -0,0 +1,85 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import jakarta.persistence.QueryHint;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * LedgerEntryRepository - Data Access Layer cho sổ cái append-only
+ * 
+ * <p>Các aggregate queries đều lọc theo (account_id, id) để dùng index
+ * {@code idx_ledger_entry_account}.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+    
+    /**
+     * Các entries mới nhất của account
+     * 
+     * @param accountId ID tài khoản
+     * @param pageable Giới hạn số entries
+     * @return Entries theo thứ tự mới → cũ
+     */
+    List<LedgerEntry> findByAccountIdOrderByIdDesc(Long accountId, Pageable pageable);
+    
+    /**
+     * Tổng amount của các entries sau một entry ID - "tail" sau snapshot
+     * 
+     * @param accountId ID tài khoản
+     * @param afterId Entry ID cuối cùng đã có trong snapshot
+     * @return Tổng amount (0 nếu không có entry)
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0.0) FROM LedgerEntry e WHERE e.accountId = :accountId AND e.id > :afterId")
+    Double sumAmountAfter(@Param("accountId") Long accountId, @Param("afterId") Long afterId);
+    
+    /**
+     * Tổng amount của các entries trong khoảng (afterId, upToId]
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0.0) FROM LedgerEntry e "
+           + "WHERE e.accountId = :accountId AND e.id > :afterId AND e.id <= :upToId")
+    Double sumAmountBetween(@Param("accountId") Long accountId, @Param("afterId") Long afterId,
+                            @Param("upToId") Long upToId);
+    
+    /**
+     * Entry ID lớn nhất của account được tạo trước một thời điểm
+     * 
+     * @param accountId ID tài khoản
+     * @param cutoff Thời điểm giới hạn
+     * @return Entry ID, null nếu không có
+     */
+    @Query("SELECT MAX(e.id) FROM LedgerEntry e WHERE e.accountId = :accountId AND e.createdAt < :cutoff")
+    Long findMaxIdCreatedBefore(@Param("accountId") Long accountId, @Param("cutoff") Instant cutoff);
+    
+    /**
+     * Stream [accountId, amount] của tất cả entries - Dùng bởi {@link AccountStatistics}
+     * lúc khởi động; phải gọi trong transaction và đóng stream sau khi dùng
+     * 
+     * @return Stream các rows, giữ ResultSet mở đến khi đóng
+     */
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("SELECT e.accountId, e.amount FROM LedgerEntry e")
+    Stream<Object[]> streamAmounts();
+    
+    /**
+     * Tổng amount của entries thuộc các accounts còn tồn tại - Dùng để đối chiếu
+     * {@link AccountStatistics} (entries của account đã xóa vẫn được giữ làm audit trail,
+     * nhưng không còn trong aggregates)
+     * 
+     * @return Tổng amount, 0 nếu không có entry
+     */
+    @Query("SELECT COALESCE(SUM(e.amount), 0.0) FROM LedgerEntry e JOIN Account a ON a.id = e.accountId")
+    Double sumAmountsOfExistingAccounts();
+}
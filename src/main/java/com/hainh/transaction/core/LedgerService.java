@@ -0,0 +1,177 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * LedgerService - Sổ cái append-only (double-entry) thay cho update số dư tại chỗ
+ *
+ * <p>Account ở ledger mode không còn giữ số dư trong {@code account.balance}. Mỗi transfer
+ * INSERT một DEBIT và một CREDIT {@link LedgerEntry}; số dư được tính bằng
+ * snapshot + tổng các entries sau snapshot ("tail").</p>
+ *
+ * <h3>Locking:</h3>
+ * <ul>
+ *   <li><strong>Credit</strong>: chỉ INSERT, không lock account - credits đồng thời vào cùng
+ *       account không chờ nhau</li>
+ *   <li><strong>Debit</strong>: phải biết số dư hiện tại để không âm tiền, nên lock row của
+ *       account NGUỒN (SELECT ... FOR UPDATE) để serialize các debits của cùng account.
+ *       Account đích không bị lock.</li>
+ * </ul>
+ *
+ * <h3>Snapshot an toàn:</h3>
+ * <p>Entry IDs được cấp lúc INSERT, nhưng transaction có thể commit muộn hơn. Nếu snapshot
+ * cộng đến entry ID lớn nhất hiện tại, một entry có ID nhỏ hơn commit sau đó sẽ bị bỏ sót
+ * vĩnh viễn. Vì vậy snapshot chỉ cộng các entries tạo trước {@code now - settleMs}, với
+ * settleMs lớn hơn transaction timeout - các transactions đó chắc chắn đã kết thúc.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Service
+public class LedgerService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerService.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private AccountCache accountCache;
+
+    @Autowired
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    @Autowired
+    private LedgerSnapshotRepository ledgerSnapshotRepository;
+
+    /**
+     * Entries mới hơn khoảng này chưa được đưa vào snapshot (phải &gt; transaction timeout 30s)
+     */
+    @Value("${account.ledger.snapshot-settle-ms:60000}")
+    private long snapshotSettleMs;
+
+    /**
+     * Bật ledger mode - Chuyển số dư của account row thành một OPENING entry
+     *
+     * @param accountId ID tài khoản
+     * @return Account sau khi bật ledger mode
+     * @throws IllegalStateException nếu account đang dùng sharded sub-balances
+     */
+    @Transactional
+    public Account enableLedger(Long accountId) {
+        Account account = accountRepository.findByIdForUpdate(accountId)
+            .orElseThrow(() -> new RuntimeException("Account not found with ID: " + accountId));
+        if (account.usesLedger()) {
+            return account;
+        }
+        if (account.hasShards()) {
+            throw new IllegalStateException("Account " + accountId + " is sharded, unshard it first");
+        }
+
+        ledgerEntryRepository.save(new LedgerEntry("opening-" + accountId, accountId,
+                                                   LedgerEntry.Type.OPENING, account.getBalance()));
+        account.setBalance(0.0);
+        account.setLedgerMode(true);
+        logger.info("Enabled ledger mode for account {}", accountId);
+        return account;
+    }
+
+    /**
+     * Số dư ledger của account: snapshot + tail
+     *
+     * @param accountId ID tài khoản
+     * @return Số dư ledger
+     */
+    public Double getLedgerBalance(Long accountId) {
+        LedgerSnapshot snapshot = ledgerSnapshotRepository.findById(accountId).orElse(null);
+        if (snapshot == null) {
+            return ledgerEntryRepository.sumAmountAfter(accountId, 0L);
+        }
+        return snapshot.getBalance() + ledgerEntryRepository.sumAmountAfter(accountId, snapshot.getLastEntryId());
+    }
+
+    /**
+     * Các entries mới nhất của account
+     *
+     * @param accountId ID tài khoản
+     * @param limit Số entries tối đa
+     * @return Entries theo thứ tự mới → cũ
+     */
+    public List<LedgerEntry> getRecentEntries(Long accountId, int limit) {
+        return ledgerEntryRepository.findByAccountIdOrderByIdDesc(accountId, PageRequest.of(0, limit));
+    }
+
+    /**
+     * Ghi DEBIT entry - Lock account nguồn để kiểm tra số dư
+     *
+     * @param accountId ID tài khoản nguồn (ledger mode)
+     * @param transferId ID của transfer
+     * @param amount Số tiền (dương)
+     * @throws RuntimeException nếu số dư ledger không đủ
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void debit(Long accountId, String transferId, Double amount) {
+        // Số dư thật thay đổi mà account row không đổi - entity listener không thấy
+        accountCache.evictAfterCommit(accountId);
+        // Serialize các debits của cùng account; credits (chỉ INSERT) không bị chặn
+        accountRepository.findByIdForUpdate(accountId)
+            .orElseThrow(() -> new RuntimeException("Source account not found with ID: " + accountId));
+
+        Double available = getLedgerBalance(accountId);
+        if (available < amount) {
+            logger.warn("Insufficient ledger balance for account {}. Required: {}, Available: {}",
+                       accountId, amount, available);
+            throw new RuntimeException("Insufficient balance. Available: " + available + ", Required: " + amount);
+        }
+        ledgerEntryRepository.save(new LedgerEntry(transferId, accountId, LedgerEntry.Type.DEBIT, -amount));
+    }
+
+    /**
+     * Ghi CREDIT entry - Chỉ INSERT, không lock account
+     *
+     * @param accountId ID tài khoản đích (ledger mode)
+     * @param transferId ID của transfer
+     * @param amount Số tiền (dương)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(Long accountId, String transferId, Double amount) {
+        // Số dư thật thay đổi mà account row không đổi - entity listener không thấy
+        accountCache.evictAfterCommit(accountId);
+        ledgerEntryRepository.save(new LedgerEntry(transferId, accountId, LedgerEntry.Type.CREDIT, amount));
+    }
+
+    /**
+     * Cộng dồn snapshot đến entry mới nhất đã "settle"
+     *
+     * @param accountId ID tài khoản
+     * @return Snapshot sau khi cập nhật
+     */
+    @Transactional
+    public LedgerSnapshot takeSnapshot(Long accountId) {
+        LedgerSnapshot snapshot = ledgerSnapshotRepository.findById(accountId)
+            .orElseGet(() -> new LedgerSnapshot(accountId));
+
+        Instant cutoff = Instant.now().minusMillis(snapshotSettleMs);
+        Long upToId = ledgerEntryRepository.findMaxIdCreatedBefore(accountId, cutoff);
+        if (upToId == null || upToId <= snapshot.getLastEntryId()) {
+            return snapshot;
+        }
+
+        double delta = ledgerEntryRepository.sumAmountBetween(accountId, snapshot.getLastEntryId(), upToId);
+        snapshot.advance(delta, upToId);
+        logger.debug("Ledger snapshot for account {} advanced to entry {}, balance: {}",
+                    accountId, upToId, snapshot.getBalance());
+        return ledgerSnapshotRepository.save(snapshot);
+    }
+}
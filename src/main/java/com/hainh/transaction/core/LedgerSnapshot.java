@@ -0,0 +1,81 @@
+package com.hainh.transaction.core;
+
+import java.time.Instant;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+/**
+ * LedgerSnapshot Entity - Số dư ledger đã được cộng dồn đến một entry nhất định
+ * 
+ * <p>Mỗi ledger account có tối đa một snapshot (account_id là primary key). Đọc số dư
+ * chỉ cần cộng các entries có {@code id > lastEntryId}, không phải SUM toàn bộ lịch sử.
+ * Chỉ {@link LedgerService#takeSnapshot(Long)} ghi vào bảng này.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Entity
+@Table(name = "ledger_snapshot")
+public class LedgerSnapshot {
+    
+    @Id
+    @Column(name = "account_id")
+    private Long accountId;
+    
+    /**
+     * Tổng amount của tất cả entries có id &lt;= lastEntryId
+     */
+    @Column(name = "balance", nullable = false)
+    private Double balance;
+    
+    @Column(name = "last_entry_id", nullable = false)
+    private Long lastEntryId;
+    
+    @Column(name = "taken_at", nullable = false)
+    private Instant takenAt;
+    
+    /**
+     * Default constructor - Bắt buộc cho JPA
+     */
+    protected LedgerSnapshot() {
+    }
+    
+    public LedgerSnapshot(Long accountId) {
+        this.accountId = accountId;
+        this.balance = 0.0;
+        this.lastEntryId = 0L;
+        this.takenAt = Instant.now();
+    }
+    
+    /**
+     * Cộng dồn thêm các entries đến lastEntryId mới
+     * 
+     * @param delta Tổng amount của các entries mới
+     * @param newLastEntryId Entry cuối cùng đã được cộng
+     */
+    void advance(double delta, Long newLastEntryId) {
+        this.balance += delta;
+        this.lastEntryId = newLastEntryId;
+        this.takenAt = Instant.now();
+    }
+    
+    public Long getAccountId() {
+        return accountId;
+    }
+    
+    public Double getBalance() {
+        return balance;
+    }
+    
+    public Long getLastEntryId() {
+        return lastEntryId;
+    }
+    
+    public Instant getTakenAt() {
+        return takenAt;
+    }
+}
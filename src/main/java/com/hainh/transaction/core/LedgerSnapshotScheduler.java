@@ -0,0 +1,42 @@
+package com.hainh.transaction.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * LedgerSnapshotScheduler - Định kỳ cập nhật balance snapshots của ledger accounts
+ *
+ * <p>Tail sau snapshot càng ngắn thì đọc số dư càng nhanh. Mỗi account được snapshot
+ * trong transaction riêng qua {@link LedgerService} proxy, một account lỗi không ảnh
+ * hưởng các account khác.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class LedgerSnapshotScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerSnapshotScheduler.class);
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Scheduled(fixedDelayString = "${account.ledger.snapshot-interval-ms:60000}",
+               initialDelayString = "${account.ledger.snapshot-interval-ms:60000}")
+    public void snapshotLedgerAccounts() {
+        for (Long accountId : accountRepository.findLedgerAccountIds()) {
+            try {
+                ledgerService.takeSnapshot(accountId);
+            } catch (RuntimeException e) {
+                logger.error("Failed to snapshot ledger of account {}", accountId, e);
+            }
+        }
+    }
+}
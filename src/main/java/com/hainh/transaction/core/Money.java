@@ -0,0 +1,45 @@
+package com.hainh.transaction.core;
+
+/**
+ * Money - Chuyển đổi giữa số tiền dạng Double (đơn vị chính) và long minor units (cent)
+ *
+ * <p>Double không biểu diễn chính xác 0.1, nên sau nhiều lần cộng/trừ số dư bị "trôi"
+ * (ví dụ 100.00000000000001). Lưu số dư dạng {@code long} số cent thì mọi phép cộng/trừ
+ * đều chính xác, và hot path không phải autobox {@code Double}.</p>
+ *
+ * <p>Chỉ có static methods trên primitives - không tạo object nào khi chuyển đổi.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class Money {
+
+    /**
+     * Số minor units trong một đơn vị chính (2 chữ số thập phân)
+     */
+    public static final long MINOR_PER_MAJOR = 100;
+
+    private Money() {
+    }
+
+    /**
+     * Đơn vị chính → minor units, làm tròn đến cent gần nhất
+     *
+     * @param major Số tiền dạng đơn vị chính (ví dụ 12.34)
+     * @return Số minor units (ví dụ 1234)
+     */
+    public static long toMinor(double major) {
+        return Math.round(major * MINOR_PER_MAJOR);
+    }
+
+    /**
+     * Minor units → đơn vị chính
+     *
+     * @param minor Số minor units
+     * @return Số tiền dạng đơn vị chính
+     */
+    public static double toMajor(long minor) {
+        return (double) minor / MINOR_PER_MAJOR;
+    }
+}
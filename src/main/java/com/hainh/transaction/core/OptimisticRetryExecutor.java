@@ -0,0 +1,138 @@
+package com.hainh.transaction.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * OptimisticRetryExecutor - Chạy lại transaction khi bị optimistic lock conflict
+ *
+ * <p>Với {@code @Version} trên {@link Account}, transaction ghi sau sẽ fail với
+ * {@link ObjectOptimisticLockingFailureException} thay vì ghi đè dữ liệu. Cách xử lý
+ * chuẩn là chạy lại toàn bộ transaction: đọc lại số dư mới nhất và apply lại thay đổi.</p>
+ *
+ * <h3>Quan trọng - Executor phải nằm NGOÀI transaction:</h3>
+ * <p>Action truyền vào phải là call qua Spring proxy tới một @Transactional method
+ * (ví dụ {@code accountService.transfer(...)}). Mỗi lần retry là một transaction mới
+ * với persistence context mới. Retry bên trong một transaction đang mở sẽ chỉ đọc
+ * lại entity cũ từ persistence context và fail tiếp.</p>
+ *
+ * <h3>Backoff:</h3>
+ * <p>Exponential backoff với full jitter: lần retry thứ n chờ ngẫu nhiên trong khoảng
+ * [0, min(maxBackoff, initialBackoff * 2^(n-1))]. Jitter tránh việc các transactions
+ * vừa conflict với nhau cùng retry đúng một thời điểm và conflict tiếp.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class OptimisticRetryExecutor {
+
+    private static final Logger logger = LoggerFactory.getLogger(OptimisticRetryExecutor.class);
+
+    /**
+     * Tổng số lần thử tối đa (bao gồm lần đầu) - retry budget
+     */
+    @Value("${account.retry.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${account.retry.initial-backoff-ms:10}")
+    private long initialBackoffMs;
+
+    @Value("${account.retry.max-backoff-ms:200}")
+    private long maxBackoffMs;
+
+    private final Map<String, OperationCounters> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Chạy action, retry khi gặp optimistic lock conflict
+     *
+     * @param operation Tên operation - dùng làm key cho metrics
+     * @param action Call tới @Transactional method qua Spring proxy
+     * @return Kết quả của action
+     * @throws ObjectOptimisticLockingFailureException nếu vẫn conflict sau khi hết retry budget
+     */
+    public <T> T execute(String operation, Supplier<T> action) {
+        OperationCounters c = counters.computeIfAbsent(operation, key -> new OperationCounters());
+        c.calls.increment();
+
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return action.get();
+            } catch (ObjectOptimisticLockingFailureException e) {
+                c.conflicts.increment();
+                if (attempt >= maxAttempts) {
+                    c.giveUps.increment();
+                    logger.warn("{}: optimistic lock conflict, giving up after {} attempts", operation, attempt);
+                    throw e;
+                }
+
+                long backoff = backoffMillis(attempt);
+                c.retries.increment();
+                logger.debug("{}: optimistic lock conflict on attempt {}, retrying in {} ms",
+                            operation, attempt, backoff);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(backoff);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    c.giveUps.increment();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Chạy action không có kết quả, retry khi gặp optimistic lock conflict
+     *
+     * @param operation Tên operation - dùng làm key cho metrics
+     * @param action Call tới @Transactional method qua Spring proxy
+     */
+    public void execute(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private long backoffMillis(int attempt) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    /**
+     * Snapshot metrics theo operation: số calls, conflicts, retries và give-ups
+     *
+     * @return Map operation → counters
+     */
+    public Map<String, Map<String, Long>> snapshot() {
+        Map<String, Map<String, Long>> result = new LinkedHashMap<>();
+        counters.forEach((operation, c) -> {
+            Map<String, Long> map = new LinkedHashMap<>();
+            map.put("calls", c.calls.sum());
+            map.put("conflicts", c.conflicts.sum());
+            map.put("retries", c.retries.sum());
+            map.put("giveUps", c.giveUps.sum());
+            result.put(operation, map);
+        });
+        return result;
+    }
+
+    private static final class OperationCounters {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder conflicts = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder giveUps = new LongAdder();
+    }
+}
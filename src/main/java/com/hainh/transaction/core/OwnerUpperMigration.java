@@ -0,0 +1,61 @@
+package com.hainh.transaction.core;
+
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * OwnerUpperMigration - Điền {@code owner_upper} cho các account rows cũ
+ *
+ * <p>{@code ddl-auto=update} thêm cột owner_upper với giá trị NULL cho dữ liệu đã có;
+ * {@link AccountRepository#findByOwnerIgnoreCase(String)} sẽ không tìm thấy các rows đó.
+ * Component này chuẩn hóa lại owner qua {@link Account#setOwner(String)} - cùng hàm dùng
+ * khi query - mỗi lượt {@value #BATCH_SIZE} rows trong một transaction riêng.</p>
+ *
+ * <p>Chạy trong {@link #afterSingletonsInstantiated()}, trước khi web server nhận request.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class OwnerUpperMigration implements SmartInitializingSingleton {
+
+    private static final Logger logger = LoggerFactory.getLogger(OwnerUpperMigration.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        long migrated = 0;
+        int normalized;
+        do {
+            normalized = template.execute(status -> {
+                List<Account> batch = accountRepository.findWithoutOwnerUpper(PageRequest.of(0, BATCH_SIZE));
+                for (Account account : batch) {
+                    account.setOwner(account.getOwner());
+                }
+                return batch.size();
+            });
+            migrated += normalized;
+        } while (normalized == BATCH_SIZE);
+
+        if (migrated > 0) {
+            logger.info("Normalized owner_upper for {} accounts", migrated);
+        }
+    }
+}
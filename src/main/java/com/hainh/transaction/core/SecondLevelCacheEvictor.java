@@ -0,0 +1,65 @@
+package com.hainh.transaction.core;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * SecondLevelCacheEvictor - Evict từng account khỏi Hibernate second-level cache sau native UPDATE
+ *
+ * <p>Native balance UPDATEs trong {@link AccountRepository} khai báo query space
+ * {@value Account#BALANCE_UPDATE_SPACE} nên Hibernate không xóa cả region
+ * {@value Account#CACHE_REGION}. Đổi lại, Hibernate cũng không biết account nào đã đổi:</p>
+ * <ul>
+ *   <li><strong>Entity region</strong>: chỉ account vừa UPDATE bị evict, các accounts khác
+ *       vẫn được phục vụ từ cache</li>
+ *   <li><strong>Query region</strong> {@value Account#QUERY_CACHE_REGION}: update timestamps của
+ *       bảng {@code account} không được tăng, nên kết quả các balance-range queries đã cache phải
+ *       bị bỏ - giống hệt những gì một UPDATE bình thường gây ra cho query cache</li>
+ * </ul>
+ *
+ * <p>Evict chạy sau commit: transaction rollback không làm mất entries, và không reader nào
+ * đưa lại giá trị trước commit vào cache sau khi đã evict - trừ reader đã load row cũ TRƯỚC
+ * commit và put SAU khi evict. Cửa sổ đó rất hẹp, và writer dùng entity (optimistic) vẫn
+ * an toàn: UPDATE đã tăng version nên entity cũ bị @Version check từ chối.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class SecondLevelCacheEvictor {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Evict account khỏi second-level cache sau khi transaction commit
+     *
+     * <p>Ngoài transaction (auto-commit) thì evict ngay.</p>
+     *
+     * @param id Account ID vừa bị UPDATE bằng native SQL
+     */
+    public void evictAccountAfterCommit(Long id) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            evictAccount(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictAccount(id);
+            }
+        });
+    }
+
+    private void evictAccount(Long id) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Account.class, id);
+        cache.evictQueryRegion(Account.QUERY_CACHE_REGION);
+    }
+}
@@ -0,0 +1,96 @@
+package com.hainh.transaction.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import jakarta.persistence.EntityManagerFactory;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * SecondLevelCacheStatistics - Hibernate second-level cache và query cache metrics
+ *
+ * <p>Đọc {@link Statistics} của SessionFactory (cần {@code hibernate.generate_statistics=true}).
+ * {@code prepareStatementCount} là số JDBC statements đã chuẩn bị = số round trips tới
+ * database - so sánh trước/sau để thấy lượng đọc được cache hấp thụ.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class SecondLevelCacheStatistics {
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Hibernate statistics của SessionFactory
+     *
+     * @return Statistics (counters cộng dồn từ lúc khởi động hoặc lần reset gần nhất)
+     */
+    public Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Snapshot metrics: tổng hợp và theo từng cache region
+     *
+     * @return enabled, second-level cache, query cache, DB round trips và các regions
+     */
+    public Map<String, Object> snapshot() {
+        Statistics stats = statistics();
+
+        Map<String, Object> secondLevel = new LinkedHashMap<>();
+        long l2Hits = stats.getSecondLevelCacheHitCount();
+        long l2Misses = stats.getSecondLevelCacheMissCount();
+        secondLevel.put("hits", l2Hits);
+        secondLevel.put("misses", l2Misses);
+        secondLevel.put("puts", stats.getSecondLevelCachePutCount());
+        secondLevel.put("hitRatio", ratio(l2Hits, l2Misses));
+
+        Map<String, Object> queryCache = new LinkedHashMap<>();
+        long queryHits = stats.getQueryCacheHitCount();
+        long queryMisses = stats.getQueryCacheMissCount();
+        queryCache.put("hits", queryHits);
+        queryCache.put("misses", queryMisses);
+        queryCache.put("puts", stats.getQueryCachePutCount());
+        queryCache.put("hitRatio", ratio(queryHits, queryMisses));
+        queryCache.put("updateTimestampsHits", stats.getUpdateTimestampsCacheHitCount());
+        queryCache.put("updateTimestampsPuts", stats.getUpdateTimestampsCachePutCount());
+
+        Map<String, Object> database = new LinkedHashMap<>();
+        database.put("prepareStatementCount", stats.getPrepareStatementCount());
+        database.put("entityLoadCount", stats.getEntityLoadCount());
+        database.put("queryExecutionCount", stats.getQueryExecutionCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : stats.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = stats.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("hits", region.getHitCount());
+            map.put("misses", region.getMissCount());
+            map.put("puts", region.getPutCount());
+            regions.put(regionName, map);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", stats.isStatisticsEnabled());
+        result.put("secondLevelCache", secondLevel);
+        result.put("queryCache", queryCache);
+        result.put("database", database);
+        result.put("regions", regions);
+        return result;
+    }
+
+    private static double ratio(long hits, long misses) {
+        return hits + misses == 0 ? 0.0 : (double) hits / (hits + misses);
+    }
+}
@@ -0,0 +1,86 @@
+package com.hainh.transaction.core;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * TransferExecutor - Chọn strategy chuyển tiền cho từng request
+ * 
+ * <p>Mỗi strategy là một @Transactional method riêng trên {@link AccountService}.
+ * Việc chọn strategy phải nằm ở bean khác: nếu AccountService tự gọi method
+ * @Transactional của chính nó thì call không đi qua proxy (self-invocation)
+ * và không có transaction nào được tạo.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class TransferExecutor {
+    
+    @Autowired
+    private AccountService accountService;
+    
+    @Autowired
+    private TransferMetrics transferMetrics;
+    
+    @Autowired
+    private OptimisticRetryExecutor retryExecutor;
+    
+    @Autowired
+    private AccountLockManager lockManager;
+    
+    /**
+     * Thực hiện chuyển tiền với strategy chỉ định
+     * 
+     * @param fromId ID tài khoản nguồn
+     * @param toId ID tài khoản đích
+     * @param amount Số tiền cần chuyển
+     * @param strategy Strategy, null = {@link TransferStrategy#ENTITY}
+     */
+    public void transfer(Long fromId, Long toId, Double amount, TransferStrategy strategy) {
+        TransferStrategy effective = strategy != null ? strategy : TransferStrategy.ENTITY;
+        long start = System.nanoTime();
+        try {
+            if (effective == TransferStrategy.SHARDED) {
+                // Sharding tồn tại để credits vào cùng account chạy song song;
+                // serialize theo account trong JVM sẽ triệt tiêu điều đó
+                dispatch(fromId, toId, amount, effective);
+            } else if (effective == TransferStrategy.OPTIMISTIC || effective == TransferStrategy.ENTITY) {
+                // Cùng transfer() có @Version check - retry khi conflict với updateAccount, demos...
+                // Lock theo từng lần thử: không giữ stripes trong lúc backoff giữa các lần retry
+                retryExecutor.execute("transfer", () -> lockManager.withLocks(fromId, toId, () -> {
+                    dispatch(fromId, toId, amount, effective);
+                    return null;
+                }));
+            } else if (effective == TransferStrategy.LEDGER) {
+                // Credit vào ledger chỉ là INSERT - chỉ cần serialize theo account nguồn
+                lockManager.withLock(fromId, () -> {
+                    dispatch(fromId, toId, amount, effective);
+                    return null;
+                });
+            } else {
+                // Xếp hàng trong memory trước khi transaction lấy connection từ pool
+                lockManager.withLocks(fromId, toId, () -> {
+                    dispatch(fromId, toId, amount, effective);
+                    return null;
+                });
+            }
+            transferMetrics.recordSuccess(effective, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            transferMetrics.recordFailure(effective, System.nanoTime() - start, e);
+            throw e;
+        }
+    }
+    
+    private void dispatch(Long fromId, Long toId, Double amount, TransferStrategy strategy) {
+        switch (strategy) {
+            case CONDITIONAL_UPDATE -> accountService.transferWithConditionalUpdate(fromId, toId, amount);
+            case PESSIMISTIC -> accountService.transferWithPessimisticLock(fromId, toId, amount);
+            case OPTIMISTIC, ENTITY -> accountService.transfer(fromId, toId, amount);
+            case SHARDED -> accountService.transferSharded(fromId, toId, amount);
+            case LEDGER -> accountService.transferWithLedger(fromId, toId, amount);
+            case MINOR_UNITS -> accountService.transfer(fromId.longValue(), toId.longValue(), Money.toMinor(amount));
+        }
+    }
+}
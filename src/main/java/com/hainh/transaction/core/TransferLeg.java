@@ -0,0 +1,60 @@
+package com.hainh.transaction.core;
+
+/**
+ * TransferLeg - Một "chân" chuyển tiền trong batch transfer
+ *
+ * <p>DTO này được deserialize từ JSON request body của
+ * {@code POST /api/accounts/transfer/batch}. Mỗi leg tương đương với một
+ * lần gọi {@code POST /api/accounts/transfer} riêng lẻ.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public class TransferLeg {
+
+    private Long fromId;
+    private Long toId;
+    private Double amount;
+
+    /**
+     * Default constructor - Bắt buộc cho Jackson deserialization
+     */
+    public TransferLeg() {
+    }
+
+    public TransferLeg(Long fromId, Long toId, Double amount) {
+        this.fromId = fromId;
+        this.toId = toId;
+        this.amount = amount;
+    }
+
+    public Long getFromId() {
+        return fromId;
+    }
+
+    public void setFromId(Long fromId) {
+        this.fromId = fromId;
+    }
+
+    public Long getToId() {
+        return toId;
+    }
+
+    public void setToId(Long toId) {
+        this.toId = toId;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(Double amount) {
+        this.amount = amount;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TransferLeg{%d -> %d, amount=%.2f}", fromId, toId, amount);
+    }
+}
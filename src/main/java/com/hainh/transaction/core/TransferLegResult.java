@@ -0,0 +1,69 @@
+package com.hainh.transaction.core;
+
+/**
+ * TransferLegResult - Kết quả của từng leg trong batch transfer
+ *
+ * <p>Batch transfer không fail toàn bộ khi một leg không hợp lệ (account không tồn tại,
+ * không đủ số dư...). Leg đó được đánh dấu failed và các leg còn lại vẫn được xử lý.
+ * Client dựa vào {@link #isSuccess()} để biết leg nào cần retry.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public class TransferLegResult {
+
+    private final int index;
+    private final Long fromId;
+    private final Long toId;
+    private final Double amount;
+    private boolean success;
+    private String message;
+
+    public TransferLegResult(int index, TransferLeg leg, boolean success, String message) {
+        this.index = index;
+        this.fromId = leg.getFromId();
+        this.toId = leg.getToId();
+        this.amount = leg.getAmount();
+        this.success = success;
+        this.message = message;
+    }
+
+    /**
+     * Đánh dấu leg là failed - Dùng khi cả chunk bị rollback sau khi leg đã được apply
+     *
+     * @param message Lý do fail
+     */
+    void markFailed(String message) {
+        this.success = false;
+        this.message = message;
+    }
+
+    /**
+     * Vị trí của leg trong request (0-based)
+     * @return index của leg
+     */
+    public int getIndex() {
+        return index;
+    }
+
+    public Long getFromId() {
+        return fromId;
+    }
+
+    public Long getToId() {
+        return toId;
+    }
+
+    public Double getAmount() {
+        return amount;
+    }
+
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+}
@@ -0,0 +1,91 @@
+package com.hainh.transaction.core;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+
+/**
+ * TransferMetrics - Counters theo từng transfer strategy
+ * 
+ * <p>Dùng để so sánh các strategy dưới cùng một tải: số lần thử, thành công, thất bại,
+ * số lần hết lock wait timeout và thời gian trung bình. Counters dùng {@link LongAdder}
+ * nên nhiều request threads ghi đồng thời không tranh chấp cùng một biến.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class TransferMetrics {
+    
+    private final Map<TransferStrategy, StrategyCounters> counters = new EnumMap<>(TransferStrategy.class);
+    
+    public TransferMetrics() {
+        for (TransferStrategy strategy : TransferStrategy.values()) {
+            counters.put(strategy, new StrategyCounters());
+        }
+    }
+    
+    /**
+     * Ghi nhận một transfer thành công
+     * 
+     * @param strategy Strategy đã dùng
+     * @param elapsedNanos Thời gian thực hiện
+     */
+    public void recordSuccess(TransferStrategy strategy, long elapsedNanos) {
+        StrategyCounters c = counters.get(strategy);
+        c.successes.increment();
+        c.totalNanos.add(elapsedNanos);
+    }
+    
+    /**
+     * Ghi nhận một transfer thất bại
+     * 
+     * @param strategy Strategy đã dùng
+     * @param elapsedNanos Thời gian thực hiện
+     * @param error Exception gây ra thất bại
+     */
+    public void recordFailure(TransferStrategy strategy, long elapsedNanos, Throwable error) {
+        StrategyCounters c = counters.get(strategy);
+        c.failures.increment();
+        c.totalNanos.add(elapsedNanos);
+        if (error instanceof PessimisticLockingFailureException) {
+            c.lockTimeouts.increment();
+        }
+    }
+    
+    /**
+     * Snapshot của tất cả counters để serialize thành JSON
+     * 
+     * @return Map strategy → counters
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new LinkedHashMap<>();
+        counters.forEach((strategy, c) -> result.put(strategy.name(), c.toMap()));
+        return result;
+    }
+    
+    private static final class StrategyCounters {
+        private final LongAdder successes = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder lockTimeouts = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        
+        Map<String, Object> toMap() {
+            long ok = successes.sum();
+            long failed = failures.sum();
+            long total = ok + failed;
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("attempts", total);
+            map.put("successes", ok);
+            map.put("failures", failed);
+            map.put("lockTimeouts", lockTimeouts.sum());
+            map.put("avgMillis", total == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / total);
+            return map;
+        }
+    }
+}
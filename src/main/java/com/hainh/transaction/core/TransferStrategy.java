@@ -0,0 +1,58 @@
+package com.hainh.transaction.core;
+
+/**
+ * TransferStrategy - Các cách thực hiện chuyển tiền
+ * 
+ * <p>Cho phép chọn strategy theo từng request ({@code ?strategy=...}) để so sánh
+ * throughput và hành vi dưới concurrency giữa các cách tiếp cận.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public enum TransferStrategy {
+    
+    /**
+     * Read-modify-write trên managed entities - {@link AccountService#transfer(Long, Long, Double)}
+     * 
+     * <p>Account có {@code @Version}, nên strategy mặc định này cũng được retry khi conflict
+     * như {@link #OPTIMISTIC} (giữ lại tên để không đổi API).</p>
+     */
+    ENTITY,
+    
+    /**
+     * Hai conditional UPDATE statements, affected-row count quyết định thành công -
+     * {@link AccountService#transferWithConditionalUpdate(Long, Long, Double)}
+     */
+    CONDITIONAL_UPDATE,
+    
+    /**
+     * SELECT ... FOR UPDATE trên cả hai accounts theo thứ tự ID tăng dần -
+     * {@link AccountService#transferWithPessimisticLock(Long, Long, Double)}
+     */
+    PESSIMISTIC,
+    
+    /**
+     * Read-modify-write trên entities có {@code @Version}, chạy lại transaction khi conflict -
+     * {@link AccountService#transfer(Long, Long, Double)} bọc bởi {@link OptimisticRetryExecutor}
+     */
+    OPTIMISTIC,
+    
+    /**
+     * Như CONDITIONAL_UPDATE, nhưng accounts đã bật sharding được credit/debit qua
+     * sub-ledger shards - {@link AccountService#transferSharded(Long, Long, Double)}
+     */
+    SHARDED,
+    
+    /**
+     * Accounts ở ledger mode chỉ INSERT DEBIT/CREDIT entries vào append-only ledger -
+     * {@link AccountService#transferWithLedger(Long, Long, Double)}
+     */
+    LEDGER,
+    
+    /**
+     * Như CONDITIONAL_UPDATE, nhưng số tiền được chuyển sang long minor units ngay khi vào
+     * và đi qua primitive API - {@link AccountService#transfer(long, long, long)}
+     */
+    MINOR_UNITS
+}
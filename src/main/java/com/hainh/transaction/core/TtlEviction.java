@@ -0,0 +1,72 @@
+package com.hainh.transaction.core;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToLongFunction;
+
+/**
+ * TtlEviction - Chính sách evict chung cho các maps trong memory có giới hạn kích thước và TTL
+ *
+ * <p>Dùng bởi {@link BoundedTtlCache} và {@link IdempotencyStore}. Khi vượt {@code maxSize}:
+ * bỏ các entries hết hạn, nếu vẫn còn nhiều thì bỏ các entries sắp hết hạn nhất cho đến còn
+ * 90% - mỗi lần evict giải phóng đủ chỗ cho nhiều inserts tiếp theo. Chỉ một thread evict tại
+ * một thời điểm; các threads khác thấy lock đang bị giữ thì bỏ qua thay vì chờ.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+final class TtlEviction {
+
+    private TtlEviction() {
+    }
+
+    /**
+     * Evict nếu map vượt giới hạn
+     *
+     * @param entries Map cần giới hạn
+     * @param maxSize Số entries tối đa
+     * @param lock Lock evict của map
+     * @param expiresAtMillis Thời điểm hết hạn của một entry
+     * @param expirations Đếm entries bị bỏ vì đã hết hạn
+     * @param evictions Đếm entries còn hạn bị bỏ vì map đầy
+     * @param <K> Kiểu key
+     * @param <E> Kiểu entry
+     */
+    static <K, E> void evictIfFull(ConcurrentHashMap<K, E> entries, int maxSize, ReentrantLock lock,
+                                   ToLongFunction<? super E> expiresAtMillis,
+                                   LongAdder expirations, LongAdder evictions) {
+        if (entries.size() <= maxSize || !lock.tryLock()) {
+            return;
+        }
+        try {
+            long now = System.currentTimeMillis();
+            int target = maxSize * 9 / 10;
+            List<Map.Entry<K, E>> live = new ArrayList<>(entries.size());
+            for (Map.Entry<K, E> e : entries.entrySet()) {
+                if (expiresAtMillis.applyAsLong(e.getValue()) <= now) {
+                    if (entries.remove(e.getKey(), e.getValue())) {
+                        expirations.increment();
+                    }
+                } else {
+                    live.add(e);
+                }
+            }
+            if (live.size() > target) {
+                live.sort(Comparator.comparingLong(e -> expiresAtMillis.applyAsLong(e.getValue())));
+                for (int i = 0; i < live.size() - target; i++) {
+                    if (entries.remove(live.get(i).getKey(), live.get(i).getValue())) {
+                        evictions.increment();
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,373 @@
+package com.hainh.transaction.monitoring;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * ConnectionPoolTelemetry - Trạng thái Hikari pools, thời gian chờ connection và cảnh báo pool bão hòa
+ *
+ * <h3>Theo từng Hikari pool:</h3>
+ * <ul>
+ *   <li><strong>Trạng thái</strong>: active, idle, pending threads, total - từ {@link PoolStats} của
+ *       Hikari (cache tối đa 1 giây)</li>
+ *   <li><strong>Acquire</strong>: histogram thời gian chờ mượn connection, số lần timeout</li>
+ *   <li><strong>Hold</strong>: histogram thời gian giữ connection (mượn → trả)</li>
+ * </ul>
+ *
+ * <h3>Theo method:</h3>
+ * <p>Mỗi connection mượn được gán cho method {@code @Transactional} sở hữu transaction lúc mượn
+ * ({@link TransactionMetrics#connectionOwner()}), nên thấy được method nào giữ connection lâu
+ * (ví dụ readers của IsolationDemoService ngủ trong transaction). Connections đang bị giữ được
+ * theo dõi theo thread, trả về theo thứ tự ngược lúc mượn.</p>
+ *
+ * <h3>Alarm:</h3>
+ * <p>Mỗi {@code monitoring.pool.alarm-window-ms}, cửa sổ hiện tại được đóng lại: p99 acquire vượt
+ * {@code monitoring.pool.acquire-alarm-ms} hoặc có timeout thì pool "firing" (log WARN một lần khi
+ * chuyển trạng thái, kèm connections đang bị giữ lâu nhất). Endpoint alarms còn xét cửa sổ đang
+ * mở để không phải chờ hết cửa sổ.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class ConnectionPoolTelemetry {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConnectionPoolTelemetry.class);
+
+    private static final String NOT_INSTRUMENTED = "(not instrumented)";
+    private static final int ALARM_HISTORY_SIZE = 50;
+    private static final int TOP_HOLDERS = 10;
+
+    private static final ThreadLocal<Deque<Holder>> HELD = new ThreadLocal<>();
+
+    @Autowired
+    private TransactionMetrics transactionMetrics;
+
+    private final long acquireAlarmNanos;
+    private final long alarmWindowMs;
+
+    private final Map<String, PoolTelemetry> pools = new ConcurrentHashMap<>();
+    private final Map<String, MethodUsage> methodUsage = new ConcurrentHashMap<>();
+    private final Set<Holder> holders = ConcurrentHashMap.newKeySet();
+    private final Deque<Map<String, Object>> alarmHistory = new ConcurrentLinkedDeque<>();
+
+    public ConnectionPoolTelemetry(@Value("${monitoring.pool.acquire-alarm-ms:50}") long acquireAlarmMs,
+                                   @Value("${monitoring.pool.alarm-window-ms:10000}") long alarmWindowMs) {
+        this.acquireAlarmNanos = acquireAlarmMs * 1_000_000;
+        this.alarmWindowMs = alarmWindowMs;
+    }
+
+    /**
+     * Một connection đang bị giữ
+     */
+    private static final class Holder {
+        final PoolTelemetry pool;
+        final MethodUsage usage;
+        final TransactionMetrics.Frame owner;
+        final Thread thread = Thread.currentThread();
+        final long acquiredNanos = System.nanoTime();
+
+        Holder(PoolTelemetry pool, MethodUsage usage, TransactionMetrics.Frame owner) {
+            this.pool = pool;
+            this.usage = usage;
+            this.owner = owner;
+        }
+    }
+
+    /**
+     * Connections một method đã mượn từ một pool
+     */
+    private static final class MethodUsage {
+        final String pool;
+        final String method;
+        final LatencyHistogram acquire = new LatencyHistogram();
+        final LatencyHistogram hold = new LatencyHistogram();
+        final LongAdder totalHoldNanos = new LongAdder();
+        final LongAdder timeouts = new LongAdder();
+
+        MethodUsage(String pool, String method) {
+            this.pool = pool;
+            this.method = method;
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("pool", pool);
+            result.put("method", method);
+            result.put("timeouts", timeouts.sum());
+            result.put("totalHoldMillis", millis(totalHoldNanos.sum()));
+            result.put("acquire", acquire.snapshot());
+            result.put("hold", hold.snapshot());
+            return result;
+        }
+    }
+
+    /**
+     * Cửa sổ đánh giá alarm
+     */
+    private static final class Window {
+        final long startedAt = System.currentTimeMillis();
+        final LatencyHistogram acquire = new LatencyHistogram();
+        final LongAdder timeouts = new LongAdder();
+    }
+
+    /**
+     * Telemetry của một Hikari pool, nhận callbacks từ tracker của pool
+     */
+    final class PoolTelemetry {
+        private final String name;
+        private final PoolStats stats;
+        private final LatencyHistogram acquire = new LatencyHistogram();
+        private final LatencyHistogram hold = new LatencyHistogram();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder connectionsCreated = new LongAdder();
+        private final AtomicReference<Window> window = new AtomicReference<>(new Window());
+        private volatile Map<String, Object> lastWindow;
+        private volatile Instant firingSince;
+
+        PoolTelemetry(String name, PoolStats stats) {
+            this.name = name;
+            this.stats = stats;
+        }
+
+        void connectionAcquired(long acquireNanos) {
+            acquire.record(acquireNanos);
+            window.get().acquire.record(acquireNanos);
+            TransactionMetrics.Frame owner = TransactionMetrics.connectionOwner();
+            MethodUsage usage = usageOf(this, owner);
+            usage.acquire.record(acquireNanos);
+
+            Holder holder = new Holder(this, usage, owner);
+            Deque<Holder> held = HELD.get();
+            if (held == null) {
+                held = new ArrayDeque<>();
+                HELD.set(held);
+            }
+            held.push(holder);
+            holders.add(holder);
+        }
+
+        void connectionReturned() {
+            Holder holder = popHeld(this);
+            if (holder == null) {
+                return;
+            }
+            holders.remove(holder);
+            long heldNanos = System.nanoTime() - holder.acquiredNanos;
+            hold.record(heldNanos);
+            holder.usage.hold.record(heldNanos);
+            holder.usage.totalHoldNanos.add(heldNanos);
+            transactionMetrics.recordConnectionUsage(holder.owner, heldNanos);
+        }
+
+        void connectionTimedOut() {
+            timeouts.increment();
+            window.get().timeouts.increment();
+            usageOf(this, TransactionMetrics.connectionOwner()).timeouts.increment();
+        }
+
+        void connectionCreated(long createMillis) {
+            connectionsCreated.increment();
+        }
+
+        Map<String, Object> snapshot() {
+            Map<String, Object> result = state();
+            result.put("connectionsCreated", connectionsCreated.sum());
+            result.put("timeouts", timeouts.sum());
+            result.put("acquire", acquire.snapshot());
+            result.put("hold", hold.snapshot());
+            return result;
+        }
+
+        private Map<String, Object> state() {
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("pool", name);
+            result.put("active", stats.getActiveConnections());
+            result.put("idle", stats.getIdleConnections());
+            result.put("pending", stats.getPendingThreads());
+            result.put("total", stats.getTotalConnections());
+            result.put("max", stats.getMaxConnections());
+            return result;
+        }
+    }
+
+    /**
+     * Pool mới khởi động (gọi bởi {@link HikariPoolInstrumentation})
+     */
+    PoolTelemetry register(String poolName, PoolStats stats) {
+        return pools.computeIfAbsent(poolName, name -> new PoolTelemetry(name, stats));
+    }
+
+    private MethodUsage usageOf(PoolTelemetry pool, TransactionMetrics.Frame owner) {
+        String method = owner != null ? owner.method() : NOT_INSTRUMENTED;
+        return methodUsage.computeIfAbsent(pool.name + " " + method, key -> new MethodUsage(pool.name, method));
+    }
+
+    private static Holder popHeld(PoolTelemetry pool) {
+        Deque<Holder> held = HELD.get();
+        if (held == null) {
+            return null;
+        }
+        Holder result = null;
+        for (Iterator<Holder> it = held.iterator(); it.hasNext(); ) {
+            Holder holder = it.next();
+            if (holder.pool == pool) {
+                it.remove();
+                result = holder;
+                break;
+            }
+        }
+        if (held.isEmpty()) {
+            HELD.remove();
+        }
+        return result;
+    }
+
+    /**
+     * Đóng cửa sổ alarm hiện tại của mọi pool và cập nhật trạng thái firing
+     */
+    @Scheduled(fixedDelayString = "${monitoring.pool.alarm-window-ms:10000}")
+    public void evaluateAlarms() {
+        for (PoolTelemetry pool : pools.values()) {
+            Window closed = pool.window.getAndSet(new Window());
+            Map<String, Object> window = windowSnapshot(closed);
+            pool.lastWindow = window;
+            boolean firing = (Boolean) window.get("breached");
+            if (firing && pool.firingSince == null) {
+                pool.firingSince = Instant.now();
+                List<Map<String, Object>> longestHolders = longestHolders(pool.name);
+                logger.warn("Connection pool '{}' saturated: acquire p99 {} ms (threshold {} ms), {} timeouts, {} pending; longest holders: {}",
+                            pool.name, window.get("p99Millis"), millis(acquireAlarmNanos), window.get("timeouts"),
+                            pool.stats.getPendingThreads(), longestHolders);
+                recordAlarm(pool, "FIRING", window, longestHolders);
+            } else if (!firing && pool.firingSince != null) {
+                pool.firingSince = null;
+                logger.info("Connection pool '{}' recovered: acquire p99 {} ms", pool.name, window.get("p99Millis"));
+                recordAlarm(pool, "RESOLVED", window, List.of());
+            }
+        }
+    }
+
+    private Map<String, Object> windowSnapshot(Window window) {
+        long p99 = window.acquire.valueAtQuantile(0.99);
+        long timeoutCount = window.timeouts.sum();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("startedAt", Instant.ofEpochMilli(window.startedAt).toString());
+        result.put("acquires", window.acquire.count());
+        result.put("p99Millis", millis(p99));
+        result.put("maxMillis", millis(window.acquire.max()));
+        result.put("timeouts", timeoutCount);
+        result.put("breached", p99 > acquireAlarmNanos || timeoutCount > 0);
+        return result;
+    }
+
+    private void recordAlarm(PoolTelemetry pool, String state, Map<String, Object> window,
+                             List<Map<String, Object>> longestHolders) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("at", Instant.now().toString());
+        event.put("pool", pool.name);
+        event.put("state", state);
+        event.put("window", window);
+        event.put("longestHolders", longestHolders);
+        alarmHistory.addFirst(event);
+        while (alarmHistory.size() > ALARM_HISTORY_SIZE) {
+            alarmHistory.pollLast();
+        }
+    }
+
+    private List<Map<String, Object>> longestHolders(String poolName) {
+        long now = System.nanoTime();
+        List<Holder> current = new ArrayList<>();
+        for (Holder holder : holders) {
+            if (poolName == null || holder.pool.name.equals(poolName)) {
+                current.add(holder);
+            }
+        }
+        current.sort(Comparator.comparingLong(holder -> holder.acquiredNanos));
+        List<Map<String, Object>> result = new ArrayList<>();
+        for (Holder holder : current.subList(0, Math.min(TOP_HOLDERS, current.size()))) {
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("pool", holder.pool.name);
+            entry.put("method", holder.usage.method);
+            entry.put("thread", holder.thread.getName());
+            entry.put("heldMillis", millis(now - holder.acquiredNanos));
+            result.add(entry);
+        }
+        return result;
+    }
+
+    /**
+     * Trạng thái, histograms của từng pool và mức dùng connection theo method
+     *
+     * @return Pools và methods, method giữ connection lâu nhất (tổng) trước
+     */
+    public Map<String, Object> snapshot() {
+        List<Map<String, Object>> poolSnapshots = new ArrayList<>();
+        pools.values().forEach(pool -> poolSnapshots.add(pool.snapshot()));
+        List<MethodUsage> usages = new ArrayList<>(methodUsage.values());
+        usages.sort(Comparator.comparingLong((MethodUsage usage) -> usage.totalHoldNanos.sum()).reversed());
+        List<Map<String, Object>> perMethod = new ArrayList<>();
+        usages.forEach(usage -> perMethod.add(usage.snapshot()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("pools", poolSnapshots);
+        result.put("perMethod", perMethod);
+        return result;
+    }
+
+    /**
+     * Trạng thái alarm: cửa sổ đã đóng gần nhất và cửa sổ đang mở của từng pool
+     *
+     * @return firing, từng pool, connections đang bị giữ lâu nhất và lịch sử alarm
+     */
+    public Map<String, Object> alarms() {
+        boolean anyFiring = false;
+        List<Map<String, Object>> poolAlarms = new ArrayList<>();
+        for (PoolTelemetry pool : pools.values()) {
+            Map<String, Object> currentWindow = windowSnapshot(pool.window.get());
+            Instant since = pool.firingSince;
+            boolean firing = since != null || (Boolean) currentWindow.get("breached");
+            anyFiring |= firing;
+            Map<String, Object> entry = pool.state();
+            entry.put("firing", firing);
+            entry.put("firingSince", since != null ? since.toString() : null);
+            entry.put("currentWindow", currentWindow);
+            entry.put("lastWindow", pool.lastWindow);
+            poolAlarms.add(entry);
+        }
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("firing", anyFiring);
+        result.put("acquireThresholdMillis", millis(acquireAlarmNanos));
+        result.put("windowMillis", alarmWindowMs);
+        result.put("pools", poolAlarms);
+        result.put("longestHolders", longestHolders(null));
+        result.put("history", new ArrayList<>(alarmHistory));
+        return result;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
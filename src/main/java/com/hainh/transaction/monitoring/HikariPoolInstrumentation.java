@@ -0,0 +1,71 @@
+package com.hainh.transaction.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.PoolStats;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * HikariPoolInstrumentation - Gắn metrics tracker vào mọi Hikari pool
+ *
+ * <p>Áp dụng cho DataSource mặc định của Spring Boot và mọi Hikari pool khác trong context.
+ * Tracker phải được gắn trước khi pool khởi động (connection đầu tiên), nên dùng
+ * {@link BeanPostProcessor} trước init thay vì cấu hình sau.</p>
+ *
+ * <p>Hikari gọi tracker đồng bộ trên thread mượn/trả connection - chính thread đang chạy method
+ * {@code @Transactional} - nên {@link ConnectionPoolTelemetry} gán được cho method. Pool đã có
+ * tracker khác (ví dụ Micrometer) được giữ nguyên.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class HikariPoolInstrumentation implements BeanPostProcessor {
+
+    private final ObjectProvider<ConnectionPoolTelemetry> telemetry;
+
+    public HikariPoolInstrumentation(ObjectProvider<ConnectionPoolTelemetry> telemetry) {
+        this.telemetry = telemetry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource
+                && dataSource.getMetricsTrackerFactory() == null && dataSource.getMetricRegistry() == null) {
+            dataSource.setMetricsTrackerFactory(this::createTracker);
+        }
+        return bean;
+    }
+
+    /**
+     * Gọi khi pool khởi động - lúc này tên pool đã cố định
+     */
+    private IMetricsTracker createTracker(String poolName, PoolStats poolStats) {
+        ConnectionPoolTelemetry.PoolTelemetry pool = telemetry.getObject().register(poolName, poolStats);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                pool.connectionAcquired(elapsedAcquiredNanos);
+            }
+
+            @Override
+            public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+                pool.connectionReturned();
+            }
+
+            @Override
+            public void recordConnectionTimeout() {
+                pool.connectionTimedOut();
+            }
+
+            @Override
+            public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+                pool.connectionCreated(connectionCreatedMillis);
+            }
+        };
+    }
+}
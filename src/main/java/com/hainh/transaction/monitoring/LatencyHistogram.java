@@ -0,0 +1,149 @@
+package com.hainh.transaction.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * LatencyHistogram - Histogram độ trễ lock-free cho percentiles (p50/p99/p999)
+ *
+ * <p>Buckets log-linear kiểu HdrHistogram: mỗi khoảng [2^e, 2^(e+1)) chia thành
+ * {@value #SUB_BUCKETS} buckets đều nhau, nên sai số tương đối của percentile tối đa 1/16
+ * (~6%) ở mọi độ lớn, từ nanoseconds đến hàng giờ, với bộ nhớ cố định ({@value #BUCKETS} counters).</p>
+ *
+ * <p>Ghi là một {@code incrementAndGet} trên {@link AtomicLongArray} - không lock, không cấp phát;
+ * đọc percentile quét toàn bộ buckets nên chỉ dùng cho endpoint metrics, không cho hot path.
+ * Percentile trả về cận trên của bucket (không vượt quá max đã ghi).</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // 2^46 ns ≈ 19.5 giờ; giá trị lớn hơn dồn vào bucket cuối
+    private static final int MAX_EXPONENT = 45;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Ghi một giá trị
+     *
+     * @param nanos Độ trễ (ns), giá trị âm tính là 0
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        max.accumulate(value);
+    }
+
+    private static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent > MAX_EXPONENT) {
+            return BUCKETS - 1;
+        }
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS
+               + (int) ((value >>> (exponent - SUB_BUCKET_BITS)) - SUB_BUCKETS);
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int shift = exponent - SUB_BUCKET_BITS;
+        long lower = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lower + (1L << shift) - 1;
+    }
+
+    /**
+     * Số giá trị đã ghi
+     *
+     * @return count
+     */
+    public long count() {
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            count += counts.get(i);
+        }
+        return count;
+    }
+
+    /**
+     * Giá trị tại một quantile
+     *
+     * @param quantile 0..1, ví dụ 0.99
+     * @return Cận trên của bucket chứa quantile (ns), 0 nếu chưa có giá trị
+     */
+    public long valueAtQuantile(double quantile) {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        return valueAt(buckets, count, quantile, max.get());
+    }
+
+    /**
+     * Giá trị lớn nhất đã ghi
+     *
+     * @return max (ns)
+     */
+    public long max() {
+        return max.get();
+    }
+
+    /**
+     * Count, trung bình, p50/p99/p999 và max (ms)
+     *
+     * @return Snapshot; các giá trị đọc không đồng thời tuyệt đối với writers
+     */
+    public Map<String, Object> snapshot() {
+        long[] buckets = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets[i] = counts.get(i);
+            count += buckets[i];
+        }
+        long maxNanos = max.get();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("count", count);
+        result.put("avgMillis", count == 0 ? 0.0 : millis(total.sum() / count));
+        result.put("p50Millis", millis(valueAt(buckets, count, 0.50, maxNanos)));
+        result.put("p99Millis", millis(valueAt(buckets, count, 0.99, maxNanos)));
+        result.put("p999Millis", millis(valueAt(buckets, count, 0.999, maxNanos)));
+        result.put("maxMillis", millis(maxNanos));
+        return result;
+    }
+
+    private static long valueAt(long[] buckets, long count, double quantile, long maxNanos) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i];
+            if (seen >= rank) {
+                return Math.min(upperBoundOf(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,66 @@
+package com.hainh.transaction.monitoring;
+
+/**
+ * TransactionEvent - Một sự kiện transaction trong {@link TransactionEventLog}
+ *
+ * <p>Immutable và chỉ giữ references (không format chuỗi lúc ghi) - ring buffer thay slot
+ * bằng event mới thay vì sửa event cũ, nên reader không bao giờ thấy event ghi dở.</p>
+ *
+ * @param sequence Số thứ tự toàn cục, tăng dần
+ * @param nanos Thời điểm ({@link System#nanoTime()})
+ * @param type Loại sự kiện
+ * @param name Transaction hoặc method liên quan (tên Spring đặt cho transaction, label của checkpoint)
+ * @param detail Exception class, transaction đang active (checkpoint)... null nếu không có
+ * @param readOnly Transaction read-only
+ * @param isolation Isolation level JDBC, null = DEFAULT
+ * @param requestId ID của HTTP request, 0 nếu không chạy trong request
+ * @param threadId ID của thread ghi event
+ * @param threadName Tên thread ghi event
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public record TransactionEvent(long sequence, long nanos, Type type, String name, String detail,
+                               boolean readOnly, Integer isolation, long requestId,
+                               long threadId, String threadName) {
+
+    /**
+     * Loại sự kiện
+     */
+    public enum Type {
+        /** HTTP request bắt đầu (name = method + URI) */
+        REQUEST,
+        /** Transaction vật lý mới */
+        BEGIN,
+        /** Method tham gia transaction đang có (REQUIRED, SUPPORTS, MANDATORY) */
+        JOIN,
+        /** Savepoint cho NESTED */
+        SAVEPOINT,
+        /** Transaction bị suspend (REQUIRES_NEW, NOT_SUPPORTED bên trong) */
+        SUSPEND,
+        /** Transaction được resume */
+        RESUME,
+        /** Release savepoint - nested thành công */
+        SAVEPOINT_RELEASE,
+        /** Rollback về savepoint - chỉ phần nested bị hủy */
+        SAVEPOINT_ROLLBACK,
+        COMMIT,
+        ROLLBACK,
+        /** Trạng thái transaction tại một điểm trong code (thay log status) */
+        CHECKPOINT;
+
+        /**
+         * Event mở một node trong timeline
+         */
+        boolean opens() {
+            return this == BEGIN || this == SAVEPOINT;
+        }
+
+        /**
+         * Event đóng node đang mở
+         */
+        boolean closes() {
+            return this == COMMIT || this == ROLLBACK || this == SAVEPOINT_RELEASE || this == SAVEPOINT_ROLLBACK;
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package com.hainh.transaction.monitoring;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TransactionEventLog - Ring buffer lock-free các sự kiện transaction, thay cho DEBUG logging
+ *
+ * <p>DEBUG logging của {@code org.springframework.transaction} format chuỗi và ghi I/O đồng bộ
+ * trên mỗi lần gọi - quá đắt để bật thường trực. Ở đây mỗi sự kiện (begin, join, suspend,
+ * resume, savepoint, commit, rollback) là một object nhỏ, ghi vào mảng kích thước cố định:</p>
+ * <ol>
+ *   <li>{@code sequence = cursor.getAndIncrement()} - writers không bao giờ chờ nhau</li>
+ *   <li>Slot {@code sequence & mask} được thay bằng event mới; event cũ nhất bị ghi đè</li>
+ * </ol>
+ * <p>Reader đọc lại N sequences gần nhất và bỏ slot có sequence không khớp (đã bị ghi đè, hoặc
+ * writer chưa kịp set). Format chỉ xảy ra khi gọi endpoint timeline.</p>
+ *
+ * <p>Nguồn sự kiện: {@link TransactionExecutionListener} (begin/savepoint/commit/rollback), một
+ * {@link TransactionSynchronization} cho mỗi transaction (suspend/resume),
+ * {@link TransactionMetricsAspect} (join) và {@link TransactionEventRequestFilter} (request).</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class TransactionEventLog implements TransactionExecutionListener {
+
+    private static final ThreadLocal<long[]> CURRENT_REQUEST = new ThreadLocal<>();
+
+    private final AtomicReferenceArray<TransactionEvent> slots;
+    private final int mask;
+    private final AtomicLong cursor = new AtomicLong();
+    private final AtomicLong requestIds = new AtomicLong();
+    private final long baseNanos = System.nanoTime();
+    private final long baseEpochMillis = System.currentTimeMillis();
+
+    public TransactionEventLog(@Value("${monitoring.events.capacity:8192}") int capacity) {
+        // Lũy thừa của 2 để chọn slot bằng phép AND
+        int size = capacity <= 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+
+    private void record(TransactionEvent.Type type, String name, String detail,
+                        boolean readOnly, Integer isolation) {
+        long sequence = cursor.getAndIncrement();
+        long[] request = CURRENT_REQUEST.get();
+        Thread thread = Thread.currentThread();
+        slots.set((int) (sequence & mask), new TransactionEvent(sequence, System.nanoTime(), type, name, detail,
+                                                                readOnly, isolation, request != null ? request[0] : 0,
+                                                                thread.getId(), thread.getName()));
+    }
+
+    /**
+     * HTTP request bắt đầu trên thread hiện tại - các events sau đó thuộc request này
+     *
+     * @param label Method và URI
+     */
+    void startRequest(String label) {
+        CURRENT_REQUEST.set(new long[] { requestIds.incrementAndGet() });
+        record(TransactionEvent.Type.REQUEST, label, null, false, null);
+    }
+
+    /**
+     * HTTP request kết thúc
+     */
+    void endRequest() {
+        CURRENT_REQUEST.remove();
+    }
+
+    /**
+     * Method tham gia transaction đang có
+     *
+     * @param method Method tham gia
+     */
+    void join(String method) {
+        record(TransactionEvent.Type.JOIN, method, TransactionSynchronizationManager.getCurrentTransactionName(),
+               TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+               TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+    }
+
+    /**
+     * Ghi trạng thái transaction hiện tại (active, tên, readOnly, isolation) tại một điểm trong code
+     *
+     * @param label Nhãn của điểm ghi
+     */
+    public void checkpoint(String label) {
+        String transaction = TransactionSynchronizationManager.isActualTransactionActive()
+            ? TransactionSynchronizationManager.getCurrentTransactionName() : null;
+        record(TransactionEvent.Type.CHECKPOINT, label, transaction,
+               TransactionSynchronizationManager.isCurrentTransactionReadOnly(),
+               TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        if (beginFailure != null) {
+            return;
+        }
+        String name = transaction.getTransactionName();
+        if (!transaction.isNewTransaction()) {
+            record(TransactionEvent.Type.SAVEPOINT, name, null, transaction.isReadOnly(), null);
+            return;
+        }
+        record(TransactionEvent.Type.BEGIN, name, null, transaction.isReadOnly(),
+               TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    record(TransactionEvent.Type.SUSPEND, name, null, false, null);
+                }
+
+                @Override
+                public void resume() {
+                    record(TransactionEvent.Type.RESUME, name, null, false, null);
+                }
+            });
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        record(transaction.isNewTransaction() ? TransactionEvent.Type.COMMIT : TransactionEvent.Type.SAVEPOINT_RELEASE,
+               transaction.getTransactionName(), failureOf(commitFailure), false, null);
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        record(transaction.isNewTransaction() ? TransactionEvent.Type.ROLLBACK : TransactionEvent.Type.SAVEPOINT_ROLLBACK,
+               transaction.getTransactionName(), failureOf(rollbackFailure), false, null);
+    }
+
+    private static String failureOf(Throwable failure) {
+        return failure != null ? failure.getClass().getName() : null;
+    }
+
+    /**
+     * N events gần nhất, cũ trước
+     *
+     * @param limit Số events tối đa (không quá dung lượng ring buffer)
+     * @return Events còn trong ring buffer
+     */
+    public List<TransactionEvent> recent(int limit) {
+        long end = cursor.get();
+        long start = Math.max(0, end - Math.min(limit, slots.length()));
+        List<TransactionEvent> events = new ArrayList<>((int) (end - start));
+        for (long sequence = start; sequence < end; sequence++) {
+            TransactionEvent event = slots.get((int) (sequence & mask));
+            if (event != null && event.sequence() == sequence) {
+                events.add(event);
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Timeline lồng nhau theo request từ N events gần nhất
+     *
+     * <p>Mỗi request (hoặc thread, với events ngoài HTTP request) là một nhóm; BEGIN/SAVEPOINT
+     * mở một node, COMMIT/ROLLBACK/SAVEPOINT_* cùng tên đóng node đó, các events khác là lá
+     * của node đang mở.</p>
+     *
+     * @param limit Số events gần nhất đưa vào timeline
+     * @param requestId Chỉ lấy một request (null = tất cả)
+     * @return Dung lượng, tổng số events đã ghi và các nhóm
+     */
+    public Map<String, Object> timeline(int limit, Long requestId) {
+        Map<String, Group> groups = new LinkedHashMap<>();
+        for (TransactionEvent event : recent(limit)) {
+            if (requestId != null && event.requestId() != requestId) {
+                continue;
+            }
+            String key = event.requestId() != 0 ? "request-" + event.requestId() : "thread-" + event.threadId();
+            groups.computeIfAbsent(key, k -> new Group(event)).add(event);
+        }
+        List<Map<String, Object>> timelines = new ArrayList<>();
+        groups.values().forEach(group -> timelines.add(group.toMap()));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("capacity", slots.length());
+        result.put("recorded", cursor.get());
+        result.put("timelines", timelines);
+        return result;
+    }
+
+    /**
+     * Events của một request (hoặc thread), dựng thành cây
+     */
+    private final class Group {
+        private final TransactionEvent first;
+        private final List<Map<String, Object>> roots = new ArrayList<>();
+        private final Deque<Map<String, Object>> open = new ArrayDeque<>();
+        private String request;
+        private long lastNanos;
+
+        Group(TransactionEvent first) {
+            this.first = first;
+        }
+
+        @SuppressWarnings("unchecked")
+        void add(TransactionEvent event) {
+            lastNanos = event.nanos();
+            if (event.type() == TransactionEvent.Type.REQUEST) {
+                request = event.name();
+                return;
+            }
+            Map<String, Object> top = open.peek();
+            if (event.type().closes() && top != null && String.valueOf(event.name()).equals(top.get("name"))) {
+                top.put("outcome", event.type());
+                if (event.detail() != null) {
+                    top.put("failure", event.detail());
+                }
+                top.put("durationMillis", millis(event.nanos() - (Long) top.remove("startNanos")));
+                open.pop();
+                return;
+            }
+            Map<String, Object> node = new LinkedHashMap<>();
+            node.put("type", event.type());
+            node.put("name", event.name());
+            if (event.detail() != null) {
+                node.put(event.type() == TransactionEvent.Type.CHECKPOINT || event.type() == TransactionEvent.Type.JOIN
+                         ? "transaction" : "failure", event.detail());
+            }
+            if (event.type().opens() || event.type() == TransactionEvent.Type.JOIN
+                    || event.type() == TransactionEvent.Type.CHECKPOINT) {
+                node.put("readOnly", event.readOnly());
+                node.put("isolation", TransactionMethodMetrics.isolationOf(event.isolation()));
+            }
+            node.put("thread", event.threadName());
+            node.put("offsetMillis", millis(event.nanos() - first.nanos()));
+            List<Map<String, Object>> siblings = top != null ? (List<Map<String, Object>>) top.get("children") : roots;
+            siblings.add(node);
+            if (event.type().opens()) {
+                node.put("startNanos", event.nanos());
+                node.put("children", new ArrayList<Map<String, Object>>());
+                open.push(node);
+            }
+        }
+
+        Map<String, Object> toMap() {
+            // Node chưa đóng: transaction còn mở, hoặc events đầu của nó đã bị ghi đè
+            for (Map<String, Object> node : open) {
+                node.remove("startNanos");
+                node.put("outcome", null);
+            }
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requestId", first.requestId() != 0 ? first.requestId() : null);
+            result.put("request", request);
+            result.put("thread", first.threadName());
+            result.put("startedAt", Instant.ofEpochMilli(baseEpochMillis + (first.nanos() - baseNanos) / 1_000_000).toString());
+            result.put("durationMillis", millis(lastNanos - first.nanos()));
+            result.put("events", roots);
+            return result;
+        }
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,45 @@
+package com.hainh.transaction.monitoring;
+
+import java.io.IOException;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * TransactionEventRequestFilter - Gắn request ID cho các sự kiện transaction trong một HTTP request
+ *
+ * <p>Timeline nhóm events theo request ID; các endpoint monitoring không được ghi để không
+ * đẩy events của chính request cần xem ra khỏi ring buffer.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class TransactionEventRequestFilter extends OncePerRequestFilter {
+
+    @Autowired
+    private TransactionEventLog transactionEventLog;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return request.getRequestURI().startsWith("/api/monitoring");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        transactionEventLog.startRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            transactionEventLog.endRequest();
+        }
+    }
+}
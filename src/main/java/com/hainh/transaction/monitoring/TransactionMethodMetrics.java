@@ -0,0 +1,196 @@
+package com.hainh.transaction.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+
+/**
+ * TransactionMethodMetrics - Metrics của một method {@code @Transactional}
+ *
+ * <p>Thuộc tính khai báo (propagation, isolation, readOnly, timeout) đọc một lần từ
+ * {@link TransactionAttribute}; phần "in effect" đếm theo từng lần gọi, vì cùng một method
+ * REQUIRED có thể mở transaction mới hoặc tham gia transaction của caller - khi tham gia,
+ * isolation khai báo bị bỏ qua và isolation của caller có hiệu lực.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class TransactionMethodMetrics {
+
+    /**
+     * Lần gọi không có transaction riêng (JOINED, NONE...) - không commit/rollback
+     */
+    static final String NO_OWN_TRANSACTION = "NONE";
+
+    private final String method;
+    private final String transactionName;
+    private final Propagation propagation;
+    private final Isolation isolation;
+    private final boolean readOnly;
+    private final int timeout;
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder commits = new LongAdder();
+    private final LongAdder rollbacks = new LongAdder();
+    private final Map<String, LongAdder> commitsByException = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> rollbacksByException = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> failuresWithoutOwnTransaction = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> effectivePropagation = new ConcurrentHashMap<>();
+    private final Map<String, LongAdder> effectiveIsolation = new ConcurrentHashMap<>();
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram connectionHold = new LatencyHistogram();
+
+    TransactionMethodMetrics(String method, String transactionName, TransactionAttribute attribute) {
+        this.method = method;
+        this.transactionName = transactionName;
+        this.propagation = propagationOf(attribute.getPropagationBehavior());
+        this.isolation = isolationOf(attribute.getIsolationLevel());
+        this.readOnly = attribute.isReadOnly();
+        this.timeout = attribute.getTimeout();
+    }
+
+    static Propagation propagationOf(int behavior) {
+        for (Propagation value : Propagation.values()) {
+            if (value.value() == behavior) {
+                return value;
+            }
+        }
+        return Propagation.REQUIRED;
+    }
+
+    static Isolation isolationOf(Integer level) {
+        if (level == null) {
+            return Isolation.DEFAULT;
+        }
+        for (Isolation value : Isolation.values()) {
+            if (value.value() == level) {
+                return value;
+            }
+        }
+        return Isolation.DEFAULT;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * Tên transaction Spring đặt cho method ({@code TransactionDefinition#getName()})
+     */
+    String getTransactionName() {
+        return transactionName;
+    }
+
+    public Propagation getPropagation() {
+        return propagation;
+    }
+
+    public Isolation getIsolation() {
+        return isolation;
+    }
+
+    /**
+     * Propagation có thể tham gia transaction đang có của caller
+     */
+    boolean joinsExisting() {
+        return propagation == Propagation.REQUIRED
+               || propagation == Propagation.SUPPORTS
+               || propagation == Propagation.MANDATORY;
+    }
+
+    /**
+     * Ghi nhận một lần gọi đã kết thúc
+     *
+     * @param nanos Thời gian gọi qua proxy - với transaction riêng là begin → commit/rollback
+     * @param mode Propagation in effect (NEW, JOINED, SAVEPOINT...)
+     * @param effectiveIsolationLevel Isolation in effect
+     * @param outcome COMMIT, ROLLBACK hoặc {@link #NO_OWN_TRANSACTION}
+     * @param failure Exception method ném ra, null nếu trả về bình thường
+     * @param connectionHoldNanos Thời gian giữ connection trong lần gọi, âm nếu không lấy connection
+     */
+    void record(long nanos, String mode, String effectiveIsolationLevel, String outcome,
+                Throwable failure, long connectionHoldNanos) {
+        calls.increment();
+        latency.record(nanos);
+        increment(effectivePropagation, mode);
+        increment(effectiveIsolation, effectiveIsolationLevel);
+        String exceptionType = failure != null ? failure.getClass().getSimpleName() : null;
+        switch (outcome) {
+            case "COMMIT" -> {
+                commits.increment();
+                increment(commitsByException, exceptionType != null ? exceptionType : "none");
+            }
+            case "ROLLBACK" -> {
+                rollbacks.increment();
+                // Không có exception: transaction bị đánh dấu rollback-only rồi commit
+                increment(rollbacksByException, exceptionType != null ? exceptionType : "rollbackOnly");
+            }
+            default -> {
+                if (exceptionType != null) {
+                    increment(failuresWithoutOwnTransaction, exceptionType);
+                }
+            }
+        }
+        if (connectionHoldNanos >= 0) {
+            connectionHold.record(connectionHoldNanos);
+        }
+    }
+
+    private static void increment(Map<String, LongAdder> counters, String key) {
+        counters.computeIfAbsent(key, k -> new LongAdder()).increment();
+    }
+
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    public long getCommits() {
+        return commits.sum();
+    }
+
+    public long getRollbacks() {
+        return rollbacks.sum();
+    }
+
+    /**
+     * Thuộc tính khai báo, counters và histograms
+     *
+     * @return Snapshot cho endpoint metrics
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> declared = new LinkedHashMap<>();
+        declared.put("propagation", propagation);
+        declared.put("isolation", isolation);
+        declared.put("readOnly", readOnly);
+        declared.put("timeoutSeconds", timeout == TransactionDefinition.TIMEOUT_DEFAULT ? null : timeout);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("method", method);
+        result.put("declared", declared);
+        result.put("calls", calls.sum());
+        result.put("commits", commits.sum());
+        result.put("rollbacks", rollbacks.sum());
+        result.put("commitsByException", sums(commitsByException));
+        result.put("rollbacksByException", sums(rollbacksByException));
+        result.put("failuresWithoutOwnTransaction", sums(failuresWithoutOwnTransaction));
+        result.put("effectivePropagation", sums(effectivePropagation));
+        result.put("effectiveIsolation", sums(effectiveIsolation));
+        result.put("latency", latency.snapshot());
+        result.put("connectionHold", connectionHold.snapshot());
+        return result;
+    }
+
+    private static Map<String, Long> sums(Map<String, LongAdder> counters) {
+        Map<String, Long> result = new TreeMap<>();
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return result;
+    }
+}
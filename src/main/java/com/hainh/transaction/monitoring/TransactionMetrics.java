@@ -0,0 +1,269 @@
+package com.hainh.transaction.monitoring;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TransactionMetrics - Metrics theo từng method {@code @Transactional}, thay cho DEBUG logging
+ *
+ * <p>Ba nguồn, cùng một thread, gặp nhau qua stack các lần gọi đang chạy ({@link Frame}):</p>
+ * <ol>
+ *   <li><strong>{@link TransactionMetricsAspect}</strong> bọc ngoài TransactionInterceptor: mở/đóng
+ *       frame, đo begin → commit/rollback và exception method ném ra</li>
+ *   <li><strong>{@link TransactionExecutionListener}</strong> (Spring Boot gắn bean này vào
+ *       transaction manager): transaction thật sự bắt đầu, savepoint, commit hay rollback -
+ *       kể cả rollback "im lặng" khi transaction bị đánh dấu rollback-only</li>
+ *   <li><strong>{@link ConnectionPoolTelemetry}</strong>: thời gian giữ connection, gán cho frame
+ *       sở hữu transaction lúc connection được mượn ({@link #connectionOwner()})</li>
+ * </ol>
+ *
+ * <p>Listener chỉ gán kết quả cho frame trên cùng nếu tên transaction khớp method của frame,
+ * nên TransactionTemplate bên trong method (tên null) không bị tính nhầm.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class TransactionMetrics implements TransactionExecutionListener {
+
+    private static final ThreadLocal<Deque<Frame>> FRAMES = new ThreadLocal<>();
+
+    private final Map<Method, TransactionMethodMetrics> methods = new ConcurrentHashMap<>();
+    private final LongAdder unattributedConnectionUses = new LongAdder();
+
+    /**
+     * Một lần gọi method {@code @Transactional} đang chạy trên thread hiện tại
+     */
+    static final class Frame {
+        final TransactionMethodMetrics metrics;
+        final long startNanos = System.nanoTime();
+        final boolean outerActive = TransactionSynchronizationManager.isActualTransactionActive();
+        final Integer outerIsolation = TransactionSynchronizationManager.getCurrentTransactionIsolationLevel();
+        boolean beginning;
+        boolean began;
+        boolean savepoint;
+        String outcome = TransactionMethodMetrics.NO_OWN_TRANSACTION;
+        long connectionHoldNanos = -1;
+
+        Frame(TransactionMethodMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        String method() {
+            return metrics.getMethod();
+        }
+    }
+
+    /**
+     * Metrics của method, tạo ở lần gọi đầu tiên
+     *
+     * @param method Method {@code @Transactional}
+     * @param factory Tạo metrics (đọc transaction attribute) nếu chưa có
+     * @return Metrics của method
+     */
+    TransactionMethodMetrics methodMetrics(Method method, Function<Method, TransactionMethodMetrics> factory) {
+        return methods.computeIfAbsent(method, factory);
+    }
+
+    /**
+     * Mở frame cho một lần gọi - trước khi TransactionInterceptor begin
+     */
+    Frame enter(TransactionMethodMetrics metrics) {
+        Deque<Frame> frames = FRAMES.get();
+        if (frames == null) {
+            frames = new ArrayDeque<>();
+            FRAMES.set(frames);
+        }
+        Frame frame = new Frame(metrics);
+        frames.push(frame);
+        return frame;
+    }
+
+    /**
+     * Frame trong cùng của thread hiện tại
+     *
+     * @return null nếu thread không ở trong method {@code @Transactional} nào được đo
+     */
+    static Frame currentFrame() {
+        Deque<Frame> frames = FRAMES.get();
+        return frames != null ? frames.peek() : null;
+    }
+
+    /**
+     * Đóng frame - sau khi TransactionInterceptor commit/rollback
+     *
+     * @param frame Frame do {@link #enter} trả về
+     * @param failure Exception method (hoặc commit) ném ra, null nếu thành công
+     */
+    void exit(Frame frame, Throwable failure) {
+        long elapsed = System.nanoTime() - frame.startNanos;
+        Deque<Frame> frames = FRAMES.get();
+        frames.remove(frame);
+        if (frames.isEmpty()) {
+            FRAMES.remove();
+        }
+        TransactionMethodMetrics metrics = frame.metrics;
+        metrics.record(elapsed, effectivePropagation(frame, failure), effectiveIsolation(frame),
+                       frame.outcome, failure, frame.connectionHoldNanos);
+    }
+
+    private static String effectivePropagation(Frame frame, Throwable failure) {
+        if (frame.began) {
+            if (frame.savepoint) {
+                return "SAVEPOINT";
+            }
+            return frame.outerActive ? "NEW_OUTER_SUSPENDED" : "NEW";
+        }
+        if (frame.outerActive && frame.metrics.joinsExisting()) {
+            return "JOINED";
+        }
+        if (failure instanceof IllegalTransactionStateException) {
+            // MANDATORY không có transaction, NEVER trong transaction
+            return "REJECTED";
+        }
+        return frame.outerActive ? "NONE_OUTER_SUSPENDED" : "NONE";
+    }
+
+    private static String effectiveIsolation(Frame frame) {
+        if (frame.began && !frame.savepoint) {
+            return frame.metrics.getIsolation().name();
+        }
+        if (frame.outerActive && (frame.savepoint || frame.metrics.joinsExisting())) {
+            // Tham gia (hoặc savepoint trong) transaction của caller: isolation của caller có hiệu lực
+            return TransactionMethodMetrics.isolationOf(frame.outerIsolation).name();
+        }
+        return "NONE";
+    }
+
+    /**
+     * Frame chịu trách nhiệm cho connection được mượn lúc này trên thread hiện tại
+     *
+     * <p>Là frame trong cùng đang mở (hoặc đã mở) transaction vật lý - không phải savepoint, không
+     * phải method JOINED: khi connection thật được mượn trễ (ví dụ {@code LazyConnectionDataSourceProxy}),
+     * nó được mượn ở statement đầu tiên, có thể bên trong method JOINED, nhưng thuộc về transaction của caller.
+     * Dừng ở frame REQUIRES_NEW/NOT_SUPPORTED vì transaction bên ngoài frame đó đang bị suspend.</p>
+     *
+     * @return Frame sở hữu, frame trong cùng nếu không frame nào mở transaction, null ngoài mọi frame
+     */
+    static Frame connectionOwner() {
+        Deque<Frame> frames = FRAMES.get();
+        if (frames == null || frames.isEmpty()) {
+            return null;
+        }
+        for (Frame frame : frames) {
+            if (frame.beginning && !frame.savepoint) {
+                return frame;
+            }
+            Propagation propagation = frame.metrics.getPropagation();
+            if (propagation == Propagation.REQUIRES_NEW || propagation == Propagation.NOT_SUPPORTED) {
+                break;
+            }
+        }
+        return frames.peek();
+    }
+
+    /**
+     * Connection trả về pool - cộng thời gian giữ vào frame đã mượn nó
+     *
+     * @param owner Frame lúc mượn ({@link #connectionOwner()}), null nếu ngoài mọi frame
+     * @param holdNanos Thời gian từ lúc mượn đến lúc trả
+     */
+    void recordConnectionUsage(Frame owner, long holdNanos) {
+        if (owner == null) {
+            unattributedConnectionUses.increment();
+            return;
+        }
+        owner.connectionHoldNanos = Math.max(owner.connectionHoldNanos, 0) + holdNanos;
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        Frame frame = ownerFrame(transaction);
+        if (frame != null) {
+            frame.beginning = true;
+            frame.savepoint = transaction.isNested() && frame.outerActive;
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        Frame frame = ownerFrame(transaction);
+        if (frame != null && beginFailure == null) {
+            frame.began = true;
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        Frame frame = ownerFrame(transaction);
+        if (frame != null && frame.began) {
+            frame.outcome = commitFailure == null ? "COMMIT" : "ROLLBACK";
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        Frame frame = ownerFrame(transaction);
+        if (frame != null && frame.began) {
+            frame.outcome = "ROLLBACK";
+        }
+    }
+
+    private static Frame ownerFrame(TransactionExecution transaction) {
+        Frame frame = currentFrame();
+        if (frame == null || !frame.metrics.getTransactionName().equals(transaction.getTransactionName())) {
+            return null;
+        }
+        return frame;
+    }
+
+    /**
+     * Metrics mọi method đã được gọi, sắp theo p99 giảm dần
+     *
+     * @param methodFilter Chỉ lấy methods có tên chứa chuỗi này (null = tất cả)
+     * @return Tổng và metrics từng method
+     */
+    public Map<String, Object> snapshot(String methodFilter) {
+        List<Map<String, Object>> perMethod = new ArrayList<>();
+        long calls = 0;
+        long commits = 0;
+        long rollbacks = 0;
+        for (TransactionMethodMetrics metrics : methods.values()) {
+            if (methodFilter != null && !metrics.getMethod().contains(methodFilter)) {
+                continue;
+            }
+            calls += metrics.getCalls();
+            commits += metrics.getCommits();
+            rollbacks += metrics.getRollbacks();
+            perMethod.add(metrics.snapshot());
+        }
+        perMethod.sort(Comparator.comparingDouble(
+            (Map<String, Object> m) -> (Double) ((Map<?, ?>) m.get("latency")).get("p99Millis")).reversed());
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("methods", perMethod.size());
+        result.put("calls", calls);
+        result.put("commits", commits);
+        result.put("rollbacks", rollbacks);
+        result.put("unattributedConnectionUses", unattributedConnectionUses.sum());
+        result.put("perMethod", perMethod);
+        return result;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hainh.transaction.monitoring;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.interceptor.DefaultTransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttribute;
+import org.springframework.transaction.interceptor.TransactionAttributeSource;
+import org.springframework.util.ClassUtils;
+
+/**
+ * TransactionMetricsAspect - Đo mọi method {@code @Transactional} của các service transaction
+ *
+ * <p>{@code @Order(HIGHEST_PRECEDENCE)}: aspect chạy bên ngoài TransactionInterceptor (order
+ * mặc định LOWEST_PRECEDENCE), nên thời gian đo với method mở transaction riêng là từ trước
+ * begin đến sau commit/rollback. Giống {@code @Transactional}, chỉ lời gọi đi qua proxy được
+ * đo - self-invocation (xem TransactionalDemoService) không có transaction và không có metrics.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class TransactionMetricsAspect {
+
+    @Autowired
+    private TransactionMetrics transactionMetrics;
+
+    @Autowired
+    private TransactionAttributeSource transactionAttributeSource;
+
+    @Autowired
+    private TransactionEventLog transactionEventLog;
+
+    @Around("(@annotation(org.springframework.transaction.annotation.Transactional)"
+            + " || @within(org.springframework.transaction.annotation.Transactional))"
+            + " && (within(com.hainh.transaction.core.AccountService)"
+            + " || within(com.hainh.transaction.core.IsolationDemoService)"
+            + " || within(com.hainh.transaction.propagation.PropagationDemoService)"
+            + " || within(com.hainh.transaction.transactional.TransactionalDemoService))")
+    public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+        Class<?> targetClass = AopUtils.getTargetClass(joinPoint.getTarget());
+        Method method = AopUtils.getMostSpecificMethod(((MethodSignature) joinPoint.getSignature()).getMethod(), targetClass);
+        TransactionMethodMetrics metrics = transactionMetrics.methodMetrics(method, m -> createMetrics(m, targetClass));
+
+        TransactionMetrics.Frame frame = transactionMetrics.enter(metrics);
+        if (frame.outerActive && metrics.joinsExisting()) {
+            // Không có begin nào cho listener thấy - join chỉ nhìn được từ đây
+            transactionEventLog.join(metrics.getTransactionName());
+        }
+        Throwable failure = null;
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            failure = e;
+            throw e;
+        } finally {
+            transactionMetrics.exit(frame, failure);
+        }
+    }
+
+    private TransactionMethodMetrics createMetrics(Method method, Class<?> targetClass) {
+        TransactionAttribute attribute = transactionAttributeSource.getTransactionAttribute(method, targetClass);
+        if (attribute == null) {
+            attribute = new DefaultTransactionAttribute();
+        }
+        String parameters = Arrays.stream(method.getParameterTypes())
+            .map(Class::getSimpleName)
+            .collect(Collectors.joining(","));
+        String name = targetClass.getSimpleName() + "." + method.getName() + "(" + parameters + ")";
+        // Cùng tên TransactionInterceptor đặt cho transaction (TransactionDefinition#getName)
+        String transactionName = ClassUtils.getQualifiedMethodName(method, targetClass);
+        return new TransactionMethodMetrics(name, transactionName, attribute);
+    }
+}
@@ -0,0 +1,122 @@
+package com.hainh.transaction.monitoring;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * TransactionMonitoringController - Metrics của các transactions và connection pools
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@RestController
+@RequestMapping("/api/monitoring")
+public class TransactionMonitoringController {
+
+    @Autowired
+    private TransactionMetrics transactionMetrics;
+
+    @Autowired
+    private ConnectionPoolTelemetry connectionPoolTelemetry;
+
+    @Autowired
+    private TransactionWatchdog transactionWatchdog;
+
+    @Autowired
+    private TransactionEventLog transactionEventLog;
+
+    /**
+     * Latency begin → commit (p50/p99/p999), commits/rollbacks theo exception, propagation và
+     * isolation in effect, thời gian giữ connection - theo từng method {@code @Transactional}
+     *
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/monitoring/transactions
+     * GET /api/monitoring/transactions?method=AccountService.transfer
+     * </pre>
+     *
+     * @param method Chỉ lấy methods có tên chứa chuỗi này (tùy chọn)
+     * @return Tổng và metrics từng method, p99 cao nhất trước
+     */
+    @GetMapping("/transactions")
+    public Map<String, Object> getTransactionMetrics(@RequestParam(required = false) String method) {
+        return transactionMetrics.snapshot(method);
+    }
+
+    /**
+     * Active/idle/pending/total của từng Hikari pool, histograms acquire và hold, timeouts,
+     * và mức dùng connection theo method {@code @Transactional}
+     *
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/monitoring/pools
+     * </pre>
+     *
+     * @return Pools và methods, method giữ connection lâu nhất trước
+     */
+    @GetMapping("/pools")
+    public Map<String, Object> getPoolTelemetry() {
+        return connectionPoolTelemetry.snapshot();
+    }
+
+    /**
+     * Alarm pool bão hòa: p99 acquire vượt ngưỡng hoặc có timeout trong cửa sổ
+     *
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/monitoring/pools/alarms
+     * </pre>
+     *
+     * @return 200 khi không pool nào firing, 503 khi có - kèm connections đang bị giữ lâu nhất
+     */
+    @GetMapping("/pools/alarms")
+    public ResponseEntity<Map<String, Object>> getPoolAlarms() {
+        Map<String, Object> alarms = connectionPoolTelemetry.alarms();
+        HttpStatus status = Boolean.TRUE.equals(alarms.get("firing")) ? HttpStatus.SERVICE_UNAVAILABLE : HttpStatus.OK;
+        return ResponseEntity.status(status).body(alarms);
+    }
+
+    /**
+     * Transactions mở lâu hơn {@code monitoring.watchdog.threshold-ms}: method, thread, isolation,
+     * stack lúc phát hiện, locks đang giữ; kèm các transactions đã bị đánh dấu gần đây
+     *
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/monitoring/watchdog
+     * </pre>
+     *
+     * @return Báo cáo watchdog
+     */
+    @GetMapping("/watchdog")
+    public Map<String, Object> getWatchdogReport() {
+        return transactionWatchdog.snapshot();
+    }
+
+    /**
+     * Timeline begin/join/suspend/resume/savepoint/commit/rollback theo request, dựng từ
+     * ring buffer các sự kiện transaction gần nhất
+     *
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/monitoring/timeline
+     * GET /api/monitoring/timeline?limit=500&amp;requestId=12
+     * </pre>
+     *
+     * @param limit Số events gần nhất đưa vào timeline
+     * @param requestId Chỉ lấy một request (tùy chọn)
+     * @return Timelines lồng nhau, request cũ trước
+     */
+    @GetMapping("/timeline")
+    public Map<String, Object> getTransactionTimeline(@RequestParam(defaultValue = "200") int limit,
+                                                      @RequestParam(required = false) Long requestId) {
+        return transactionEventLog.timeline(limit, requestId);
+    }
+}
@@ -0,0 +1,386 @@
+package com.hainh.transaction.monitoring;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.sql.DataSource;
+
+import com.hainh.transaction.core.AccountLockManager;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.ConnectionHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * TransactionWatchdog - Phát hiện transactions mở quá lâu, trước khi timeout 30s của chúng nổ
+ *
+ * <p>Theo dõi mọi transaction vật lý transaction manager mở ({@code @Transactional},
+ * TransactionTemplate, repositories) qua {@link TransactionExecutionListener}. Mỗi
+ * {@code monitoring.watchdog.check-interval-ms}, transaction mở lâu hơn
+ * {@code monitoring.watchdog.threshold-ms} được đánh dấu một lần (log WARN) với:</p>
+ * <ul>
+ *   <li><strong>Method</strong> (tên transaction), thread, isolation, readOnly</li>
+ *   <li><strong>Stack</strong> của thread sở hữu tại thời điểm phát hiện - ví dụ đang sleep bên
+ *       trong {@code IsolationDemoService.demonstrateSerializable_Reader}</li>
+ *   <li><strong>Locks</strong>: stripes của AccountLockManager thread đang giữ, và locks của
+ *       database session (H2 {@code INFORMATION_SCHEMA.LOCKS}) cùng các sessions đang bị nó chặn</li>
+ * </ul>
+ *
+ * <p>Database session của transaction được xác định trên thread sở hữu, ngay sau begin khi
+ * connection đã được gắn vào transaction; {@code SESSION_ID()} chỉ chạy một lần cho mỗi
+ * connection vật lý. Watchdog đọc locks qua một
+ * JDBC connection riêng, không mượn từ pool - vẫn chạy được khi pool cạn.</p>
+ *
+ * <p>Với {@code monitoring.watchdog.mark-rollback-only=true}, transaction bị đánh dấu
+ * rollback-only: công việc vẫn chạy tiếp nhưng commit cuối cùng thành rollback, giải phóng
+ * locks thay vì ghi kết quả muộn.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class TransactionWatchdog implements TransactionExecutionListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionWatchdog.class);
+
+    private static final int HISTORY_SIZE = 50;
+
+    private static final ThreadLocal<Deque<OpenTransaction>> OPEN = new ThreadLocal<>();
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    @Autowired
+    private AccountLockManager accountLockManager;
+
+    private final long thresholdNanos;
+    private final boolean markRollbackOnly;
+    private final int stackDepth;
+
+    private final Map<TransactionExecution, OpenTransaction> open = new ConcurrentHashMap<>();
+    private final Deque<Map<String, Object>> history = new ConcurrentLinkedDeque<>();
+    private final LongAdder flagged = new LongAdder();
+    private final LongAdder markedRollbackOnly = new LongAdder();
+
+    private final Map<Connection, Integer> sessionIds = Collections.synchronizedMap(new WeakHashMap<>());
+    private volatile boolean sessionLookupSupported = true;
+    private Connection lockInspector;
+
+    public TransactionWatchdog(@Value("${monitoring.watchdog.threshold-ms:5000}") long thresholdMs,
+                               @Value("${monitoring.watchdog.mark-rollback-only:false}") boolean markRollbackOnly,
+                               @Value("${monitoring.watchdog.stack-depth:40}") int stackDepth) {
+        this.thresholdNanos = thresholdMs * 1_000_000;
+        this.markRollbackOnly = markRollbackOnly;
+        this.stackDepth = stackDepth;
+    }
+
+    /**
+     * Một transaction vật lý đang mở
+     */
+    private static final class OpenTransaction {
+        final TransactionExecution execution;
+        final String name;
+        final Thread thread = Thread.currentThread();
+        final long startNanos = System.nanoTime();
+        final Instant startedAt = Instant.now();
+        final boolean readOnly;
+        volatile String isolation = "DEFAULT";
+        volatile Integer sessionId;
+        volatile Map<String, Object> report;
+
+        OpenTransaction(TransactionExecution execution, String name) {
+            this.execution = execution;
+            this.name = name;
+            this.readOnly = execution.isReadOnly();
+        }
+
+        long ageMillis() {
+            return (System.nanoTime() - startNanos) / 1_000_000;
+        }
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        if (!transaction.isNewTransaction()) {
+            // Savepoint - thuộc transaction bên ngoài
+            return;
+        }
+        String name = transaction.getTransactionName();
+        if (name == null) {
+            TransactionMetrics.Frame frame = TransactionMetrics.currentFrame();
+            name = frame != null ? frame.method() + " (programmatic)" : "(programmatic)";
+        }
+        OpenTransaction tx = new OpenTransaction(transaction, name);
+        open.put(transaction, tx);
+        Deque<OpenTransaction> threadOpen = OPEN.get();
+        if (threadOpen == null) {
+            threadOpen = new ArrayDeque<>();
+            OPEN.set(threadOpen);
+        }
+        threadOpen.push(tx);
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        OpenTransaction tx = open.get(transaction);
+        if (tx == null) {
+            return;
+        }
+        if (beginFailure != null) {
+            close(tx, null);
+            return;
+        }
+        tx.isolation = TransactionMethodMetrics.isolationOf(
+            TransactionSynchronizationManager.getCurrentTransactionIsolationLevel()).name();
+        // Connection của transaction đã được gắn vào thread sau begin
+        if (TransactionSynchronizationManager.getResource(dataSource) instanceof ConnectionHolder holder
+                && holder.getConnectionHandle() != null) {
+            connectionAcquired(holder.getConnection());
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        OpenTransaction tx = open.get(transaction);
+        if (tx != null) {
+            close(tx, commitFailure == null ? "COMMIT" : "ROLLBACK");
+        }
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        OpenTransaction tx = open.get(transaction);
+        if (tx != null) {
+            close(tx, "ROLLBACK");
+        }
+    }
+
+    private void close(OpenTransaction tx, String outcome) {
+        open.remove(tx.execution);
+        Deque<OpenTransaction> threadOpen = OPEN.get();
+        if (threadOpen != null) {
+            threadOpen.remove(tx);
+            if (threadOpen.isEmpty()) {
+                OPEN.remove();
+            }
+        }
+        Map<String, Object> report = tx.report;
+        if (report != null && outcome != null) {
+            Map<String, Object> completed = new LinkedHashMap<>(report);
+            completed.put("durationMillis", tx.ageMillis());
+            completed.put("outcome", outcome);
+            history.addFirst(completed);
+            while (history.size() > HISTORY_SIZE) {
+                history.pollLast();
+            }
+            logger.info("Long-running transaction {} finished after {} ms: {}", tx.name, tx.ageMillis(), outcome);
+        }
+    }
+
+    /**
+     * Connection thật của transaction trong cùng trên thread hiện tại - ghi nhận database session
+     */
+    private void connectionAcquired(Connection connection) {
+        Deque<OpenTransaction> threadOpen = OPEN.get();
+        OpenTransaction tx = threadOpen != null ? threadOpen.peek() : null;
+        // Transaction read-only không giữ write locks
+        if (tx == null || tx.readOnly || tx.sessionId != null || !sessionLookupSupported) {
+            return;
+        }
+        try {
+            Connection physical = connection.unwrap(Connection.class);
+            Integer sessionId = sessionIds.get(physical);
+            if (sessionId == null) {
+                try (Statement statement = connection.createStatement();
+                     ResultSet rs = statement.executeQuery("SELECT SESSION_ID()")) {
+                    if (rs.next()) {
+                        sessionId = rs.getInt(1);
+                        sessionIds.put(physical, sessionId);
+                    }
+                }
+            }
+            tx.sessionId = sessionId;
+        } catch (SQLException e) {
+            sessionLookupSupported = false;
+            logger.info("Database session lookup unavailable, watchdog will not report database locks: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Đánh dấu các transactions mở quá ngưỡng
+     */
+    @Scheduled(fixedDelayString = "${monitoring.watchdog.check-interval-ms:1000}")
+    public void check() {
+        long now = System.nanoTime();
+        for (OpenTransaction tx : open.values()) {
+            if (tx.report != null || now - tx.startNanos < thresholdNanos) {
+                continue;
+            }
+            Map<String, Object> report = inspect(tx);
+            if (markRollbackOnly && !tx.execution.isCompleted()) {
+                tx.execution.setRollbackOnly();
+                markedRollbackOnly.increment();
+                report.put("markedRollbackOnly", true);
+            }
+            tx.report = report;
+            flagged.increment();
+            logger.warn("Long-running transaction {} open for {} ms on thread {} (isolation {}, readOnly {}), locks {}, at {}",
+                        tx.name, tx.ageMillis(), tx.thread.getName(), tx.isolation, tx.readOnly,
+                        report.get("locks"), report.get("stack"));
+        }
+    }
+
+    private Map<String, Object> inspect(OpenTransaction tx) {
+        List<String> stack = new ArrayList<>();
+        StackTraceElement[] frames = tx.thread.getStackTrace();
+        for (int i = 0; i < Math.min(stackDepth, frames.length); i++) {
+            stack.add(frames[i].toString());
+        }
+
+        Map<String, Object> locks = new LinkedHashMap<>();
+        locks.put("accountLockStripes", accountLockManager.stripesHeldBy(tx.thread));
+        locks.put("database", databaseLocks(tx.sessionId));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("method", tx.name);
+        report.put("thread", tx.thread.getName());
+        report.put("startedAt", tx.startedAt.toString());
+        report.put("detectedAfterMillis", tx.ageMillis());
+        report.put("isolation", tx.isolation);
+        report.put("readOnly", tx.readOnly);
+        report.put("locks", locks);
+        report.put("markedRollbackOnly", false);
+        report.put("stack", stack);
+        return report;
+    }
+
+    /**
+     * Locks và sessions bị chặn của một H2 session, qua connection riêng của watchdog
+     */
+    private Map<String, Object> databaseLocks(Integer sessionId) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("sessionId", sessionId);
+        if (sessionId == null) {
+            return result;
+        }
+        try {
+            Connection connection = lockInspector();
+            List<String> tableLocks = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT TABLE_SCHEMA, TABLE_NAME, LOCK_TYPE FROM INFORMATION_SCHEMA.LOCKS WHERE SESSION_ID = ?")) {
+                ps.setInt(1, sessionId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        tableLocks.add(rs.getString(1) + "." + rs.getString(2) + " " + rs.getString(3));
+                    }
+                }
+            }
+            List<Map<String, Object>> blocked = new ArrayList<>();
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "SELECT SESSION_ID, EXECUTING_STATEMENT FROM INFORMATION_SCHEMA.SESSIONS WHERE BLOCKER_ID = ?")) {
+                ps.setInt(1, sessionId);
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        Map<String, Object> session = new LinkedHashMap<>();
+                        session.put("sessionId", rs.getInt(1));
+                        session.put("statement", rs.getString(2));
+                        blocked.add(session);
+                    }
+                }
+            }
+            result.put("tableLocks", tableLocks);
+            result.put("blockedSessions", blocked);
+        } catch (SQLException e) {
+            closeLockInspector();
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    private Connection lockInspector() throws SQLException {
+        if (lockInspector == null || lockInspector.isClosed()) {
+            lockInspector = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                                                        dataSourceProperties.determineUsername(),
+                                                        dataSourceProperties.determinePassword());
+        }
+        return lockInspector;
+    }
+
+    private void closeLockInspector() {
+        if (lockInspector != null) {
+            try {
+                lockInspector.close();
+            } catch (SQLException ignored) {
+                // Connection hỏng - mở lại ở lần sau
+            }
+            lockInspector = null;
+        }
+    }
+
+    /**
+     * Transactions đang mở quá ngưỡng và các transactions đã từng bị đánh dấu
+     *
+     * @return Cấu hình, số transactions đang mở, báo cáo hiện tại và lịch sử
+     */
+    public Map<String, Object> snapshot() {
+        List<OpenTransaction> current = new ArrayList<>(open.values());
+        current.sort(Comparator.comparingLong(tx -> tx.startNanos));
+        List<Map<String, Object>> longRunning = new ArrayList<>();
+        for (OpenTransaction tx : current) {
+            Map<String, Object> report = tx.report;
+            if (report != null) {
+                Map<String, Object> entry = new LinkedHashMap<>(report);
+                entry.put("openMillis", tx.ageMillis());
+                longRunning.add(entry);
+            }
+        }
+        Map<String, Object> oldest = null;
+        if (!current.isEmpty()) {
+            OpenTransaction tx = current.get(0);
+            oldest = new LinkedHashMap<>();
+            oldest.put("method", tx.name);
+            oldest.put("thread", tx.thread.getName());
+            oldest.put("openMillis", tx.ageMillis());
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("thresholdMillis", thresholdNanos / 1_000_000);
+        result.put("markRollbackOnly", markRollbackOnly);
+        result.put("open", current.size());
+        result.put("oldestOpen", oldest);
+        result.put("flagged", flagged.sum());
+        result.put("markedRollbackOnly", markedRollbackOnly.sum());
+        result.put("longRunning", longRunning);
+        result.put("recent", new ArrayList<>(history));
+        return result;
+    }
+}
@@ -0,0 +1,147 @@
+package com.hainh.transaction.performance;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * BenchmarkResult - Kết quả của một lần chạy benchmark
+ * 
+ * <p>Throughput và latency percentiles được tính từ latency của từng operation.
+ * {@link #getDetails()} chứa số liệu riêng của từng benchmark (ví dụ số dư cuối cùng
+ * để kiểm tra tổng tiền không đổi).</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public class BenchmarkResult {
+    
+    private final String name;
+    private final int threads;
+    private final int operations;
+    private final long failures;
+    private final double elapsedMillis;
+    private final double throughputPerSecond;
+    private final double p50Millis;
+    private final double p99Millis;
+    private final double maxMillis;
+    private long allocatedBytes;
+    private double allocatedBytesPerOperation;
+    private double allocationRateMBPerSecond;
+    private long gcCount;
+    private long gcTimeMillis;
+    private final Map<String, Object> details = new LinkedHashMap<>();
+    
+    BenchmarkResult(String name, int threads, long failures, long elapsedNanos, long[] latencyNanos) {
+        this.name = name;
+        this.threads = threads;
+        this.operations = latencyNanos.length;
+        this.failures = failures;
+        this.elapsedMillis = elapsedNanos / 1_000_000.0;
+        this.throughputPerSecond = elapsedNanos == 0 ? 0 : operations * 1_000_000_000.0 / elapsedNanos;
+        
+        long[] sorted = latencyNanos.clone();
+        Arrays.sort(sorted);
+        this.p50Millis = percentile(sorted, 0.50);
+        this.p99Millis = percentile(sorted, 0.99);
+        this.maxMillis = sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0;
+    }
+    
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1);
+        return sorted[Math.max(0, index)] / 1_000_000.0;
+    }
+    
+    /**
+     * Gắn số liệu memory đo được trong lúc chạy
+     * 
+     * @param allocatedBytes Tổng bytes các worker threads đã allocate
+     * @param gcCount Số lần GC trong lúc chạy
+     * @param gcTimeMillis Tổng thời gian GC trong lúc chạy
+     * @return this để chain
+     */
+    BenchmarkResult withMemory(long allocatedBytes, long gcCount, long gcTimeMillis) {
+        this.allocatedBytes = allocatedBytes;
+        this.allocatedBytesPerOperation = operations == 0 ? 0 : (double) allocatedBytes / operations;
+        this.allocationRateMBPerSecond = elapsedMillis == 0 ? 0 : allocatedBytes / 1_048_576.0 / (elapsedMillis / 1000.0);
+        this.gcCount = gcCount;
+        this.gcTimeMillis = gcTimeMillis;
+        return this;
+    }
+    
+    /**
+     * Thêm số liệu riêng của benchmark
+     * 
+     * @param key Tên số liệu
+     * @param value Giá trị
+     * @return this để chain
+     */
+    public BenchmarkResult addDetail(String key, Object value) {
+        details.put(key, value);
+        return this;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public int getThreads() {
+        return threads;
+    }
+    
+    public int getOperations() {
+        return operations;
+    }
+    
+    public long getFailures() {
+        return failures;
+    }
+    
+    public double getElapsedMillis() {
+        return elapsedMillis;
+    }
+    
+    public double getThroughputPerSecond() {
+        return throughputPerSecond;
+    }
+    
+    public double getP50Millis() {
+        return p50Millis;
+    }
+    
+    public double getP99Millis() {
+        return p99Millis;
+    }
+    
+    public double getMaxMillis() {
+        return maxMillis;
+    }
+    
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+    
+    public double getAllocatedBytesPerOperation() {
+        return allocatedBytesPerOperation;
+    }
+    
+    public double getAllocationRateMBPerSecond() {
+        return allocationRateMBPerSecond;
+    }
+    
+    public long getGcCount() {
+        return gcCount;
+    }
+    
+    public long getGcTimeMillis() {
+        return gcTimeMillis;
+    }
+    
+    public Map<String, Object> getDetails() {
+        return details;
+    }
+}
@@ -0,0 +1,121 @@
+package com.hainh.transaction.performance;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntConsumer;
+
+/**
+ * BenchmarkRunner - Chạy một operation N lần trên T threads và đo latency
+ * 
+ * <p>Tất cả threads chờ ở cùng một start gate rồi mới bắt đầu, để thời gian đo không
+ * bao gồm thời gian tạo threads. Operation nhận index (0..N-1) để tự chọn dữ liệu.
+ * Exception trong operation được đếm là failure, không dừng benchmark.</p>
+ * 
+ * <p>Ngoài latency, runner đo số bytes mỗi worker thread đã allocate (HotSpot
+ * {@code com.sun.management.ThreadMXBean}) và số lần/thời gian GC trong lúc chạy, để
+ * so sánh áp lực GC giữa các cách cài đặt.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class BenchmarkRunner {
+    
+    private BenchmarkRunner() {
+    }
+    
+    /**
+     * Chạy benchmark
+     * 
+     * @param name Tên benchmark
+     * @param threads Số threads đồng thời
+     * @param operations Tổng số operations
+     * @param operation Operation cần đo, nhận index của lần chạy
+     * @return Kết quả benchmark
+     */
+    public static BenchmarkResult run(String name, int threads, int operations, IntConsumer operation) {
+        long[] latencies = new long[operations];
+        AtomicInteger next = new AtomicInteger();
+        LongAdder failures = new LongAdder();
+        LongAdder allocatedBytes = new LongAdder();
+        CountDownLatch startGate = new CountDownLatch(1);
+        
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> workers = new ArrayList<>(threads);
+            for (int t = 0; t < threads; t++) {
+                workers.add(pool.submit(() -> {
+                    startGate.await();
+                    long allocatedBefore = currentThreadAllocatedBytes();
+                    int i;
+                    while ((i = next.getAndIncrement()) < operations) {
+                        long start = System.nanoTime();
+                        try {
+                            operation.accept(i);
+                        } catch (RuntimeException e) {
+                            failures.increment();
+                        }
+                        latencies[i] = System.nanoTime() - start;
+                    }
+                    allocatedBytes.add(currentThreadAllocatedBytes() - allocatedBefore);
+                    return null;
+                }));
+            }
+            
+            long gcCountBefore = gcCount();
+            long gcMillisBefore = gcMillis();
+            long begin = System.nanoTime();
+            startGate.countDown();
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+            long elapsed = System.nanoTime() - begin;
+            
+            return new BenchmarkResult(name, threads, failures.sum(), elapsed, latencies)
+                .withMemory(allocatedBytes.sum(), gcCount() - gcCountBefore, gcMillis() - gcMillisBefore);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Benchmark interrupted: " + name, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Benchmark worker failed: " + name, e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+    
+    /**
+     * Bytes đã allocate bởi thread hiện tại, 0 nếu JVM không hỗ trợ
+     */
+    private static long currentThreadAllocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean hotspot
+                && hotspot.isThreadAllocatedMemoryEnabled()) {
+            return hotspot.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+    
+    private static long gcCount() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionCount());
+        }
+        return total;
+    }
+    
+    private static long gcMillis() {
+        long total = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            total += Math.max(0, gc.getCollectionTime());
+        }
+        return total;
+    }
+}
@@ -0,0 +1,184 @@
+package com.hainh.transaction.performance;
+
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * PerformanceDemoController - REST API để chạy các benchmark so sánh
+ * 
+ * <p>Các endpoints chạy đồng bộ và có thể mất vài giây đến vài phút tùy tham số.
+ * Chỉ dùng trên môi trường demo/test.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@RestController
+@RequestMapping("/api/performance")
+public class PerformanceDemoController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceDemoController.class);
+    
+    private static final int MAX_THREADS = 256;
+    
+    @Autowired
+    private PerformanceDemoService performanceDemoService;
+    
+    @Autowired
+    private VirtualThreadPinningMonitor pinningMonitor;
+    
+    /**
+     * So sánh credits vào một account nóng: account row thường vs sharded sub-balances
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/performance/compare/hot-account-credits?threads=16&amp;transfers=5000&amp;shards=8
+     * </pre>
+     * 
+     * @param threads Số threads đồng thời (1..256)
+     * @param transfers Số transfers mỗi lần chạy
+     * @param shards Số shards cho lần chạy sharded (2..256)
+     * @return Kết quả [plain, sharded]
+     */
+    @PostMapping("/compare/hot-account-credits")
+    public ResponseEntity<List<BenchmarkResult>> compareHotAccountCredits(
+            @RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "2000") int transfers,
+            @RequestParam(defaultValue = "8") int shards) {
+        
+        if (threads < 1 || threads > MAX_THREADS || transfers < 1 || shards < 2) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Running hot account credit benchmark");
+        return ResponseEntity.ok(performanceDemoService.compareHotAccountCredits(threads, transfers, shards));
+    }
+    
+    /**
+     * So sánh boxed Double vs long minor units: throughput, allocation và GC
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/performance/compare/money-representation?threads=8&amp;transfers=20000
+     * </pre>
+     * 
+     * @param threads Số threads đồng thời (1..256)
+     * @param transfers Số transfers mỗi lần chạy
+     * @return Kết quả [boxed-double, long-minor-units]
+     */
+    @PostMapping("/compare/money-representation")
+    public ResponseEntity<List<BenchmarkResult>> compareMoneyRepresentations(
+            @RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "10000") int transfers) {
+        
+        if (threads < 1 || threads > MAX_THREADS || transfers < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Running money representation benchmark");
+        return ResponseEntity.ok(performanceDemoService.compareMoneyRepresentations(threads, transfers));
+    }
+    
+    /**
+     * So sánh lookups theo ID qua nhiều transactions: bỏ qua vs dùng second-level cache
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/performance/compare/second-level-cache?threads=8&amp;lookups=20000&amp;accounts=100
+     * </pre>
+     * 
+     * @param threads Số threads đồng thời (1..256)
+     * @param lookups Số lookups mỗi lần chạy
+     * @param accounts Số accounts được lookup xoay vòng (1..10000)
+     * @return Kết quả [bypass-l2, second-level-cache] với dbRoundTrips trong details
+     */
+    @PostMapping("/compare/second-level-cache")
+    public ResponseEntity<List<BenchmarkResult>> compareSecondLevelCache(
+            @RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "10000") int lookups,
+            @RequestParam(defaultValue = "100") int accounts) {
+        
+        if (threads < 1 || threads > MAX_THREADS || lookups < 1 || accounts < 1 || accounts > 10_000) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Running second-level cache benchmark");
+        return ResponseEntity.ok(performanceDemoService.compareSecondLevelCache(threads, lookups, accounts));
+    }
+    
+    /**
+     * So sánh đọc account: managed entity (read-write) vs projection (read-only)
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/performance/compare/read-paths?threads=8&amp;reads=20000&amp;accounts=100
+     * </pre>
+     * 
+     * @param threads Số threads đồng thời (1..256)
+     * @param reads Số reads mỗi lần chạy
+     * @param accounts Số accounts được đọc xoay vòng (1..10000)
+     * @return Kết quả [managed-entity, read-only-projection]
+     */
+    @PostMapping("/compare/read-paths")
+    public ResponseEntity<List<BenchmarkResult>> compareReadPaths(
+            @RequestParam(defaultValue = "8") int threads,
+            @RequestParam(defaultValue = "10000") int reads,
+            @RequestParam(defaultValue = "100") int accounts) {
+        
+        if (threads < 1 || threads > MAX_THREADS || reads < 1 || accounts < 1 || accounts > 10_000) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Running read path benchmark");
+        return ResponseEntity.ok(performanceDemoService.compareReadPaths(threads, reads, accounts));
+    }
+    
+    /**
+     * So sánh owner lookups trên bảng lớn: query quét bảng vs query dùng index
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * POST /api/performance/compare/owner-lookups?rows=1000000&amp;threads=4&amp;lookups=2000&amp;scanLookups=20
+     * </pre>
+     * 
+     * @param rows Số accounts benchmark tối thiểu (1..5000000); lần đầu seed có thể mất vài chục giây
+     * @param threads Số threads đồng thời (1..256)
+     * @param lookups Số lookups cho các query dùng index
+     * @param scanLookups Số lookups cho các query quét bảng
+     * @return Kết quả mỗi query kèm EXPLAIN plan
+     */
+    @PostMapping("/compare/owner-lookups")
+    public ResponseEntity<List<BenchmarkResult>> compareOwnerLookups(
+            @RequestParam(defaultValue = "1000000") int rows,
+            @RequestParam(defaultValue = "4") int threads,
+            @RequestParam(defaultValue = "2000") int lookups,
+            @RequestParam(defaultValue = "20") int scanLookups) {
+        
+        if (rows < 1 || rows > 5_000_000 || threads < 1 || threads > MAX_THREADS || lookups < 1 || scanLookups < 1) {
+            return ResponseEntity.badRequest().build();
+        }
+        logger.info("Running owner lookup benchmark");
+        return ResponseEntity.ok(performanceDemoService.compareOwnerLookups(rows, threads, lookups, scanLookups));
+    }
+    
+    /**
+     * Báo cáo virtual thread pinning (JFR jdk.VirtualThreadPinned)
+     * 
+     * <h4>Request Example:</h4>
+     * <pre>
+     * GET /api/performance/virtual-threads/pinning
+     * </pre>
+     * 
+     * @return Trạng thái virtual thread mode và các call sites bị pin
+     */
+    @GetMapping("/virtual-threads/pinning")
+    public Map<String, Object> getPinningReport() {
+        return pinningMonitor.report();
+    }
+}
@@ -0,0 +1,340 @@
+package com.hainh.transaction.performance;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+import jakarta.persistence.CacheRetrieveMode;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hainh.transaction.core.Account;
+import com.hainh.transaction.core.AccountRepository;
+import com.hainh.transaction.core.AccountService;
+import com.hainh.transaction.core.AccountShardService;
+import com.hainh.transaction.core.Money;
+import com.hainh.transaction.core.SecondLevelCacheStatistics;
+
+/**
+ * PerformanceDemoService - So sánh hiệu năng giữa các cách thực hiện transaction
+ * 
+ * <p>Mỗi benchmark tự tạo dữ liệu riêng (accounts có owner bắt đầu bằng "bench-"),
+ * chạy cùng một workload với các cách tiếp cận khác nhau và trả về throughput,
+ * latency percentiles để so sánh trực tiếp.</p>
+ * 
+ * <p><strong>Lưu ý:</strong> Benchmark gọi thẳng các @Transactional methods của service
+ * (qua proxy), không qua HTTP, để số đo phản ánh chi phí transaction và database.</p>
+ * 
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Service
+public class PerformanceDemoService {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PerformanceDemoService.class);
+    
+    private static final double TRANSFER_AMOUNT = 1.0;
+    
+    private static final String INDEXED_OWNER_PREFIX = "Bench-Idx-";
+    private static final int SEED_BATCH_SIZE = 10_000;
+    
+    @Autowired
+    private AccountService accountService;
+    
+    @Autowired
+    private AccountShardService accountShardService;
+    
+    @Autowired
+    private SecondLevelCacheStatistics secondLevelCacheStatistics;
+    
+    @Autowired
+    private AccountRepository accountRepository;
+    
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    /**
+     * Hot account: nhiều payers đồng thời chuyển tiền vào MỘT merchant account
+     * 
+     * <p>Chạy cùng workload hai lần: merchant là account row thường (conditional UPDATE,
+     * mọi credit tranh cùng một row lock) và merchant đã shard thành N sub-ledger rows.</p>
+     * 
+     * @param threads Số threads đồng thời
+     * @param transfers Số transfers mỗi lần chạy
+     * @param shards Số shards cho lần chạy sharded
+     * @return Kết quả [plain, sharded]
+     */
+    public List<BenchmarkResult> compareHotAccountCredits(int threads, int transfers, int shards) {
+        logger.info("Hot account benchmark: threads={}, transfers={}, shards={}", threads, transfers, shards);
+        BenchmarkResult plain = runHotAccountCredits("plain-account-row", threads, transfers, 0);
+        BenchmarkResult sharded = runHotAccountCredits("sharded-" + shards, threads, transfers, shards);
+        return List.of(plain, sharded);
+    }
+    
+    private BenchmarkResult runHotAccountCredits(String name, int threads, int transfers, int shards) {
+        Long merchantId = accountService.createAccount("bench-merchant-" + name, 0.0).getId();
+        if (shards > 0) {
+            accountShardService.enableSharding(merchantId, shards);
+        }
+        
+        // Đủ payers để các operations chạy đồng thời gần như không dùng chung payer,
+        // chỉ merchant account là điểm nóng
+        int payerCount = threads * 2;
+        List<Long> payers = new ArrayList<>(payerCount);
+        for (int i = 0; i < payerCount; i++) {
+            payers.add(accountService.createAccount("bench-payer-" + i, transfers * TRANSFER_AMOUNT).getId());
+        }
+        
+        BenchmarkResult result = BenchmarkRunner.run(name, threads, transfers, i -> {
+            Long payerId = payers.get(i % payerCount);
+            if (shards > 0) {
+                accountService.transferSharded(payerId, merchantId, TRANSFER_AMOUNT);
+            } else {
+                accountService.transferWithConditionalUpdate(payerId, merchantId, TRANSFER_AMOUNT);
+            }
+        });
+        
+        // Tổng tiền phải khớp số transfers thành công
+        double merchantBalance = accountService.getAccount(merchantId).map(Account::getBalance).orElse(0.0);
+        return result.addDetail("merchantAccountId", merchantId)
+                     .addDetail("merchantBalance", merchantBalance)
+                     .addDetail("expectedBalance", (transfers - result.getFailures()) * TRANSFER_AMOUNT);
+    }
+    
+    /**
+     * Boxed Double vs long minor units trên cùng workload conditional UPDATE
+     * 
+     * <p>Mỗi operation là một transfer giữa một cặp accounts riêng (không có hot spot),
+     * để số đo phản ánh chi phí CPU/allocation thay vì chờ lock. So sánh
+     * allocatedBytesPerOperation, allocationRateMBPerSecond và gcCount giữa hai lần chạy.</p>
+     * 
+     * @param threads Số threads đồng thời
+     * @param transfers Số transfers mỗi lần chạy
+     * @return Kết quả [boxed-double, long-minor-units]
+     */
+    public List<BenchmarkResult> compareMoneyRepresentations(int threads, int transfers) {
+        logger.info("Money representation benchmark: threads={}, transfers={}", threads, transfers);
+        BenchmarkResult boxed = runPairTransfers("boxed-double", threads, transfers, false);
+        BenchmarkResult minor = runPairTransfers("long-minor-units", threads, transfers, true);
+        return List.of(boxed, minor);
+    }
+    
+    private BenchmarkResult runPairTransfers(String name, int threads, int transfers, boolean minorUnits) {
+        int pairCount = threads * 2;
+        long[] payers = new long[pairCount];
+        long[] payees = new long[pairCount];
+        for (int i = 0; i < pairCount; i++) {
+            payers[i] = accountService.createAccount("bench-payer-" + name + "-" + i, transfers * TRANSFER_AMOUNT).getId();
+            payees[i] = accountService.createAccount("bench-payee-" + name + "-" + i, 0.0).getId();
+        }
+        long amountMinor = Money.toMinor(TRANSFER_AMOUNT);
+        
+        BenchmarkResult result = BenchmarkRunner.run(name, threads, transfers, i -> {
+            int pair = i % pairCount;
+            if (minorUnits) {
+                accountService.transfer(payers[pair], payees[pair], amountMinor);
+            } else {
+                accountService.transferWithConditionalUpdate(payers[pair], payees[pair], TRANSFER_AMOUNT);
+            }
+        });
+        
+        // Tổng số dư các payees (minor units) phải khớp số transfers thành công
+        long receivedMinor = 0;
+        for (long payee : payees) {
+            receivedMinor += accountService.getAccount(payee).map(Account::getBalanceMinor).orElse(0L);
+        }
+        return result.addDetail("receivedMinor", receivedMinor)
+                     .addDetail("expectedMinor", (transfers - result.getFailures()) * amountMinor);
+    }
+    
+    /**
+     * Lookups theo ID lặp lại qua nhiều transactions: bỏ qua vs dùng second-level cache
+     * 
+     * <p>Mỗi operation là một transaction read-only riêng gọi {@code EntityManager.find} -
+     * persistence context mới mỗi lần, nên chỉ second-level cache tránh được SELECT.
+     * Lần chạy đầu dùng {@link CacheRetrieveMode#BYPASS}, lần sau {@link CacheRetrieveMode#USE}.
+     * So sánh {@code dbRoundTrips} (delta prepareStatementCount) và {@code l2Hits}.</p>
+     * 
+     * <p><strong>Lưu ý:</strong> Counters của Hibernate là toàn cục - traffic khác chạy cùng
+     * lúc sẽ được tính vào.</p>
+     * 
+     * @param threads Số threads đồng thời
+     * @param lookups Số lookups mỗi lần chạy
+     * @param accounts Số accounts được lookup xoay vòng
+     * @return Kết quả [bypass-l2, second-level-cache]
+     */
+    public List<BenchmarkResult> compareSecondLevelCache(int threads, int lookups, int accounts) {
+        logger.info("Second-level cache benchmark: threads={}, lookups={}, accounts={}", threads, lookups, accounts);
+        long[] ids = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = accountService.createAccount("bench-l2-" + i, 100.0).getId();
+        }
+        BenchmarkResult bypass = runLookups("bypass-l2", threads, lookups, ids, CacheRetrieveMode.BYPASS);
+        BenchmarkResult cached = runLookups("second-level-cache", threads, lookups, ids, CacheRetrieveMode.USE);
+        return List.of(bypass, cached);
+    }
+    
+    private BenchmarkResult runLookups(String name, int threads, int lookups, long[] ids, CacheRetrieveMode mode) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setReadOnly(true);
+        Map<String, Object> hints = Map.of("jakarta.persistence.cache.retrieveMode", mode);
+        
+        Statistics stats = secondLevelCacheStatistics.statistics();
+        long statementsBefore = stats.getPrepareStatementCount();
+        long hitsBefore = stats.getSecondLevelCacheHitCount();
+        
+        BenchmarkResult result = BenchmarkRunner.run(name, threads, lookups, i -> {
+            Long id = ids[i % ids.length];
+            template.executeWithoutResult(status -> entityManager.find(Account.class, id, hints));
+        });
+        
+        long roundTrips = stats.getPrepareStatementCount() - statementsBefore;
+        return result.addDetail("dbRoundTrips", roundTrips)
+                     .addDetail("dbRoundTripsPerLookup", (double) roundTrips / lookups)
+                     .addDetail("l2Hits", stats.getSecondLevelCacheHitCount() - hitsBefore);
+    }
+    
+    /**
+     * Đọc account theo ID: managed entity trong read-write transaction vs projection
+     * trong read-only transaction
+     * 
+     * <p>Lần chạy đầu load entity (bỏ qua second-level cache) - Hibernate giữ entity và
+     * snapshot để dirty checking, rồi flush khi commit. Lần sau đọc {@code AccountSummary}
+     * bằng constructor expression trong read-only transaction (flush mode MANUAL).
+     * So sánh latency và allocatedBytesPerOperation.</p>
+     * 
+     * @param threads Số threads đồng thời
+     * @param reads Số reads mỗi lần chạy
+     * @param accounts Số accounts được đọc xoay vòng
+     * @return Kết quả [managed-entity, read-only-projection]
+     */
+    public List<BenchmarkResult> compareReadPaths(int threads, int reads, int accounts) {
+        logger.info("Read path benchmark: threads={}, reads={}, accounts={}", threads, reads, accounts);
+        long[] ids = new long[accounts];
+        for (int i = 0; i < accounts; i++) {
+            ids[i] = accountService.createAccount("bench-read-" + i, 100.0).getId();
+        }
+        
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+        Map<String, Object> bypassL2 = Map.of("jakarta.persistence.cache.retrieveMode", CacheRetrieveMode.BYPASS);
+        BenchmarkResult entity = BenchmarkRunner.run("managed-entity", threads, reads, i -> {
+            Long id = ids[i % ids.length];
+            readWrite.executeWithoutResult(status -> entityManager.find(Account.class, id, bypassL2));
+        });
+        
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        BenchmarkResult projection = BenchmarkRunner.run("read-only-projection", threads, reads, i -> {
+            Long id = ids[i % ids.length];
+            readOnly.executeWithoutResult(status -> accountRepository.findSummaryById(id));
+        });
+        return List.of(entity, projection);
+    }
+    
+    /**
+     * Owner lookups trên bảng lớn: query quét cả bảng vs query dùng index
+     * 
+     * <p>Seed thêm accounts "Bench-Idx-NNNNNNN" (JDBC batch) cho đến khi có {@code rows} rows,
+     * rồi chạy từng cặp query với owner ngẫu nhiên:</p>
+     * <ul>
+     *   <li>{@code UPPER(owner) = UPPER(?)} vs {@code owner_upper = ?}</li>
+     *   <li>{@code owner LIKE ?} (prefix là bind parameter) vs range {@code owner >= ? AND owner < ?}</li>
+     *   <li>{@code owner = ?}</li>
+     * </ul>
+     * <p>Mỗi kết quả có {@code plan} (EXPLAIN của H2): tên index, hoặc {@code tableScan}.
+     * Các query quét bảng chạy {@code scanLookups} lần thay vì {@code lookups}.</p>
+     * 
+     * @param rows Số accounts benchmark tối thiểu trong bảng
+     * @param threads Số threads đồng thời
+     * @param lookups Số lookups cho các query dùng index
+     * @param scanLookups Số lookups cho các query quét bảng
+     * @return Kết quả [upper-function, owner-upper-index, like-prefix, prefix-range-index, owner-index]
+     */
+    public List<BenchmarkResult> compareOwnerLookups(int rows, int threads, int lookups, int scanLookups) {
+        logger.info("Owner lookup benchmark: rows={}, threads={}, lookups={}, scanLookups={}",
+                    rows, threads, lookups, scanLookups);
+        seedIndexedOwners(rows);
+        
+        String upperFunction = "SELECT id FROM account WHERE UPPER(owner) = UPPER(?)";
+        String ownerUpper = "SELECT id FROM account WHERE owner_upper = ?";
+        String likePrefix = "SELECT COUNT(*) FROM account WHERE owner LIKE ?";
+        String prefixRange = "SELECT COUNT(*) FROM account WHERE owner >= ? AND owner < ?";
+        String ownerEquals = "SELECT id FROM account WHERE owner = ?";
+        
+        List<BenchmarkResult> results = new ArrayList<>(5);
+        results.add(runOwnerQuery("upper-function", threads, scanLookups, upperFunction, rows,
+            owner -> new Object[] { owner.toLowerCase() }));
+        results.add(runOwnerQuery("owner-upper-index", threads, lookups, ownerUpper, rows,
+            owner -> new Object[] { Account.normalizeOwner(owner.toLowerCase()) }));
+        results.add(runOwnerQuery("like-prefix", threads, scanLookups, likePrefix, rows,
+            owner -> new Object[] { prefixOf(owner) + "%" }));
+        results.add(runOwnerQuery("prefix-range-index", threads, lookups, prefixRange, rows,
+            owner -> new Object[] { prefixOf(owner), AccountRepository.prefixUpperBound(prefixOf(owner)) }));
+        results.add(runOwnerQuery("owner-index", threads, lookups, ownerEquals, rows,
+            owner -> new Object[] { owner }));
+        return results;
+    }
+    
+    /**
+     * Prefix khớp 10 owners: bỏ chữ số cuối ("Bench-Idx-000012" → 10 owners ...0120..0129)
+     */
+    private static String prefixOf(String owner) {
+        return owner.substring(0, owner.length() - 1);
+    }
+    
+    private static String indexedOwner(int i) {
+        return INDEXED_OWNER_PREFIX + String.format("%07d", i);
+    }
+    
+    private void seedIndexedOwners(int rows) {
+        int existing = (int) accountRepository.countByOwnerStartingWith(INDEXED_OWNER_PREFIX);
+        if (existing >= rows) {
+            return;
+        }
+        long started = System.nanoTime();
+        String sql = "INSERT INTO account (id, owner, owner_upper, balance, balance_minor, version) "
+                     + "VALUES (NEXT VALUE FOR " + Account.ID_SEQUENCE + ", ?, ?, ?, ?, 0)";
+        for (int start = existing; start < rows; start += SEED_BATCH_SIZE) {
+            int end = Math.min(start + SEED_BATCH_SIZE, rows);
+            List<Object[]> batch = new ArrayList<>(end - start);
+            for (int i = start; i < end; i++) {
+                String owner = indexedOwner(i);
+                batch.add(new Object[] { owner, Account.normalizeOwner(owner), TRANSFER_AMOUNT * 100, Money.toMinor(TRANSFER_AMOUNT * 100) });
+            }
+            jdbcTemplate.batchUpdate(sql, batch);
+        }
+        logger.info("Seeded {} benchmark accounts in {} ms", rows - existing, (System.nanoTime() - started) / 1_000_000);
+    }
+    
+    private BenchmarkResult runOwnerQuery(String name, int threads, int lookups, String sql, int rows,
+                                          Function<String, Object[]> params) {
+        Object[] sample = params.apply(indexedOwner(0));
+        String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class, sample);
+        
+        BenchmarkResult result = BenchmarkRunner.run(name, threads, lookups, i -> {
+            String owner = indexedOwner(ThreadLocalRandom.current().nextInt(rows));
+            jdbcTemplate.queryForList(sql, params.apply(owner));
+        });
+        return result.addDetail("sql", sql)
+                     .addDetail("plan", plan)
+                     .addDetail("usesIndex", !plan.contains("tableScan"));
+    }
+}
@@ -0,0 +1,56 @@
+package com.hainh.transaction.performance;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * VirtualThreadConfig - Chế độ virtual threads cho Tomcat và các demo executors
+ *
+ * <p>Một switch duy nhất {@code spring.threads.virtual.enabled}:</p>
+ * <ul>
+ *   <li><strong>Tomcat</strong>: Spring Boot 3.2 tự chạy mỗi request trên một virtual thread
+ *       khi property bật và JVM là Java 21+</li>
+ *   <li><strong>demoExecutor</strong>: executor của {@code IsolationDemoController} - mỗi task
+ *       một virtual thread thay vì pool 2 platform threads</li>
+ * </ul>
+ *
+ * <p>Isolation demos ngủ ({@code Thread.sleep}) trong transaction và transfer chờ JDBC:
+ * với platform threads, số requests đồng thời bị giới hạn bởi số threads dù CPU rảnh.
+ * Virtual thread nhả carrier thread khi block, nên giới hạn thực sự trở thành connection
+ * pool. Trên JVM cũ hơn 21 property bị bỏ qua và mọi thứ chạy như trước.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Configuration
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Executor chạy các tasks đồng thời của isolation demos
+     *
+     * @param virtualEnabled Giá trị của {@code spring.threads.virtual.enabled}
+     * @return Virtual-thread-per-task executor, hoặc fixed pool 2 platform threads
+     */
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService demoExecutor(@Value("${spring.threads.virtual.enabled:false}") boolean virtualEnabled) {
+        if (virtualEnabled) {
+            ExecutorService executor = VirtualThreads.newPerTaskExecutor();
+            if (executor != null) {
+                logger.info("Demo executor: virtual thread per task");
+                return executor;
+            }
+            logger.warn("spring.threads.virtual.enabled=true but Java {} has no virtual threads, using platform threads",
+                        Runtime.version().feature());
+        }
+        return Executors.newFixedThreadPool(2);
+    }
+}
@@ -0,0 +1,183 @@
+package com.hainh.transaction.performance;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * VirtualThreadPinningMonitor - Phát hiện virtual threads bị "pin" vào carrier thread
+ *
+ * <p>Virtual thread block bên trong {@code synchronized} (hoặc native frame) không nhả
+ * được carrier thread - ví dụ JDBC driver/connection pool dùng synchronized quanh I/O.
+ * Khi đó virtual threads lại bị giới hạn bởi số carrier threads (= số CPU cores), mất
+ * toàn bộ lợi ích.</p>
+ *
+ * <p>Monitor subscribe JFR event {@code jdk.VirtualThreadPinned} (Java 21) qua
+ * {@link RecordingStream} ngay trong process, gom theo call site (frame đầu tiên của JDK/
+ * driver và frame đầu tiên của code ứng dụng) và báo cáo qua
+ * {@code GET /api/performance/virtual-threads/pinning}. Chỉ chạy khi virtual thread mode bật.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+@Component
+public class VirtualThreadPinningMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadPinningMonitor.class);
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APP_PACKAGE = "com.hainh.";
+    private static final int MAX_SITES = 100;
+    private static final int STACK_EXCERPT_FRAMES = 12;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualEnabled;
+
+    @Value("${performance.pinning.threshold-ms:20}")
+    private long thresholdMs;
+
+    private final Map<String, PinSite> sites = new ConcurrentHashMap<>();
+    private final LongAdder totalEvents = new LongAdder();
+    private final LongAdder droppedSites = new LongAdder();
+    private volatile RecordingStream stream;
+
+    @PostConstruct
+    public void start() {
+        if (!virtualEnabled || !VirtualThreads.isSupported()) {
+            return;
+        }
+        RecordingStream rs = new RecordingStream();
+        rs.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        rs.onEvent(PINNED_EVENT, this::record);
+        rs.startAsync();
+        stream = rs;
+        logger.info("Virtual thread pinning monitor started (threshold {} ms)", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        RecordingStream rs = stream;
+        if (rs != null) {
+            rs.close();
+        }
+    }
+
+    private void record(RecordedEvent event) {
+        totalEvents.increment();
+        List<RecordedFrame> frames = frames(event.getStackTrace());
+        String key = siteKey(frames);
+
+        PinSite site = sites.get(key);
+        if (site == null) {
+            if (sites.size() >= MAX_SITES) {
+                droppedSites.increment();
+                return;
+            }
+            site = sites.computeIfAbsent(key, k -> new PinSite(excerpt(frames)));
+            logger.warn("Virtual thread pinned for {} ms at {}", event.getDuration().toMillis(), key);
+        }
+        long nanos = event.getDuration().toNanos();
+        site.count.increment();
+        site.totalNanos.add(nanos);
+        site.maxNanos.accumulate(nanos);
+    }
+
+    private static List<RecordedFrame> frames(RecordedStackTrace stackTrace) {
+        return stackTrace == null ? List.of() : stackTrace.getFrames();
+    }
+
+    /**
+     * Call site = frame trên cùng (nơi thread bị park) + frame ứng dụng gần nhất
+     */
+    private static String siteKey(List<RecordedFrame> frames) {
+        if (frames.isEmpty()) {
+            return "<no stack trace>";
+        }
+        String top = describe(frames.get(0));
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith(APP_PACKAGE)) {
+                return top + " <- " + describe(frame);
+            }
+        }
+        return top;
+    }
+
+    private static List<String> excerpt(List<RecordedFrame> frames) {
+        List<String> lines = new ArrayList<>(STACK_EXCERPT_FRAMES);
+        for (int i = 0; i < frames.size() && i < STACK_EXCERPT_FRAMES; i++) {
+            lines.add(describe(frames.get(i)));
+        }
+        return lines;
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+               + ":" + frame.getLineNumber();
+    }
+
+    /**
+     * Báo cáo pinning: tổng số events và các call sites, nhiều nhất trước
+     *
+     * @return Trạng thái monitor và các call sites
+     */
+    public Map<String, Object> report() {
+        List<Map.Entry<String, PinSite>> sorted = new ArrayList<>(sites.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<String, PinSite> e) -> e.getValue().count.sum()).reversed());
+
+        List<Map<String, Object>> siteReports = new ArrayList<>(sorted.size());
+        for (Map.Entry<String, PinSite> e : sorted) {
+            PinSite site = e.getValue();
+            long count = site.count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("site", e.getKey());
+            map.put("count", count);
+            map.put("avgMillis", count == 0 ? 0.0 : site.totalNanos.sum() / 1_000_000.0 / count);
+            map.put("maxMillis", site.maxNanos.get() / 1_000_000.0);
+            map.put("stack", site.stack);
+            siteReports.add(map);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("virtualThreadsEnabled", virtualEnabled);
+        result.put("virtualThreadsSupported", VirtualThreads.isSupported());
+        result.put("javaVersion", Runtime.version().toString());
+        result.put("monitoring", stream != null);
+        result.put("requestThreadVirtual", VirtualThreads.isVirtual(Thread.currentThread()));
+        result.put("thresholdMs", thresholdMs);
+        result.put("pinnedEvents", totalEvents.sum());
+        result.put("droppedSites", droppedSites.sum());
+        result.put("sites", siteReports);
+        return result;
+    }
+
+    private static final class PinSite {
+        private final List<String> stack;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private PinSite(List<String> stack) {
+            this.stack = stack;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.hainh.transaction.performance;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * VirtualThreads - Truy cập virtual thread APIs (Java 21) khi build với release thấp hơn
+ *
+ * <p>Spring Boot parent compile với {@code --release 17}, nên không gọi trực tiếp được
+ * {@code Executors.newVirtualThreadPerTaskExecutor()} hay {@code Thread.isVirtual()}.
+ * Các methods ở đây dùng reflection và trả về giá trị "không hỗ trợ" khi chạy trên
+ * JVM cũ hơn 21, để cùng một artifact chạy được trên cả hai.</p>
+ *
+ * @author hainh Development Team
+ * @version 1.0
+ * @since 2025-06-27
+ */
+public final class VirtualThreads {
+
+    private static final Method NEW_PER_TASK_EXECUTOR = findMethod(Executors.class, "newVirtualThreadPerTaskExecutor");
+    private static final Method IS_VIRTUAL = findMethod(Thread.class, "isVirtual");
+
+    private VirtualThreads() {
+    }
+
+    /**
+     * JVM hiện tại có hỗ trợ virtual threads không
+     * @return true trên Java 21+
+     */
+    public static boolean isSupported() {
+        return NEW_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * Executor tạo một virtual thread mới cho mỗi task
+     *
+     * @return Executor, null nếu JVM không hỗ trợ virtual threads
+     */
+    public static ExecutorService newPerTaskExecutor() {
+        if (NEW_PER_TASK_EXECUTOR == null) {
+            return null;
+        }
+        try {
+            return (ExecutorService) NEW_PER_TASK_EXECUTOR.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create virtual thread executor", e);
+        }
+    }
+
+    /**
+     * Thread có phải virtual thread không
+     *
+     * @param thread Thread cần kiểm tra
+     * @return true nếu là virtual thread, false nếu là platform thread hoặc JVM không hỗ trợ
+     */
+    public static boolean isVirtual(Thread thread) {
+        if (IS_VIRTUAL == null) {
+            return false;
+        }
+        try {
+            return (Boolean) IS_VIRTUAL.invoke(thread);
+        } catch (ReflectiveOperationException e) {
+            return false;
+        }
+    }
+
+    private static Method findMethod(Class<?> type, String name) {
+        try {
+            return type.getMethod(name);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+}
@@ -6,10 +6,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
-import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.hainh.transaction.core.Account;
 import com.hainh.transaction.core.AccountRepository;
+import com.hainh.transaction.monitoring.TransactionEventLog;
 
 /**
  * PropagationDemoService - Demo chi tiết về Transaction Propagation
@@ -47,25 +47,11 @@ public class PropagationDemoService {
     @Autowired
     private AccountRepository accountRepository;
     
-    // Note: We don't need self-injection for this demo as we're not calling methods from within the same class
-
-    // ==================== UTILITY METHODS ====================
+    // Trạng thái transaction (active, tên, readOnly, isolation) đầu mỗi demo - xem GET /api/monitoring/timeline
+    @Autowired
+    private TransactionEventLog transactionEventLog;
     
-    /**
-     * Utility method để log transaction status
-     */
-    private void logTransactionStatus(String methodName) {
-        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
-        String transactionName = TransactionSynchronizationManager.getCurrentTransactionName();
-        boolean readOnly = TransactionSynchronizationManager.isCurrentTransactionReadOnly();
-        
-        logger.info("=== {} ===", methodName);
-        logger.info("In Transaction: {}", inTransaction);
-        logger.info("Transaction Name: {}", transactionName);
-        logger.info("Read Only: {}", readOnly);
-        logger.info("Transaction Isolation: {}", 
-                TransactionSynchronizationManager.getCurrentTransactionIsolationLevel());
-    }
+    // Note: We don't need self-injection for this demo as we're not calling methods from within the same class
 
     // ==================== DEMO 1: REQUIRED (Default) ====================
     
@@ -84,7 +70,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public String demonstrateRequired(Long accountId, Double amount) {
-        logTransactionStatus("PROPAGATION.REQUIRED");
+        transactionEventLog.checkpoint("PROPAGATION.REQUIRED");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -102,7 +88,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public String nestedRequired(Long accountId, Double amount) {
-        logTransactionStatus("NESTED REQUIRED");
+        transactionEventLog.checkpoint("NESTED REQUIRED");
         
         // Gọi method khác cũng có REQUIRED
         String result1 = demonstrateRequired(accountId, amount);
@@ -132,7 +118,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public String demonstrateRequiresNew(Long accountId, Double amount) {
-        logTransactionStatus("PROPAGATION.REQUIRES_NEW");
+        transactionEventLog.checkpoint("PROPAGATION.REQUIRES_NEW");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -150,7 +136,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public String demonstrateRequiresNewWithException(Long accountId, Double amount, boolean shouldFail) {
-        logTransactionStatus("REQUIRES_NEW WITH EXCEPTION");
+        transactionEventLog.checkpoint("REQUIRES_NEW WITH EXCEPTION");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -188,7 +174,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.NESTED)
     public String demonstrateNested(Long accountId, Double amount) {
-        logTransactionStatus("PROPAGATION.NESTED");
+        transactionEventLog.checkpoint("PROPAGATION.NESTED");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -206,7 +192,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.NESTED)
     public String demonstrateNestedWithException(Long accountId, Double amount, boolean shouldFail) {
-        logTransactionStatus("NESTED WITH EXCEPTION");
+        transactionEventLog.checkpoint("NESTED WITH EXCEPTION");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -242,7 +228,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.SUPPORTS, readOnly = true)
     public String demonstrateSupports(Long accountId) {
-        logTransactionStatus("PROPAGATION.SUPPORTS");
+        transactionEventLog.checkpoint("PROPAGATION.SUPPORTS");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -268,7 +254,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.MANDATORY)
     public String demonstrateMandatory(Long accountId, Double amount) {
-        logTransactionStatus("PROPAGATION.MANDATORY");
+        transactionEventLog.checkpoint("PROPAGATION.MANDATORY");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -298,7 +284,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.NEVER)
     public String demonstrateNever(Long accountId) {
-        logTransactionStatus("PROPAGATION.NEVER");
+        transactionEventLog.checkpoint("PROPAGATION.NEVER");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -324,7 +310,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public String demonstrateNotSupported(Long accountId) {
-        logTransactionStatus("PROPAGATION.NOT_SUPPORTED");
+        transactionEventLog.checkpoint("PROPAGATION.NOT_SUPPORTED");
         
         Account account = accountRepository.findById(accountId)
             .orElseThrow(() -> new RuntimeException("Account not found: " + accountId));
@@ -340,7 +326,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public String demonstrateComplexScenario(Long accountId) {
-        logTransactionStatus("COMPLEX SCENARIO - PARENT");
+        transactionEventLog.checkpoint("COMPLEX SCENARIO - PARENT");
         
         StringBuilder results = new StringBuilder();
         results.append("COMPLEX SCENARIO RESULTS:\n");
@@ -378,7 +364,7 @@ public class PropagationDemoService {
      */
     @Transactional(propagation = Propagation.REQUIRED)
     public String demonstrateRollbackScenario(Long accountId, boolean failInRequiresNew, boolean failInNested) {
-        logTransactionStatus("ROLLBACK SCENARIO - PARENT");
+        transactionEventLog.checkpoint("ROLLBACK SCENARIO - PARENT");
         
         StringBuilder results = new StringBuilder();
         results.append("ROLLBACK SCENARIO:\n");